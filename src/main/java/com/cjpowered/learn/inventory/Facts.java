@@ -0,0 +1,99 @@
+package com.cjpowered.learn.inventory;
+
+import java.time.LocalDate;
+
+import com.cjpowered.learn.inventory.audit.Decision;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * What the ordering rules may ask about one item on one day. Implementations
+ * fetch each fact on first use, so a rule that exits early never pays for
+ * facts it did not need.
+ */
+public interface Facts {
+
+	/**
+	 * @return item the facts are about
+	 */
+	Item item();
+
+	/**
+	 * @return effective day
+	 */
+	LocalDate date();
+
+	/**
+	 * @return warehouse the facts are about
+	 */
+	default Warehouse warehouse() {
+		return Warehouse.home();
+	}
+
+	/**
+	 * @return normal inventory level at the warehouse
+	 */
+	default int wantOnHand() {
+		return item().wantOnHand();
+	}
+
+	/**
+	 * @return number on hand at the warehouse
+	 */
+	int onHand();
+
+	/**
+	 * @return number on order for the warehouse
+	 */
+	int onOrder();
+
+	/**
+	 * @return true if the item is on sale
+	 */
+	boolean onSale();
+
+	/**
+	 * @return season of the effective day
+	 */
+	Season season();
+
+	/**
+	 * Change the item's required on-hand amount at the warehouse.
+	 */
+	void setRequiredOnHand(int newAmount);
+
+	/**
+	 * @return true if a separate pass has already applied the stock outage
+	 *         rule for this run, so the rules must not apply it again
+	 */
+	default boolean stockoutBumpsApplied() {
+		return false;
+	}
+
+	/**
+	 * Note how the rules settled the item's order, for the audit trail. The
+	 * default keeps nothing.
+	 *
+	 * @param decision
+	 *            branch that settled the order
+	 *
+	 * @param target
+	 *            level the rules aimed for
+	 *
+	 * @param quantity
+	 *            units ordered
+	 */
+	default void decided(Decision decision, int target, int quantity) {
+	}
+
+	/**
+	 * @return underlying inventory, for items that evaluate their own rules
+	 */
+	InventoryDatabase database();
+
+	/**
+	 * @return underlying marketing information, for items that evaluate their
+	 *         own rules
+	 */
+	MarketingInfo marketing();
+}
@@ -0,0 +1,78 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.List;
+
+/**
+ * Database that passes every call to another one. Decorators extend it and
+ * override only the calls they change.
+ */
+public abstract class ForwardingInventoryDatabase implements InventoryDatabase {
+
+	protected final InventoryDatabase delegate;
+
+	protected ForwardingInventoryDatabase(final InventoryDatabase delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public int onHand(final Item item) {
+		return delegate.onHand(item);
+	}
+
+	@Override
+	public int onHand(final Item item, final Warehouse warehouse) {
+		return delegate.onHand(item, warehouse);
+	}
+
+	@Override
+	public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand, final int count) {
+		delegate.onHand(items, warehouses, onHand, count);
+	}
+
+	@Override
+	public List<Item> stockItems() {
+		return delegate.stockItems();
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final int newAmount) {
+		delegate.setRequiredOnHand(item, newAmount);
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+		delegate.setRequiredOnHand(item, warehouse, newAmount);
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item[] items, final Warehouse[] warehouses, final int[] newAmounts,
+			final int count) {
+		delegate.setRequiredOnHand(items, warehouses, newAmounts, count);
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public int onOrder(final Item item) {
+		return delegate.onOrder(item);
+	}
+
+	@Override
+	public int onOrder(final Item item, final Warehouse warehouse) {
+		return delegate.onOrder(item, warehouse);
+	}
+
+	@Override
+	public void onOrder(final Item[] items, final Warehouse[] warehouses, final int[] onOrder, final int count) {
+		delegate.onOrder(items, warehouses, onOrder, count);
+	}
+
+	@Override
+	public void prefetch(final List<Item> items) {
+		delegate.prefetch(items);
+	}
+
+	@Override
+	public void flush() {
+		delegate.flush();
+	}
+}
@@ -73,4 +73,71 @@ public interface InventoryDatabase {
     * @return fetched value
     */
    int onHand(Item item, Warehouse warehouse);
+
+   /**
+    * Hint that the given items are about to be read, in order. Databases
+    * with expensive lookups may fetch their levels in one round trip; the
+    * default does nothing.
+    *
+    * @param items
+    *            items about to be read
+    */
+   default void prefetch(List<Item> items) {
+   }
+
+   /**
+    * Make every required-level change so far durable. Databases that buffer
+    * writes send them now; planners call this at the end of each run. The
+    * default does nothing.
+    */
+   default void flush() {
+   }
+
+   /**
+    * Change many required on-hand amounts at once. Entry i sets the level of
+    * items[i] at warehouses[i] to newAmounts[i]; a null warehouse stands for
+    * the warehouse-less overload. The default makes one call per entry;
+    * databases with a cheaper bulk write override it.
+    *
+    * @param count
+    *            number of entries to apply
+    */
+   default void setRequiredOnHand(Item[] items, Warehouse[] warehouses, int[] newAmounts, int count) {
+       for (int i = 0; i < count; i++) {
+           if (warehouses[i] == null) {
+               setRequiredOnHand(items[i], newAmounts[i]);
+           } else {
+               setRequiredOnHand(items[i], warehouses[i], newAmounts[i]);
+           }
+       }
+   }
+
+   /**
+    * Fetch many on-hand numbers at once into {@code onHand}, entry i for
+    * items[i] at warehouses[i]; a null warehouse stands for the
+    * warehouse-less overload. The default makes one call per entry.
+    *
+    * @param count
+    *            number of entries to fetch
+    */
+   default void onHand(Item[] items, Warehouse[] warehouses, int[] onHand, int count) {
+       for (int i = 0; i < count; i++) {
+           onHand[i] = warehouses[i] == null ? onHand(items[i]) : onHand(items[i], warehouses[i]);
+       }
+   }
+
+   /**
+    * Fetch many on-order numbers at once into {@code onOrder}, entry i for
+    * items[i] at warehouses[i]; a null warehouse stands for the
+    * warehouse-less overload. The default makes one call per entry.
+    *
+    * @param count
+    *            number of entries to fetch
+    */
+   @SuppressWarnings("deprecation")
+   default void onOrder(Item[] items, Warehouse[] warehouses, int[] onOrder, int count) {
+       for (int i = 0; i < count; i++) {
+           onOrder[i] = warehouses[i] == null ? onOrder(items[i]) : onOrder(items[i], warehouses[i]);
+       }
+   }
 }
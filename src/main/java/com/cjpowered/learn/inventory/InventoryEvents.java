@@ -0,0 +1,38 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fan-out of inventory changes to subscribed listeners. Listeners are called
+ * on the publishing thread and must return quickly.
+ */
+public final class InventoryEvents {
+
+	private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param listener
+	 *            listener to add
+	 */
+	public void subscribe(final InventoryListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * @param listener
+	 *            listener to remove
+	 */
+	public void unsubscribe(final InventoryListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Notify every listener of a change.
+	 */
+	public void publish(final Item item, final Warehouse warehouse, final int onHand, final int onOrder) {
+		for (final InventoryListener listener : listeners) {
+			listener.inventoryChanged(item, warehouse, onHand, onOrder);
+		}
+	}
+}
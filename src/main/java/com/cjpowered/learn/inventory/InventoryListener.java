@@ -0,0 +1,20 @@
+package com.cjpowered.learn.inventory;
+
+public interface InventoryListener {
+    /**
+     * Notification that stock figures changed.
+     *
+     * @param item
+     *            item that changed
+     *
+     * @param warehouse
+     *            warehouse that changed
+     *
+     * @param onHand
+     *            new number on hand
+     *
+     * @param onOrder
+     *            new number on order
+     */
+    void inventoryChanged(Item item, Warehouse warehouse, int onHand, int onOrder);
+}
@@ -0,0 +1,42 @@
+package com.cjpowered.learn.inventory;
+
+public interface InventoryWriter {
+    /**
+     * Apply stock changes in bulk. Entry {@code i} adds
+     * {@code onHandDeltas[i]} to the number on hand and
+     * {@code onOrderDeltas[i]} to the number on order of {@code items[i]} at
+     * {@code warehouses[i]}. The number on order never drops below zero: a
+     * receipt larger than what is on order leaves nothing on order. If this
+     * throws, no entry has been applied, so the caller may retry the batch.
+     *
+     * @param items
+     *            items changed
+     *
+     * @param warehouses
+     *            warehouses changed
+     *
+     * @param onHandDeltas
+     *            change in number on hand
+     *
+     * @param onOrderDeltas
+     *            change in number on order
+     *
+     * @param count
+     *            number of entries to apply
+     *
+     * @throws IllegalArgumentException
+     *             if an entry can never be applied, such as one for an item
+     *             that is not stocked; other exceptions may pass on a retry
+     */
+    void applyDeltas(Item[] items, Warehouse[] warehouses, int[] onHandDeltas, int[] onOrderDeltas, int count);
+
+    /**
+     * @param item
+     *            item to check
+     *
+     * @return false if changes to the item would be rejected
+     */
+    default boolean stocks(final Item item) {
+        return true;
+    }
+}
@@ -3,8 +3,90 @@ package com.cjpowered.learn.inventory;
 import java.time.LocalDate;
 import java.util.Optional;
 
+import com.cjpowered.learn.inventory.rule.PackOptimizer;
 import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
 
 public interface Item {
 	Order createOrder(LocalDate when, InventoryDatabase db, MarketingInfo marketInfo);
+
+	/**
+	 * Compute an order with the given rule parameters in place of
+	 * {@link OrderPolicy#DEFAULT}. Items without tunable rules ignore the
+	 * policy.
+	 */
+	default Order createOrder(LocalDate when, InventoryDatabase db, MarketingInfo marketInfo, OrderPolicy policy) {
+		return createOrder(when, db, marketInfo);
+	}
+
+	/**
+	 * Compute an order from lazily fetched facts, which must be about this
+	 * item. Items without their own implementation fall back on the database
+	 * and marketing information behind the facts.
+	 */
+	default Order createOrder(Facts facts, OrderPolicy policy) {
+		return createOrder(facts.date(), facts.database(), facts.marketing(), policy);
+	}
+
+	/**
+	 * Apply only the stock outage rule. Called in place of createOrder when
+	 * the item's metadata shows it cannot be ordered on the day.
+	 */
+	default void applyStockoutBump(InventoryDatabase db, OrderPolicy policy) {
+	}
+
+	/**
+	 * @return true if the item's required level is raised after a stock
+	 *         outage, so a bulk pass can apply the rule in place of
+	 *         {@link #applyStockoutBump}
+	 */
+	default boolean bumpsOnStockout() {
+		return false;
+	}
+
+	/**
+	 * @return normal inventory level
+	 */
+	default int wantOnHand() {
+		return 0;
+	}
+
+	/**
+	 * @param warehouse
+	 *            warehouse to query
+	 *
+	 * @return normal inventory level at the warehouse, 0 if not stocked there
+	 */
+	default int wantOnHand(Warehouse warehouse) {
+		return warehouse == Warehouse.home() ? wantOnHand() : 0;
+	}
+
+	/**
+	 * @return true if the item may only be ordered on the first of the month
+	 */
+	default boolean isRestricted() {
+		return false;
+	}
+
+	/**
+	 * @return number of units per package
+	 */
+	default int bulkAmount() {
+		return 1;
+	}
+
+	/**
+	 * @return cheapest-cover optimizer over several pack sizes, or null if
+	 *         the item is only ordered in whole {@link #bulkAmount()} packs
+	 */
+	default PackOptimizer packOptimizer() {
+		return null;
+	}
+
+	/**
+	 * @return high-demand season, if the item is seasonal
+	 */
+	default Optional<Season> highSeason() {
+		return Optional.empty();
+	}
 }
@@ -0,0 +1,31 @@
+package com.cjpowered.learn.inventory;
+
+/**
+ * Stable identity of an item, the same in every process that loads the same
+ * catalog.
+ */
+@FunctionalInterface
+public interface ItemKey {
+    /**
+     * @param item
+     *            item to identify
+     *
+     * @return key of the item
+     */
+    long keyOf(Item item);
+
+    /**
+     * Spread the bits of a key, so that sequential keys fall evenly into hash
+     * buckets and bit positions.
+     *
+     * @param key
+     *            key to mix
+     *
+     * @return mixed key
+     */
+    static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
@@ -0,0 +1,200 @@
+package com.cjpowered.learn.inventory;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.cjpowered.learn.inventory.audit.Decision;
+import com.cjpowered.learn.inventory.audit.DecisionLog;
+import com.cjpowered.learn.inventory.audit.DecisionRecord;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Facts for one planning run. {@link #at(Item)} moves to the next item and
+ * forgets the previous item's facts; the season is fetched once for the whole
+ * run. Every fact is fetched on first use and then remembered. One instance
+ * serves one thread. Decisions go to an optional {@link DecisionLog}, through
+ * a writer of the run's own, with the inputs that were actually fetched. Facts are about the home warehouse
+ * through the database's warehouse-less methods unless a warehouse is given.
+ */
+public final class LazyFacts implements Facts {
+
+	private final LocalDate when;
+	private final InventoryDatabase db;
+	private final MarketingInfo marketInfo;
+	private final DecisionLog log;
+	private final DecisionLog.Writer writer;
+	private final ItemKey keys;
+	private final Warehouse warehouse;
+	private boolean bumpsApplied;
+	private boolean seasonLoaded;
+	private Season season;
+	private Item item;
+	private boolean onHandLoaded;
+	private int onHand;
+	private boolean onOrderLoaded;
+	private int onOrder;
+	private boolean onSaleLoaded;
+	private boolean onSale;
+
+	public LazyFacts(final LocalDate when, final InventoryDatabase db, final MarketingInfo marketInfo) {
+		this(when, db, marketInfo, null, null);
+	}
+
+	/**
+	 * @param log
+	 *            receives decisions, may be null
+	 *
+	 * @param keys
+	 *            identifies items in the log
+	 */
+	public LazyFacts(final LocalDate when, final InventoryDatabase db, final MarketingInfo marketInfo,
+			final DecisionLog log, final ItemKey keys) {
+		this(when, db, marketInfo, log, keys, null);
+	}
+
+	/**
+	 * @param log
+	 *            receives decisions, may be null
+	 *
+	 * @param keys
+	 *            identifies items in the log
+	 *
+	 * @param warehouse
+	 *            warehouse to plan, or null for the warehouse-less levels
+	 */
+	public LazyFacts(final LocalDate when, final InventoryDatabase db, final MarketingInfo marketInfo,
+			final DecisionLog log, final ItemKey keys, final Warehouse warehouse) {
+		this.when = when;
+		this.db = db;
+		this.marketInfo = marketInfo;
+		this.log = log;
+		this.writer = log == null ? null : log.writer(when);
+		this.keys = keys;
+		this.warehouse = warehouse;
+	}
+
+	/**
+	 * Switch to another item.
+	 *
+	 * @return this
+	 */
+	public LazyFacts at(final Item item) {
+		this.item = item;
+		this.onHandLoaded = false;
+		this.onOrderLoaded = false;
+		this.onSaleLoaded = false;
+		return this;
+	}
+
+	/**
+	 * Let the database fetch the inventory facts of the coming items in bulk.
+	 *
+	 * @param items
+	 *            items about to be evaluated, in order
+	 */
+	public void prefetch(final List<Item> items) {
+		db.prefetch(items);
+	}
+
+	/**
+	 * Record whether a bulk pass applies the stock outage rule for this run.
+	 */
+	public void setStockoutBumpsApplied(final boolean applied) {
+		this.bumpsApplied = applied;
+	}
+
+	@Override
+	public boolean stockoutBumpsApplied() {
+		return bumpsApplied;
+	}
+
+	@Override
+	public Item item() {
+		return item;
+	}
+
+	@Override
+	public LocalDate date() {
+		return when;
+	}
+
+	@Override
+	public Warehouse warehouse() {
+		return warehouse == null ? Warehouse.home() : warehouse;
+	}
+
+	@Override
+	public int wantOnHand() {
+		return warehouse == null ? item.wantOnHand() : item.wantOnHand(warehouse);
+	}
+
+	@Override
+	public int onHand() {
+		if (!onHandLoaded) {
+			onHand = warehouse == null ? db.onHand(item) : db.onHand(item, warehouse);
+			onHandLoaded = true;
+		}
+		return onHand;
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public int onOrder() {
+		if (!onOrderLoaded) {
+			onOrder = warehouse == null ? db.onOrder(item) : db.onOrder(item, warehouse);
+			onOrderLoaded = true;
+		}
+		return onOrder;
+	}
+
+	@Override
+	public boolean onSale() {
+		if (!onSaleLoaded) {
+			onSale = marketInfo.onSale(item);
+			onSaleLoaded = true;
+		}
+		return onSale;
+	}
+
+	@Override
+	public Season season() {
+		if (!seasonLoaded) {
+			season = marketInfo.season(when);
+			seasonLoaded = true;
+		}
+		return season;
+	}
+
+	@Override
+	public void setRequiredOnHand(final int newAmount) {
+		if (warehouse == null) {
+			db.setRequiredOnHand(item, newAmount);
+		} else {
+			db.setRequiredOnHand(item, warehouse, newAmount);
+		}
+	}
+
+	@Override
+	public void decided(final Decision decision, final int target, final int quantity) {
+		if (log == null) {
+			return;
+		}
+		final long key = keys.keyOf(item);
+		if (log.wants(key)) {
+			final int fetched = (onHandLoaded ? DecisionRecord.ON_HAND : 0)
+					| (onOrderLoaded ? DecisionRecord.ON_ORDER : 0) | (onSaleLoaded ? DecisionRecord.ON_SALE : 0);
+			writer.record(key, warehouse(), fetched, onHand, onOrder, onSale ? 1 : 0, target, decision, quantity);
+		}
+	}
+
+	@Override
+	public InventoryDatabase database() {
+		return db;
+	}
+
+	@Override
+	public MarketingInfo marketing() {
+		return marketInfo;
+	}
+}
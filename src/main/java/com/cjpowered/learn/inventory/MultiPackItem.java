@@ -0,0 +1,30 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.HashMap;
+
+import com.cjpowered.learn.inventory.rule.PackOptimizer;
+
+/**
+ * Stocked item sold in several pack sizes. Orders cover the deficit with
+ * the cheapest mix of packs instead of rounding down to one package size.
+ */
+public class MultiPackItem extends StockedItem {
+
+	private final PackOptimizer packs;
+
+	public MultiPackItem(final int wantOnHand, final boolean isRestricted, final PackOptimizer packs) {
+		super(wantOnHand, isRestricted, packs.smallestSize());
+		this.packs = packs;
+	}
+
+	public MultiPackItem(final HashMap<Warehouse, Integer> warehouseWantOnHand, final boolean isRestricted,
+			final PackOptimizer packs) {
+		super(warehouseWantOnHand, isRestricted, packs.smallestSize());
+		this.packs = packs;
+	}
+
+	@Override
+	public PackOptimizer packOptimizer() {
+		return packs;
+	}
+}
@@ -0,0 +1,68 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Objects;
+
+/**
+ * Tunable parameters of the ordering rules. {@link #DEFAULT} holds the
+ * values from the business rules in the README.
+ */
+public final class OrderPolicy {
+
+	/**
+	 * policy matching the business rules
+	 */
+	public static final OrderPolicy DEFAULT = new OrderPolicy(20, 2.0, 0.8, 1.10);
+
+	/**
+	 * additional units kept on hand while an item is on sale
+	 */
+	public final int saleUnits;
+
+	/**
+	 * multiplier applied to the normal level during an item's high-demand season
+	 */
+	public final double seasonMultiplier;
+
+	/**
+	 * fraction of the required level at or below which we reorder
+	 */
+	public final double reorderThreshold;
+
+	/**
+	 * multiplier applied to the normal level after a stock outage
+	 */
+	public final double stockoutBump;
+
+	public OrderPolicy(final int saleUnits, final double seasonMultiplier, final double reorderThreshold,
+			final double stockoutBump) {
+		this.saleUnits = saleUnits;
+		this.seasonMultiplier = seasonMultiplier;
+		this.reorderThreshold = reorderThreshold;
+		this.stockoutBump = stockoutBump;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj)
+			return true;
+		else if (obj instanceof OrderPolicy) {
+			final OrderPolicy other = (OrderPolicy) obj;
+			return this.saleUnits == other.saleUnits
+					&& Double.compare(this.seasonMultiplier, other.seasonMultiplier) == 0
+					&& Double.compare(this.reorderThreshold, other.reorderThreshold) == 0
+					&& Double.compare(this.stockoutBump, other.stockoutBump) == 0;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.saleUnits, this.seasonMultiplier, this.reorderThreshold, this.stockoutBump);
+	}
+
+	@Override
+	public String toString() {
+		return "OrderPolicy[sale=" + saleUnits + ", season=" + seasonMultiplier + ", threshold=" + reorderThreshold
+				+ ", stockout=" + stockoutBump + "]";
+	}
+}
@@ -3,11 +3,16 @@ package com.cjpowered.learn.inventory;
 import java.time.LocalDate;
 import java.util.Optional;
 
+import com.cjpowered.learn.inventory.rule.OrderPipeline;
+import com.cjpowered.learn.inventory.rule.OrderRule;
 import com.cjpowered.learn.marketing.MarketingInfo;
 import com.cjpowered.learn.marketing.Season;
 
 public class SeasonalItem implements Item{
 
+	private static final OrderPipeline PIPELINE = OrderPipeline.compile(OrderRule.STOCKOUT_BUMP,
+			OrderRule.RESTRICTED_DAY, OrderRule.SEASON, OrderRule.SALE, OrderRule.THRESHOLD, OrderRule.PACK_ROUNDING);
+
 	private final int wantOnHand;
 	final Season season;
 	private final boolean isRestricted;
@@ -22,39 +27,47 @@ public class SeasonalItem implements Item{
 
 	@Override
 	public Order createOrder(final LocalDate when, final InventoryDatabase db, final MarketingInfo marketInfo) {
-		final Order maybeOrder;
-		final int onHand = db.onHand(this);
-		final boolean inSeason = season.equals(marketInfo.season(when));
-		final boolean onSale = marketInfo.onSale(this);
-		final int onOrder = db.onOrder(this);
-		final int increasedStock = (int)(Math.ceil(wantOnHand * 1.1));
-		int deficit = 0;
-		int toOrder = 0;
-
-		if (onHand == 0){
-			db.setRequiredOnHand(this, increasedStock);	
-		}
-		
-		if (isRestricted){
-			if(when.getDayOfMonth() != 1){
-				return new Order(this, 0);
-			}
-		}
-		
-		if (inSeason && !onSale){
-			deficit = wantOnHand * 2 - onHand - onOrder;
-			
-		} else if (inSeason && onSale){
-			deficit = wantOnHand < 20 ? wantOnHand + 20 - onHand - onOrder: wantOnHand * 2 - onHand - onOrder;
- 		}
-		
-		if (onHand + onOrder <= (deficit + onHand + onOrder) * 0.8  ){
-			while (toOrder < deficit && toOrder + bulkAmt <= deficit){
-				toOrder += bulkAmt;
-			}
-		}
-		
-		maybeOrder = new Order(this, toOrder);
-		return maybeOrder;
+		return createOrder(when, db, marketInfo, OrderPolicy.DEFAULT);
+	}
+
+	@Override
+	public Order createOrder(final LocalDate when, final InventoryDatabase db, final MarketingInfo marketInfo,
+			final OrderPolicy policy) {
+		return PIPELINE.evaluate(this, when, db, marketInfo, policy);
+	}
+
+	@Override
+	public Order createOrder(final Facts facts, final OrderPolicy policy) {
+		return PIPELINE.evaluate(facts, policy);
+	}
+
+	@Override
+	public void applyStockoutBump(final InventoryDatabase db, final OrderPolicy policy) {
+		PIPELINE.applyStockoutBump(this, db, policy);
+	}
+
+	@Override
+	public boolean bumpsOnStockout() {
+		return PIPELINE.bumpsOnStockout();
+	}
+
+	@Override
+	public int wantOnHand() {
+		return wantOnHand;
+	}
+
+	@Override
+	public boolean isRestricted() {
+		return isRestricted;
+	}
+
+	@Override
+	public int bulkAmount() {
+		return bulkAmt;
+	}
+
+	@Override
+	public Optional<Season> highSeason() {
+		return Optional.of(season);
 	}
 }
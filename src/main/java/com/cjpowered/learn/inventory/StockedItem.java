@@ -3,12 +3,16 @@ package com.cjpowered.learn.inventory;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
+import com.cjpowered.learn.inventory.rule.OrderPipeline;
+import com.cjpowered.learn.inventory.rule.OrderRule;
 import com.cjpowered.learn.marketing.MarketingInfo;
 
 public class StockedItem implements Item {
 	
+	private static final OrderPipeline PIPELINE = OrderPipeline.compile(OrderRule.STOCKOUT_BUMP,
+			OrderRule.RESTRICTED_DAY, OrderRule.SALE, OrderRule.THRESHOLD, OrderRule.PACK_ROUNDING);
+	
 	private final HashMap<Warehouse, Integer> warehouseWantOnHand;
 	private final boolean isRestricted;
 	private final int bulkAmt;
@@ -21,7 +25,7 @@ public class StockedItem implements Item {
 		this.bulkAmt = bulkAmt;
 	}
 	
-	public StockedItem(final HashMap warehouseWantOnHand, final boolean isRestricted, final int bulkAmt){
+	public StockedItem(final HashMap<Warehouse, Integer> warehouseWantOnHand, final boolean isRestricted, final int bulkAmt){
 		this.warehouseWantOnHand = warehouseWantOnHand;
 		this.isRestricted = isRestricted;
 		this.bulkAmt = bulkAmt;
@@ -34,46 +38,52 @@ public class StockedItem implements Item {
 
 	@Override
 	public Order createOrder(final LocalDate when, final InventoryDatabase db, final MarketingInfo marketInfo) {
+		return createOrder(when, db, marketInfo, OrderPolicy.DEFAULT);
+	}
+
+	@Override
+	public Order createOrder(final LocalDate when, final InventoryDatabase db, final MarketingInfo marketInfo,
+			final OrderPolicy policy) {
+		return PIPELINE.evaluate(this, when, db, marketInfo, policy);
+	}
+
+	@Override
+	public Order createOrder(final Facts facts, final OrderPolicy policy) {
+		return PIPELINE.evaluate(facts, policy);
+	}
+
+	@Override
+	public void applyStockoutBump(final InventoryDatabase db, final OrderPolicy policy) {
+		PIPELINE.applyStockoutBump(this, db, policy);
+	}
+
+	@Override
+	public boolean bumpsOnStockout() {
+		return PIPELINE.bumpsOnStockout();
+	}
+
+	@Override
+	public int wantOnHand() {
 		int wantOnHand = 0;
 		for (Map.Entry<Warehouse, Integer> next : warehouseWantOnHand.entrySet()){
 			wantOnHand = next.getValue();
 		}
-		
-//		for(Warehouse warehouse : warehouseWantOnHand.keySet()){
-//			Integer onHand = warehouseWantOnHand.get(warehouse);
-//		}
-		
-		final Order maybeOrder;
-		final int onHand = db.onHand(this);
-		final boolean onSale = marketInfo.onSale(this);
-		final int onOrder = db.onOrder(this);
-		final int increasedStock = (int) (Math.ceil(wantOnHand * 1.10));
-		int deficit = 0;
-		int toOrder = 0;
-		
-		if (onHand == 0){
-			db.setRequiredOnHand(this, increasedStock);	
-		}
-		
-		if (isRestricted){
-			if(when.getDayOfMonth() != 1){
-				return new Order(this, 0);
-			}
-		}
+		return wantOnHand;
+	}
 
-		if (onSale){
-			deficit = wantOnHand + 20 - onHand - onOrder;
-		} else {
-			deficit = wantOnHand - onHand - onOrder;
-		}
-		
-		if (onHand + onOrder <= (deficit + onHand + onOrder) * 0.8 ){
-			while(toOrder < deficit && toOrder + bulkAmt <= deficit){
-				toOrder += bulkAmt;
-			}			
-		}
+	@Override
+	public int wantOnHand(final Warehouse warehouse) {
+		final Integer wantOnHand = warehouseWantOnHand.get(warehouse);
+		return wantOnHand == null ? 0 : wantOnHand;
+	}
 
-		maybeOrder = new Order(this, toOrder);
-		return maybeOrder;
+	@Override
+	public boolean isRestricted() {
+		return isRestricted;
+	}
+
+	@Override
+	public int bulkAmount() {
+		return bulkAmt;
 	}
 }
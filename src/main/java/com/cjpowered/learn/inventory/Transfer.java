@@ -0,0 +1,59 @@
+package com.cjpowered.learn.inventory;
+
+import java.util.Objects;
+
+/**
+ * Transfer command: how many units of an item to move between warehouses in
+ * place of buying them.
+ */
+public final class Transfer {
+
+	/**
+	 * item to move
+	 */
+	public final Item item;
+
+	/**
+	 * warehouse giving up the units
+	 */
+	public final Warehouse from;
+
+	/**
+	 * warehouse receiving the units
+	 */
+	public final Warehouse to;
+
+	/**
+	 * how many to move
+	 */
+	public final int quantity;
+
+	public Transfer(final Item item, final Warehouse from, final Warehouse to, final int quantity) {
+		this.item = item;
+		this.from = from;
+		this.to = to;
+		this.quantity = quantity;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj)
+			return true;
+		else if (obj instanceof Transfer) {
+			final Transfer other = (Transfer) obj;
+			return this.item.equals(other.item) && this.from == other.from && this.to == other.to
+					&& this.quantity == other.quantity;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.item, this.from, this.to, this.quantity);
+	}
+
+	@Override
+	public String toString() {
+		return "Transfer[" + item + ", " + from + " -> " + to + ", " + quantity + "]";
+	}
+}
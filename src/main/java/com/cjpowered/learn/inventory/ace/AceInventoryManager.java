@@ -9,30 +9,174 @@ import java.util.Optional;
 import com.cjpowered.learn.inventory.InventoryDatabase;
 import com.cjpowered.learn.inventory.InventoryManager;
 import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.LazyFacts;
 import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.audit.Decision;
+import com.cjpowered.learn.inventory.audit.DecisionLog;
 import com.cjpowered.learn.marketing.MarketingInfo;
 
 public final class AceInventoryManager implements InventoryManager {
 
+	/**
+	 * items handed to {@link InventoryDatabase#prefetch(List)} at a time
+	 */
+	static final int PREFETCH_SIZE = 256;
+
 	private final InventoryDatabase database;
 	private final MarketingInfo marketInfo;
+	private final OrderPolicy policy;
+	private final DecisionLog log;
+	private final ItemKey keys;
+	private final StockoutLedger ledger;
 	
 	public AceInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo){
+		this(database, marketInfo, OrderPolicy.DEFAULT);
+	}
+	
+	public AceInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo, final OrderPolicy policy){
+		this(database, marketInfo, policy, null, null);
+	}
+	
+	/**
+	 * @param log
+	 *            receives every decision, may be null
+	 *
+	 * @param keys
+	 *            identifies items in the log
+	 */
+	public AceInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo, final OrderPolicy policy,
+			final DecisionLog log, final ItemKey keys){
+		this(database, marketInfo, policy, log, keys, null);
+	}
+	
+	/**
+	 * @param log
+	 *            receives every decision, may be null
+	 *
+	 * @param keys
+	 *            identifies items in the log and ledger
+	 *
+	 * @param ledger
+	 *            open stock outages, so each is bumped once; may be null
+	 */
+	public AceInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo, final OrderPolicy policy,
+			final DecisionLog log, final ItemKey keys, final StockoutLedger ledger){
 		this.database = database;
 		this.marketInfo = marketInfo;
+		this.policy = policy;
+		this.log = log;
+		this.keys = keys;
+		this.ledger = ledger;
 	}
 	
     @Override
     public List<Order> getOrders(final LocalDate today) {
+    	 return plan(database.stockItems(), new LazyFacts(today, database, marketInfo, log, keys),
+    			 new StockoutBumpPass(policy, ledger, keys), policy);
+    }
+    
+    /**
+     * Evaluate the ordering rules for the given items.
+     */
+    static List<Order> plan(final Iterable<Item> items, final LocalDate today, final InventoryDatabase database,
+    		final MarketingInfo marketInfo, final OrderPolicy policy) {
+    	 return plan(items, new LazyFacts(today, database, marketInfo), new StockoutBumpPass(policy), policy);
+    }
+    
+    private static List<Order> plan(final Iterable<Item> items, final LazyFacts facts, final StockoutBumpPass bumps,
+    		final OrderPolicy policy) {
     	 final List<Order> orders = new ArrayList<>();
-    	 final List<Item> items = database.stockItems();
+    	 final OrderCalendar calendar = new OrderCalendar(facts.date(), facts.marketing());
+    	 facts.setStockoutBumpsApplied(true);
+    	 final List<Item> chunk = new ArrayList<>(PREFETCH_SIZE);
     	 
     	 for (Item item : items){
-    		 final Order order = item.createOrder(today, database, marketInfo);
-    		 if (order.quantity > 0){
-    			 orders.add(order);
+    		 chunk.add(item);
+    		 if (chunk.size() == PREFETCH_SIZE){
+    			 plan(chunk, calendar, facts, bumps, policy, orders);
+    			 chunk.clear();
     		 }
     	 }
+    	 plan(chunk, calendar, facts, bumps, policy, orders);
+    	 facts.database().flush();
+    	 bumps.sync();
     	 return orders;
     }
+    
+    private static void plan(final List<Item> chunk, final OrderCalendar calendar, final LazyFacts facts,
+    		final StockoutBumpPass bumps, final OrderPolicy policy, final List<Order> orders) {
+    	 if (chunk.isEmpty()){
+    		 return;
+    	 }
+    	 facts.prefetch(chunk);
+    	 evaluate(chunk, calendar, facts, bumps, policy, orders);
+    }
+    
+    /**
+     * Evaluate the ordering rules for a chunk of items whose facts the
+     * database has already been asked to prefetch.
+     */
+    static void evaluate(final List<Item> chunk, final OrderCalendar calendar, final LazyFacts facts,
+    		final StockoutBumpPass bumps, final OrderPolicy policy, final List<Order> orders) {
+    	 if (chunk.isEmpty()){
+    		 return;
+    	 }
+    	 bumps.apply(chunk, facts.database());
+    	 for (Item item : chunk){
+    		 final Order order = evaluate(item, calendar, facts, policy);
+    		 if (order != null){
+    			 orders.add(order);
+    		 }
+    	 }
+    }
+    
+    /**
+     * @return items planned at a warehouse: the whole catalog at home, the
+     *         items stocked there elsewhere
+     */
+    static List<Item> stockedAt(final List<Item> items, final Warehouse warehouse) {
+    	 if (warehouse == Warehouse.home()){
+    		 return items;
+    	 }
+    	 final List<Item> stocked = new ArrayList<>();
+    	 for (Item item : items){
+    		 if (item.wantOnHand(warehouse) > 0){
+    			 stocked.add(item);
+    		 }
+    	 }
+    	 return stocked;
+    }
+    
+    /**
+     * Evaluate the ordering rules for one item.
+     *
+     * @return order with a positive quantity, or null
+     */
+    static Order evaluate(final Item item, final LocalDate today, final OrderCalendar calendar,
+    		final InventoryDatabase database, final MarketingInfo marketInfo, final OrderPolicy policy) {
+    	 return evaluate(item, calendar, new LazyFacts(today, database, marketInfo), policy);
+    }
+    
+    /**
+     * Evaluate the ordering rules for one item with the run's facts.
+     *
+     * @return order with a positive quantity, or null
+     */
+    static Order evaluate(final Item item, final OrderCalendar calendar, final LazyFacts facts,
+    		final OrderPolicy policy) {
+    	 if (!calendar.canOrder(item)){
+    		 if (!facts.stockoutBumpsApplied()){
+    			 item.applyStockoutBump(facts.database(), policy);
+    		 }
+    		 final boolean restricted = item.isRestricted() && facts.date().getDayOfMonth() != 1;
+    		 facts.at(item);
+    		 facts.decided(restricted ? Decision.RESTRICTED_DAY : Decision.OFF_SEASON, facts.wantOnHand(), 0);
+    		 return null;
+    	 }
+    	 final Order order = item.createOrder(facts.at(item), policy);
+    	 return order.quantity > 0 ? order : null;
+    }
 }
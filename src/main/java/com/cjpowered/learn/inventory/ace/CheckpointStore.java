@@ -0,0 +1,29 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.io.IOException;
+
+public interface CheckpointStore {
+    /**
+     * Fetch the progress saved for the current run.
+     *
+     * @return saved checkpoint holding every order saved so far, or null if
+     *         there is none
+     */
+    PlanningCheckpoint load() throws IOException;
+
+    /**
+     * Add progress to the saved run, starting one if there is none. The
+     * checkpoint holds only the orders emitted since the previous save, so
+     * the cost of a save does not grow with the run. Must be atomic: after a
+     * crash, load returns the run as of the last complete save.
+     *
+     * @param checkpoint
+     *            progress since the previous save
+     */
+    void save(PlanningCheckpoint checkpoint) throws IOException;
+
+    /**
+     * Discard the saved run.
+     */
+    void clear() throws IOException;
+}
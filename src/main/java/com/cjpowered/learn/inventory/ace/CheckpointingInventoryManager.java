@@ -0,0 +1,136 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+/**
+ * Planning run that saves a checkpoint every few items. If a run for the same
+ * day, catalog and order policy dies, the next call resumes after the last
+ * checkpoint instead of starting over: earlier items keep their saved orders
+ * and are not evaluated, so their level changes are not applied twice. The
+ * catalog is matched by size and a fingerprint of its contents in order and of
+ * the policy, so the database must return it in the same order on every
+ * call.
+ */
+public final class CheckpointingInventoryManager implements InventoryManager {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final InventoryDatabase database;
+	private final MarketingInfo marketInfo;
+	private final OrderPolicy policy;
+	private final CheckpointStore store;
+	private final int interval;
+	private final ItemKey keys;
+
+	public CheckpointingInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo,
+			final CheckpointStore store, final int interval) {
+		this(database, marketInfo, OrderPolicy.DEFAULT, store, interval);
+	}
+
+	public CheckpointingInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo,
+			final OrderPolicy policy, final CheckpointStore store, final int interval) {
+		this(database, marketInfo, policy, store, interval, null);
+	}
+
+	/**
+	 * @param keys
+	 *            stable item keys folded into the catalog fingerprint, or null
+	 *            to fingerprint item metadata only
+	 */
+	public CheckpointingInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo,
+			final OrderPolicy policy, final CheckpointStore store, final int interval, final ItemKey keys) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("checkpoint interval must be positive: " + interval);
+		}
+		this.database = database;
+		this.marketInfo = marketInfo;
+		this.policy = policy;
+		this.store = store;
+		this.interval = interval;
+		this.keys = keys;
+	}
+
+	@Override
+	public List<Order> getOrders(final LocalDate today) {
+		try {
+			return plan(today);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private List<Order> plan(final LocalDate today) throws IOException {
+		final List<Item> items = database.stockItems();
+		final long fingerprint = fingerprint(items, keys, policy);
+
+		final List<PlanningCheckpoint.Entry> orders = new ArrayList<>();
+		int start = 0;
+		final PlanningCheckpoint saved = store.load();
+		if (saved != null && saved.sameRun(today, items.size(), fingerprint)) {
+			orders.addAll(saved.orders);
+			start = saved.position;
+		} else if (saved != null) {
+			store.clear();
+		}
+
+		int persisted = orders.size();
+		final OrderCalendar calendar = new OrderCalendar(today, marketInfo);
+		for (int i = start; i < items.size(); i++) {
+			final Order order = AceInventoryManager.evaluate(items.get(i), today, calendar, database, marketInfo,
+					policy);
+			if (order != null) {
+				orders.add(new PlanningCheckpoint.Entry(i, order.warehouse, order.quantity));
+			}
+			if ((i + 1 - start) % interval == 0 && i + 1 < items.size()) {
+				// level changes must land before the checkpoint skips their items
+				database.flush();
+				store.save(new PlanningCheckpoint(today, items.size(), fingerprint, i + 1,
+						orders.subList(persisted, orders.size())));
+				persisted = orders.size();
+			}
+		}
+		database.flush();
+		store.clear();
+
+		final List<Order> result = new ArrayList<>(orders.size());
+		for (final PlanningCheckpoint.Entry entry : orders) {
+			result.add(new Order(items.get(entry.item), entry.amount, entry.warehouse));
+		}
+		return result;
+	}
+
+	/**
+	 * Hash the policy, then a catalog in order: each item's key when keys are
+	 * given, and its ordering metadata, which is the same in every process.
+	 */
+	private static long fingerprint(final List<Item> items, final ItemKey keys, final OrderPolicy policy) {
+		long hash = items.size();
+		hash = 31 * hash + policy.saleUnits;
+		hash = 31 * hash + Double.doubleToLongBits(policy.seasonMultiplier);
+		hash = 31 * hash + Double.doubleToLongBits(policy.reorderThreshold);
+		hash = 31 * hash + Double.doubleToLongBits(policy.stockoutBump);
+		for (final Item item : items) {
+			hash = 31 * hash + (keys == null ? 0 : keys.keyOf(item));
+			hash = 31 * hash + (item.isRestricted() ? 1 : 0);
+			hash = 31 * hash + item.bulkAmount();
+			hash = 31 * hash + (item.highSeason().isPresent() ? item.highSeason().get().ordinal() : -1);
+			for (final Warehouse warehouse : WAREHOUSES) {
+				hash = 31 * hash + item.wantOnHand(warehouse);
+			}
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,121 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryListener;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+/**
+ * Continuous replenishment: evaluates an item's rules as soon as a change
+ * puts it at or below its reorder threshold, instead of waiting for the daily
+ * run. Changes to one item within the debounce delay are coalesced into a
+ * single evaluation. The order sink should record emitted orders so the
+ * database reflects them as on order. A failed evaluation is logged and the
+ * item evaluated again after the debounce delay. One order calendar serves
+ * each day.
+ */
+public final class ContinuousReplenisher implements InventoryListener {
+
+	private static final Logger LOG = Logger.getLogger(ContinuousReplenisher.class.getName());
+
+	private final InventoryDatabase database;
+	private final MarketingInfo marketInfo;
+	private final OrderPolicy policy;
+	private final Clock clock;
+	private final ScheduledExecutorService scheduler;
+	private final long debounceNanos;
+	private final Consumer<Order> sink;
+	private final ConcurrentMap<Item, Boolean> pending = new ConcurrentHashMap<>();
+	private volatile OrderCalendar calendar;
+
+	public ContinuousReplenisher(final InventoryDatabase database, final MarketingInfo marketInfo,
+			final OrderPolicy policy, final Clock clock, final ScheduledExecutorService scheduler,
+			final long debounce, final TimeUnit unit, final Consumer<Order> sink) {
+		this.database = database;
+		this.marketInfo = marketInfo;
+		this.policy = policy;
+		this.clock = clock;
+		this.scheduler = scheduler;
+		this.debounceNanos = unit.toNanos(debounce);
+		this.sink = sink;
+	}
+
+	@Override
+	public void inventoryChanged(final Item item, final Warehouse warehouse, final int onHand, final int onOrder) {
+		if (warehouse != Warehouse.home() || !mayNeedOrder(item, onHand, onOrder)) {
+			return;
+		}
+		schedule(item);
+	}
+
+	/**
+	 * Drop every pending evaluation.
+	 */
+	public void cancelPending() {
+		pending.clear();
+	}
+
+	/**
+	 * Threshold test against the highest level any rule could require, so no
+	 * item that could order is missed.
+	 */
+	private boolean mayNeedOrder(final Item item, final int onHand, final int onOrder) {
+		if (onHand == 0) {
+			return true;
+		}
+		final int wantOnHand = item.wantOnHand();
+		int ceiling = Math.max(wantOnHand, wantOnHand + policy.saleUnits);
+		if (item.highSeason().isPresent()) {
+			ceiling = Math.max(ceiling, (int) (Math.ceil(wantOnHand * policy.seasonMultiplier)));
+		}
+		return onHand + onOrder <= ceiling * policy.reorderThreshold;
+	}
+
+	private void schedule(final Item item) {
+		if (pending.putIfAbsent(item, Boolean.TRUE) == null) {
+			scheduler.schedule(() -> evaluate(item), debounceNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void evaluate(final Item item) {
+		if (pending.remove(item) == null) {
+			return;
+		}
+		try {
+			final LocalDate today = LocalDate.now(clock);
+			final Order order = AceInventoryManager.evaluate(item, today, calendar(today), database, marketInfo,
+					policy);
+			database.flush();
+			if (order != null) {
+				sink.accept(order);
+			}
+		} catch (final RuntimeException e) {
+			// nobody reads the scheduled future, so report here and try again
+			LOG.log(Level.WARNING, "evaluation failed, retrying: " + item, e);
+			schedule(item);
+		}
+	}
+
+	// racing threads may each build the day's calendar; either serves
+	private OrderCalendar calendar(final LocalDate today) {
+		OrderCalendar current = calendar;
+		if (current == null || !current.date().equals(today)) {
+			current = new OrderCalendar(today, marketInfo);
+			calendar = current;
+		}
+		return current;
+	}
+}
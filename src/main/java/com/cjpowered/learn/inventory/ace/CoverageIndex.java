@@ -0,0 +1,192 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryEvents;
+import com.cjpowered.learn.inventory.InventoryListener;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Items bucketed by coverage: on hand plus on order as a fraction of the
+ * normal level. Only items in the buckets at or below the reorder threshold,
+ * plus items whose required level is currently boosted above normal, can
+ * produce an order, so a planning run visits just those. Updates are O(1).
+ * As an {@link InventoryListener} the index follows the home warehouse's
+ * levels, which are the ones the ordering rules read; {@link #track} builds
+ * one that stays current with a database's changes. Sale boosts come from
+ * marketing: {@link CoverageInventoryManager} replaces them with its sale
+ * source's items on every run through {@link #setBoosted(Collection)}.
+ */
+public final class CoverageIndex implements InventoryListener {
+
+	/**
+	 * number of buckets covering coverage 0 up to 1; fully covered items share
+	 * one more bucket
+	 */
+	public static final int BUCKETS = 20;
+
+	private final List<Set<Item>> buckets = new ArrayList<>();
+	private final Map<Item, Integer> bucketOf = new HashMap<>();
+	private final Set<Item> boosted = new LinkedHashSet<>();
+
+	public CoverageIndex() {
+		for (int i = 0; i <= BUCKETS; i++) {
+			buckets.add(new LinkedHashSet<>());
+		}
+	}
+
+	/**
+	 * Build an index over a database's catalog that follows its changes from
+	 * then on.
+	 *
+	 * @param db
+	 *            database to index
+	 *
+	 * @param events
+	 *            the database's change notifications
+	 *
+	 * @return index subscribed to the events
+	 */
+	public static CoverageIndex track(final InventoryDatabase db, final InventoryEvents events) {
+		final CoverageIndex index = new CoverageIndex();
+		// subscribe first, so no change between the reads and the
+		// subscription is missed
+		events.subscribe(index);
+		for (final Item item : db.stockItems()) {
+			index.seed(item, db.onHand(item, Warehouse.home()), db.onOrder(item, Warehouse.home()));
+		}
+		return index;
+	}
+
+	// a change notified since the reads is newer, so it wins
+	private synchronized void seed(final Item item, final int onHand, final int onOrder) {
+		if (!bucketOf.containsKey(item)) {
+			update(item, onHand, onOrder);
+		}
+	}
+
+	@Override
+	public void inventoryChanged(final Item item, final Warehouse warehouse, final int onHand, final int onOrder) {
+		if (warehouse == Warehouse.home()) {
+			update(item, onHand, onOrder);
+		}
+	}
+
+	/**
+	 * Track an item. Until its first update it is treated as uncovered.
+	 *
+	 * @param item
+	 *            item to track
+	 */
+	public synchronized void add(final Item item) {
+		if (!bucketOf.containsKey(item)) {
+			move(item, 0);
+		}
+	}
+
+	/**
+	 * Stop tracking an item.
+	 *
+	 * @param item
+	 *            item to drop
+	 */
+	public synchronized void remove(final Item item) {
+		final Integer bucket = bucketOf.remove(item);
+		if (bucket != null) {
+			buckets.get(bucket).remove(item);
+		}
+		boosted.remove(item);
+	}
+
+	/**
+	 * Record new stock figures for an item, tracking it if necessary.
+	 *
+	 * @param item
+	 *            item that changed
+	 *
+	 * @param onHand
+	 *            units on hand
+	 *
+	 * @param onOrder
+	 *            units on order
+	 */
+	public synchronized void update(final Item item, final int onHand, final int onOrder) {
+		// an empty shelf always needs a visit for the stockout rule
+		move(item, onHand == 0 ? 0 : bucket(item.wantOnHand(), onHand + onOrder));
+	}
+
+	/**
+	 * Mark whether an item's required level is above normal, for example
+	 * while it is on sale. Boosted items are always visited.
+	 *
+	 * @param item
+	 *            item that changed
+	 *
+	 * @param isBoosted
+	 *            true while the required level is above normal
+	 */
+	public synchronized void setBoosted(final Item item, final boolean isBoosted) {
+		if (isBoosted) {
+			boosted.add(item);
+		} else {
+			boosted.remove(item);
+		}
+	}
+
+	/**
+	 * Replace the boosted items, for example with the items marketing has on
+	 * sale today.
+	 *
+	 * @param items
+	 *            items whose required level is above normal
+	 */
+	public synchronized void setBoosted(final Collection<Item> items) {
+		boosted.clear();
+		boosted.addAll(items);
+	}
+
+	/**
+	 * Items that may need an order at the given threshold. This is a superset
+	 * of the items that will order; the rules decide exactly.
+	 *
+	 * @param reorderThreshold
+	 *            fraction of the required level at or below which items
+	 *            reorder
+	 *
+	 * @return candidate items, each once
+	 */
+	public synchronized Set<Item> candidates(final double reorderThreshold) {
+		final Set<Item> candidates = new LinkedHashSet<>(boosted);
+		final int last = Math.min(BUCKETS, (int) Math.ceil(reorderThreshold * BUCKETS));
+		for (int i = 0; i <= last; i++) {
+			candidates.addAll(buckets.get(i));
+		}
+		return candidates;
+	}
+
+	private void move(final Item item, final int bucket) {
+		final Integer previous = bucketOf.put(item, bucket);
+		if (previous != null) {
+			if (previous == bucket) {
+				return;
+			}
+			buckets.get(previous).remove(item);
+		}
+		buckets.get(bucket).add(item);
+	}
+
+	private static int bucket(final int wantOnHand, final int held) {
+		if (wantOnHand <= 0) {
+			return 0;
+		}
+		return (int) Math.min(BUCKETS, (long) Math.max(held, 0) * BUCKETS / wantOnHand);
+	}
+}
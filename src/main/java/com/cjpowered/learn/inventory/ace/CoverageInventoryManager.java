@@ -0,0 +1,67 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.catalog.CatalogIndex;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Plans only the items that can need an order: those at or below the reorder
+ * threshold in the coverage index, those on sale, and seasonal items in their
+ * high-demand season. Work scales with the number of such items rather than
+ * with catalog size. Each run first replaces the index's boosted items with
+ * the sale source's, since an item on sale can order well above the reorder
+ * threshold.
+ */
+public final class CoverageInventoryManager implements InventoryManager {
+
+	private final InventoryDatabase database;
+	private final MarketingInfo marketInfo;
+	private final OrderPolicy policy;
+	private final CoverageIndex coverage;
+	private final CatalogIndex catalog;
+	private final Supplier<? extends Collection<Item>> onSale;
+
+	public CoverageInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo,
+			final CoverageIndex coverage, final CatalogIndex catalog, final Supplier<? extends Collection<Item>> onSale) {
+		this(database, marketInfo, OrderPolicy.DEFAULT, coverage, catalog, onSale);
+	}
+
+	/**
+	 * @param onSale
+	 *            items marketing has on sale, asked once per run
+	 */
+	public CoverageInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo,
+			final OrderPolicy policy, final CoverageIndex coverage, final CatalogIndex catalog,
+			final Supplier<? extends Collection<Item>> onSale) {
+		this.database = database;
+		this.marketInfo = marketInfo;
+		this.policy = policy;
+		this.coverage = coverage;
+		this.catalog = catalog;
+		this.onSale = Objects.requireNonNull(onSale, "onSale");
+	}
+
+	@Override
+	public List<Order> getOrders(final LocalDate today) {
+		coverage.setBoosted(onSale.get());
+		final Set<Item> items = new LinkedHashSet<>(coverage.candidates(policy.reorderThreshold));
+		final Season season = marketInfo.season(today);
+		if (season != null) {
+			items.addAll(catalog.bySeason(season));
+		}
+		return AceInventoryManager.plan(items, today, database, marketInfo, policy);
+	}
+}
@@ -0,0 +1,177 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Checkpoints in an append-only binary file: a header naming the run, then
+ * one checksummed segment per save. The file is created atomically through a
+ * temporary sibling file; later saves append and force a segment, and a
+ * segment torn by a crash is dropped on the next load.
+ */
+public final class FileCheckpointStore implements CheckpointStore {
+
+	private static final int MAGIC = 0x41434B50;
+	private static final int VERSION = 2;
+	private static final int HEADER_BYTES = 28;
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final Path file;
+
+	public FileCheckpointStore(final Path file) {
+		this.file = file;
+	}
+
+	@Override
+	public PlanningCheckpoint load() throws IOException {
+		final PlanningCheckpoint run;
+		final List<PlanningCheckpoint.Entry> orders = new ArrayList<>();
+		int position = 0;
+		long valid = HEADER_BYTES;
+		final long size;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			size = Files.size(file);
+			run = readHeader(in);
+			while (valid + 12 <= size) {
+				final int length = in.readInt();
+				if (length < 0 || valid + 12 + length > size) {
+					break;
+				}
+				final byte[] segment = new byte[length];
+				in.readFully(segment);
+				if (in.readLong() != checksum(segment)) {
+					break;
+				}
+				final DataInputStream entries = new DataInputStream(new ByteArrayInputStream(segment));
+				position = entries.readInt();
+				readEntries(entries, orders);
+				valid += 12 + length;
+			}
+		} catch (final NoSuchFileException e) {
+			return null;
+		}
+		if (valid < size) {
+			// later saves append after the last complete segment
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.truncate(valid);
+				channel.force(true);
+			}
+		}
+		return new PlanningCheckpoint(run.date, run.catalogSize, run.fingerprint, position, orders);
+	}
+
+	@Override
+	public void save(final PlanningCheckpoint checkpoint) throws IOException {
+		final byte[] segment = segment(checkpoint);
+		if (!Files.exists(file)) {
+			create(checkpoint, segment);
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			final PlanningCheckpoint run = readHeader(in);
+			if (!run.sameRun(checkpoint.date, checkpoint.catalogSize, checkpoint.fingerprint)) {
+				throw new IOException("checkpoint belongs to another run: " + file);
+			}
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(4 + segment.length + 8);
+		buffer.putInt(segment.length).put(segment).putLong(checksum(segment)).flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+	}
+
+	@Override
+	public void clear() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	private void create(final PlanningCheckpoint checkpoint, final byte[] segment) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + segment.length + 12);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(checkpoint.date.toEpochDay());
+			out.writeInt(checkpoint.catalogSize);
+			out.writeLong(checkpoint.fingerprint);
+			out.writeInt(segment.length);
+			out.write(segment);
+			out.writeLong(checksum(segment));
+		}
+		final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private PlanningCheckpoint readHeader(final DataInputStream in) throws IOException {
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("not a planning checkpoint: " + file);
+			}
+			final LocalDate date = LocalDate.ofEpochDay(in.readLong());
+			final int catalogSize = in.readInt();
+			final long fingerprint = in.readLong();
+			return new PlanningCheckpoint(date, catalogSize, fingerprint, 0, new ArrayList<>());
+		} catch (final EOFException e) {
+			throw new IOException("not a planning checkpoint: " + file, e);
+		}
+	}
+
+	private static byte[] segment(final PlanningCheckpoint checkpoint) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + 9 * checkpoint.orders.size());
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(checkpoint.position);
+			out.writeInt(checkpoint.orders.size());
+			for (final PlanningCheckpoint.Entry entry : checkpoint.orders) {
+				out.writeInt(entry.item);
+				out.writeByte(entry.warehouse == null ? -1 : entry.warehouse.ordinal());
+				out.writeInt(entry.amount);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void readEntries(final DataInputStream in, final List<PlanningCheckpoint.Entry> entries)
+			throws IOException {
+		final int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			final int item = in.readInt();
+			final byte warehouse = in.readByte();
+			final int amount = in.readInt();
+			entries.add(new PlanningCheckpoint.Entry(item, warehouse < 0 ? null : WAREHOUSES[warehouse], amount));
+		}
+	}
+
+	private static long checksum(final byte[] segment) {
+		final CRC32 crc = new CRC32();
+		crc.update(segment, 0, segment.length);
+		return crc.getValue();
+	}
+}
@@ -0,0 +1,142 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Facts for one planning day, fetched once and served back read-only. A
+ * snapshot stands in for both the database and marketing info, so any number
+ * of planning runs can share it without touching the real services. Level
+ * changes requested by those runs are discarded.
+ */
+public final class InventorySnapshot implements InventoryDatabase, MarketingInfo {
+
+	private final LocalDate date;
+	private final List<Item> items;
+	private final Map<Item, Integer> onHand;
+	private final Map<Item, Integer> onOrder;
+	private final Map<Item, Boolean> onSale;
+	private final Season season;
+
+	private InventorySnapshot(final LocalDate date, final List<Item> items, final Map<Item, Integer> onHand,
+			final Map<Item, Integer> onOrder, final Map<Item, Boolean> onSale, final Season season) {
+		this.date = date;
+		this.items = items;
+		this.onHand = onHand;
+		this.onOrder = onOrder;
+		this.onSale = onSale;
+		this.season = season;
+	}
+
+	/**
+	 * Fetch every fact the ordering rules use for the home warehouse.
+	 *
+	 * @param db
+	 *            database to query
+	 *
+	 * @param marketInfo
+	 *            marketing info to query
+	 *
+	 * @param when
+	 *            effective day
+	 *
+	 * @return captured facts
+	 */
+	public static InventorySnapshot capture(final InventoryDatabase db, final MarketingInfo marketInfo,
+			final LocalDate when) {
+		final List<Item> items = db.stockItems();
+		final Map<Item, Integer> onHand = new HashMap<>();
+		final Map<Item, Integer> onOrder = new HashMap<>();
+		final Map<Item, Boolean> onSale = new HashMap<>();
+		for (final Item item : items) {
+			onHand.put(item, db.onHand(item));
+			@SuppressWarnings("deprecation")
+			final int ordered = db.onOrder(item);
+			onOrder.put(item, ordered);
+			onSale.put(item, marketInfo.onSale(item));
+		}
+		return new InventorySnapshot(when, Collections.unmodifiableList(items), onHand, onOrder, onSale,
+				marketInfo.season(when));
+	}
+
+	/**
+	 * @return effective day of the captured facts
+	 */
+	public LocalDate date() {
+		return date;
+	}
+
+	@Override
+	public List<Item> stockItems() {
+		return items;
+	}
+
+	@Override
+	public int onHand(final Item item) {
+		return fetch(onHand, item);
+	}
+
+	@Override
+	public int onHand(final Item item, final Warehouse warehouse) {
+		checkHome(warehouse);
+		return onHand(item);
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public int onOrder(final Item item) {
+		return fetch(onOrder, item);
+	}
+
+	@Override
+	public int onOrder(final Item item, final Warehouse warehouse) {
+		checkHome(warehouse);
+		return onOrder(item);
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final int newAmount) {
+		// what-if runs never write back
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+		// what-if runs never write back
+	}
+
+	@Override
+	public boolean onSale(final Item item) {
+		return fetch(onSale, item);
+	}
+
+	@Override
+	public Season season(final LocalDate when) {
+		if (!date.equals(when)) {
+			throw new IllegalArgumentException("snapshot was captured for " + date + ", not " + when);
+		}
+		return season;
+	}
+
+	private static <T> T fetch(final Map<Item, T> facts, final Item item) {
+		final T value = facts.get(item);
+		if (value == null) {
+			throw new IllegalArgumentException("item not in snapshot: " + item);
+		}
+		return value;
+	}
+
+	private static void checkHome(final Warehouse warehouse) {
+		if (warehouse != Warehouse.home()) {
+			throw new UnsupportedOperationException("snapshot only covers " + Warehouse.home());
+		}
+	}
+}
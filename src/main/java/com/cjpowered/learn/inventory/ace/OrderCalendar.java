@@ -0,0 +1,60 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Decides from catalog metadata alone whether an item could be ordered on a
+ * day. The season is fetched at most once per calendar, and one calendar
+ * may be shared by the threads planning a run.
+ */
+final class OrderCalendar {
+
+	private final LocalDate when;
+	private final MarketingInfo marketInfo;
+	private volatile Season season;
+	private volatile boolean seasonFetched;
+
+	OrderCalendar(final LocalDate when, final MarketingInfo marketInfo) {
+		this.when = when;
+		this.marketInfo = marketInfo;
+	}
+
+	/**
+	 * @return day the calendar decides for
+	 */
+	LocalDate date() {
+		return when;
+	}
+
+	/**
+	 * @param item
+	 *            item to check
+	 *
+	 * @return false if the item is restricted and this is not the first of
+	 *         the month, or if it is out of its high-demand season
+	 */
+	boolean canOrder(final Item item) {
+		if (item.isRestricted() && when.getDayOfMonth() != 1) {
+			return false;
+		}
+		final Optional<Season> highSeason = item.highSeason();
+		return !highSeason.isPresent() || highSeason.get().equals(season());
+	}
+
+	private Season season() {
+		if (!seasonFetched) {
+			synchronized (this) {
+				if (!seasonFetched) {
+					season = marketInfo.season(when);
+					seasonFetched = true;
+				}
+			}
+		}
+		return season;
+	}
+}
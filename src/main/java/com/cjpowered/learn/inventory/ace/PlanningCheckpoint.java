@@ -0,0 +1,86 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Progress of a planning run. Items are identified by their position in the
+ * catalog returned by {@code stockItems()}. A saved checkpoint carries only
+ * the orders emitted since the previous save; a loaded one carries every
+ * order saved for the run.
+ */
+public final class PlanningCheckpoint {
+
+	/**
+	 * effective day of the run
+	 */
+	public final LocalDate date;
+
+	/**
+	 * number of items in the catalog being planned
+	 */
+	public final int catalogSize;
+
+	/**
+	 * hash of the catalog contents in order and of the order policy
+	 */
+	public final long fingerprint;
+
+	/**
+	 * catalog position of the next item to plan
+	 */
+	public final int position;
+
+	/**
+	 * orders emitted before {@link #position}
+	 */
+	public final List<Entry> orders;
+
+	public PlanningCheckpoint(final LocalDate date, final int catalogSize, final long fingerprint,
+			final int position, final List<Entry> orders) {
+		this.date = date;
+		this.catalogSize = catalogSize;
+		this.fingerprint = fingerprint;
+		this.position = position;
+		this.orders = Collections.unmodifiableList(new ArrayList<>(orders));
+	}
+
+	/**
+	 * @return true if this checkpoint belongs to a run of the same day over
+	 *         the same catalog with the same policy
+	 */
+	public boolean sameRun(final LocalDate date, final int catalogSize, final long fingerprint) {
+		return this.date.equals(date) && this.catalogSize == catalogSize && this.fingerprint == fingerprint;
+	}
+
+	/**
+	 * Order quantity recorded for one item.
+	 */
+	public static final class Entry {
+
+		/**
+		 * catalog position of the item
+		 */
+		public final int item;
+
+		/**
+		 * warehouse, or null for the warehouse-less database calls
+		 */
+		public final Warehouse warehouse;
+
+		/**
+		 * order quantity
+		 */
+		public final int amount;
+
+		public Entry(final int item, final Warehouse warehouse, final int amount) {
+			this.item = item;
+			this.warehouse = warehouse;
+			this.amount = amount;
+		}
+	}
+}
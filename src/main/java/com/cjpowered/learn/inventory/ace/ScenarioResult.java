@@ -0,0 +1,37 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.util.List;
+
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+
+/**
+ * Orders one policy would place against a shared snapshot.
+ */
+public final class ScenarioResult {
+
+	/**
+	 * policy evaluated
+	 */
+	public final OrderPolicy policy;
+
+	/**
+	 * orders the policy would place
+	 */
+	public final List<Order> orders;
+
+	/**
+	 * sum of all order quantities
+	 */
+	public final int totalUnits;
+
+	public ScenarioResult(final OrderPolicy policy, final List<Order> orders) {
+		this.policy = policy;
+		this.orders = orders;
+		int total = 0;
+		for (final Order order : orders) {
+			total += order.quantity;
+		}
+		this.totalUnits = total;
+	}
+}
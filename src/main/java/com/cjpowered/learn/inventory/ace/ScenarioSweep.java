@@ -0,0 +1,39 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.cjpowered.learn.inventory.OrderPolicy;
+
+/**
+ * What-if evaluation of many policies against the same facts. Scenarios run
+ * in parallel; each one plans against the snapshot, so the database and
+ * marketing services are queried only when the snapshot is captured.
+ */
+public final class ScenarioSweep {
+
+	private final InventorySnapshot snapshot;
+
+	public ScenarioSweep(final InventorySnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Evaluate each policy.
+	 *
+	 * @param policies
+	 *            parameter sets to try
+	 *
+	 * @return one result per policy, in the same order
+	 */
+	public List<ScenarioResult> run(final List<OrderPolicy> policies) {
+		return Collections.unmodifiableList(
+				policies.parallelStream().map(this::evaluate).collect(Collectors.toList()));
+	}
+
+	private ScenarioResult evaluate(final OrderPolicy policy) {
+		final AceInventoryManager manager = new AceInventoryManager(snapshot, snapshot, policy);
+		return new ScenarioResult(policy, manager.getOrders(snapshot.date()));
+	}
+}
@@ -0,0 +1,160 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.rule.OrderPipeline;
+
+/**
+ * Applies the stock outage rule to a batch of items apart from order
+ * computation: one bulk on-hand read finds the items with nothing on hand and
+ * one bulk write raises all their required levels. Works on the same
+ * warehouse-less levels as the ordering rules unless given a warehouse. With
+ * a {@link StockoutLedger} an item is bumped once per outage: later passes
+ * skip it until it has stock again. Buffers are reused between calls, so one
+ * instance serves one thread.
+ */
+public final class StockoutBumpPass {
+
+	private final OrderPolicy policy;
+	private final StockoutLedger ledger;
+	private final ItemKey keys;
+	private final Warehouse warehouse;
+	private Item[] items = new Item[0];
+	private Warehouse[] warehouses = new Warehouse[0];
+	private int[] levels = new int[0];
+	private Item[] bumped = new Item[0];
+	private long[] bumpedKeys = new long[0];
+	private int[] bumpedLevels = new int[0];
+
+	public StockoutBumpPass(final OrderPolicy policy) {
+		this(policy, null, null);
+	}
+
+	/**
+	 * @param ledger
+	 *            open outages, may be null to bump on every pass
+	 *
+	 * @param keys
+	 *            identifies items in the ledger
+	 */
+	public StockoutBumpPass(final OrderPolicy policy, final StockoutLedger ledger, final ItemKey keys) {
+		this(policy, ledger, keys, null);
+	}
+
+	/**
+	 * @param ledger
+	 *            open outages, may be null to bump on every pass
+	 *
+	 * @param keys
+	 *            identifies items in the ledger
+	 *
+	 * @param warehouse
+	 *            warehouse whose levels are bumped, or null for the
+	 *            warehouse-less levels
+	 */
+	public StockoutBumpPass(final OrderPolicy policy, final StockoutLedger ledger, final ItemKey keys,
+			final Warehouse warehouse) {
+		this.policy = policy;
+		this.ledger = ledger;
+		this.keys = keys;
+		this.warehouse = warehouse;
+	}
+
+	/**
+	 * Raise the required level of every item in the batch that is out of
+	 * stock, follows the stock outage rule and was not already bumped for
+	 * this outage.
+	 *
+	 * @return number of items bumped
+	 *
+	 * @throws UncheckedIOException
+	 *             if the ledger cannot be written
+	 */
+	public int apply(final List<Item> batch, final InventoryDatabase db) {
+		int count = 0;
+		ensureCapacity(batch.size());
+		for (final Item item : batch) {
+			if (item.bumpsOnStockout()) {
+				items[count++] = item;
+			}
+		}
+		if (count == 0) {
+			return 0;
+		}
+		db.onHand(items, warehouses, levels, count);
+
+		final Warehouse episodes = warehouse == null ? Warehouse.home() : warehouse;
+		int out = 0;
+		try {
+			for (int i = 0; i < count; i++) {
+				final long key = ledger == null ? 0 : keys.keyOf(items[i]);
+				if (levels[i] != 0) {
+					if (ledger != null) {
+						ledger.endEpisode(key, episodes);
+					}
+				} else if (ledger == null || !ledger.inEpisode(key, episodes)) {
+					bumped[out] = items[i];
+					bumpedKeys[out] = key;
+					bumpedLevels[out] = OrderPipeline.stockoutLevel(
+							warehouse == null ? items[i].wantOnHand() : items[i].wantOnHand(warehouse), policy);
+					out++;
+				}
+			}
+			if (out > 0) {
+				db.setRequiredOnHand(bumped, warehouses, bumpedLevels, out);
+			}
+			if (ledger != null) {
+				// only once the bumps are written, so a failed write is retried
+				for (int i = 0; i < out; i++) {
+					ledger.startEpisode(bumpedKeys[i], episodes);
+				}
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			Arrays.fill(items, 0, count, null);
+			Arrays.fill(bumped, 0, out, null);
+		}
+		return out;
+	}
+
+	/**
+	 * Make the ledger changes of every pass so far durable. Call once per
+	 * run, after the bumps themselves are flushed; an outage lost in a crash
+	 * is bumped again, to the same level, on the next run.
+	 *
+	 * @throws UncheckedIOException
+	 *             if the ledger cannot be synced
+	 */
+	public void sync() {
+		if (ledger == null) {
+			return;
+		}
+		try {
+			ledger.sync();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void ensureCapacity(final int size) {
+		if (items.length < size) {
+			items = new Item[size];
+			warehouses = new Warehouse[size];
+			// null: the warehouse-less levels
+			Arrays.fill(warehouses, warehouse);
+			levels = new int[size];
+			bumped = new Item[size];
+			bumpedKeys = new long[size];
+			bumpedLevels = new int[size];
+		}
+	}
+}
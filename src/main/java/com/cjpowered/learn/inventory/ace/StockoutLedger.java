@@ -0,0 +1,228 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Open stock outage episodes per item and warehouse, so the stockout bump is
+ * written once when an item runs out rather than on every run until it is
+ * restocked. Checks are in-memory set lookups, one set of item keys per
+ * warehouse, so every key is kept as it is. Changes are appended to a
+ * file and made durable by {@link #sync()}, which callers make once per run;
+ * the file is replayed on open, ignoring a torn header or last entry, and
+ * rewritten compactly, through a synced temporary file, once it holds mostly
+ * closed episodes.
+ */
+public final class StockoutLedger implements Closeable {
+
+	private static final int MAGIC = 0x534C4447;
+	private static final int VERSION = 1;
+	private static final byte CLOSE = 0;
+	private static final byte OPEN = 1;
+	private static final int ENTRY_BYTES = 10;
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final Path file;
+	private final Map<Warehouse, Set<Long>> open = new EnumMap<>(Warehouse.class);
+	private int openCount;
+	private FileOutputStream stream;
+	private DataOutputStream out;
+	private long entries;
+	private boolean dirty;
+
+	private StockoutLedger(final Path file) {
+		this.file = file;
+		for (final Warehouse warehouse : WAREHOUSES) {
+			open.put(warehouse, new HashSet<>());
+		}
+	}
+
+	/**
+	 * Open a ledger, creating the file if needed.
+	 */
+	public static StockoutLedger open(final Path file) throws IOException {
+		final StockoutLedger ledger = new StockoutLedger(file);
+		ledger.load();
+		ledger.compact();
+		return ledger;
+	}
+
+	/**
+	 * @return true if an episode is open for the item at the warehouse
+	 */
+	public synchronized boolean inEpisode(final long itemKey, final Warehouse warehouse) {
+		return open.get(warehouse).contains(itemKey);
+	}
+
+	/**
+	 * Note that the item ran out at the warehouse.
+	 *
+	 * @return false if the episode was already open
+	 */
+	public synchronized boolean startEpisode(final long itemKey, final Warehouse warehouse) throws IOException {
+		if (!open(itemKey, warehouse)) {
+			return false;
+		}
+		append(OPEN, itemKey, warehouse);
+		return true;
+	}
+
+	/**
+	 * Note that the item has stock again at the warehouse.
+	 *
+	 * @return false if no episode was open
+	 */
+	public synchronized boolean endEpisode(final long itemKey, final Warehouse warehouse) throws IOException {
+		if (!close(itemKey, warehouse)) {
+			return false;
+		}
+		append(CLOSE, itemKey, warehouse);
+		if (entries > 1024 && entries > 4L * openCount) {
+			compact();
+		}
+		return true;
+	}
+
+	/**
+	 * @return number of open episodes
+	 */
+	public synchronized int openEpisodes() {
+		return openCount;
+	}
+
+	/**
+	 * Make every change so far durable. Does nothing if nothing changed
+	 * since the last sync.
+	 */
+	public synchronized void sync() throws IOException {
+		if (!dirty) {
+			return;
+		}
+		out.flush();
+		stream.getFD().sync();
+		dirty = false;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	private void append(final byte op, final long itemKey, final Warehouse warehouse) throws IOException {
+		out.writeByte(op);
+		out.writeLong(itemKey);
+		out.writeByte(warehouse.ordinal());
+		entries++;
+		dirty = true;
+	}
+
+	private void load() throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			final int magic;
+			final int version;
+			try {
+				magic = in.readInt();
+				version = in.readInt();
+			} catch (final EOFException e) {
+				// empty, or created by a crash before the header was written
+				return;
+			}
+			if (magic != MAGIC || version != VERSION) {
+				throw new IOException("not a stockout ledger: " + file);
+			}
+			final byte[] entry = new byte[ENTRY_BYTES];
+			while (true) {
+				try {
+					in.readFully(entry);
+				} catch (final EOFException e) {
+					// end of file, or an entry torn by a crash
+					break;
+				}
+				long itemKey = 0;
+				for (int i = 1; i < 9; i++) {
+					itemKey = itemKey << 8 | (entry[i] & 0xFF);
+				}
+				if (entry[0] == OPEN) {
+					open(itemKey, WAREHOUSES[entry[9]]);
+				} else {
+					close(itemKey, WAREHOUSES[entry[9]]);
+				}
+			}
+		} catch (final NoSuchFileException e) {
+			// new ledger
+		}
+	}
+
+	// rewrites the file with only the open episodes
+	private void compact() throws IOException {
+		if (out != null) {
+			out.close();
+		}
+		final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		final FileOutputStream tempStream = new FileOutputStream(temp.toFile());
+		try (DataOutputStream snapshot = new DataOutputStream(new BufferedOutputStream(tempStream))) {
+			snapshot.writeInt(MAGIC);
+			snapshot.writeInt(VERSION);
+			for (final Map.Entry<Warehouse, Set<Long>> episodes : open.entrySet()) {
+				for (final long itemKey : episodes.getValue()) {
+					snapshot.writeByte(OPEN);
+					snapshot.writeLong(itemKey);
+					snapshot.writeByte(episodes.getKey().ordinal());
+				}
+			}
+			// the rename must not become durable before the contents
+			snapshot.flush();
+			tempStream.getFD().sync();
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(file.toAbsolutePath().getParent());
+		entries = openCount;
+		dirty = false;
+		stream = new FileOutputStream(file.toFile(), true);
+		out = new DataOutputStream(new BufferedOutputStream(stream));
+	}
+
+	// makes a rename in the directory durable where the platform allows it
+	private static void syncDirectory(final Path directory) throws IOException {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (final AccessDeniedException e) {
+			// directories cannot be opened on this platform
+		}
+	}
+
+	private boolean open(final long itemKey, final Warehouse warehouse) {
+		if (!open.get(warehouse).add(itemKey)) {
+			return false;
+		}
+		openCount++;
+		return true;
+	}
+
+	private boolean close(final long itemKey, final Warehouse warehouse) {
+		if (!open.get(warehouse).remove(itemKey)) {
+			return false;
+		}
+		openCount--;
+		return true;
+	}
+}
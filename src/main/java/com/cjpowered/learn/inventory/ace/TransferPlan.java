@@ -0,0 +1,27 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.util.List;
+
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.Transfer;
+
+/**
+ * Transfers between warehouses and the purchases still needed after them.
+ */
+public final class TransferPlan {
+
+	/**
+	 * units to move between warehouses
+	 */
+	public final List<Transfer> transfers;
+
+	/**
+	 * units to buy
+	 */
+	public final List<Order> orders;
+
+	public TransferPlan(final List<Transfer> transfers, final List<Order> orders) {
+		this.transfers = transfers;
+		this.orders = orders;
+	}
+}
@@ -0,0 +1,336 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cjpowered.learn.inventory.ForwardingInventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.Transfer;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Matches surplus stock at one warehouse against shortfalls at another before
+ * anything is bought. A warehouse's surplus is what it holds on hand beyond
+ * its normal level; a shortfall is what a warehouse that would reorder today
+ * lacks, counting units already on order. Given an order calendar, items
+ * that cannot be ordered today, being restricted or out of season, have no
+ * shortfalls; without one, every item is treated as orderable. Without
+ * shipping costs, greedily filling the largest shortfall from the largest
+ * surplus moves as many units as any other match, so each item takes
+ * constant work. On-hand levels are read in bulk a chunk at a time, and
+ * on-order levels in bulk only where an item with a surplus somewhere runs
+ * short. Buffers are reused between calls, so one instance serves one thread.
+ */
+public final class TransferPlanner {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final OrderPolicy policy;
+	private final OrderCalendar calendar;
+	private final int[] surplus = new int[WAREHOUSES.length];
+	private final int[] shortfall = new int[WAREHOUSES.length];
+	// levels of the last chunk planned, by item position and warehouse
+	private final Map<Item, Integer> positions = new IdentityHashMap<>();
+	private final Map<Item, int[]> changes = new IdentityHashMap<>();
+	private Item[] items = new Item[0];
+	private Warehouse[] warehouses = new Warehouse[0];
+	private int[] onHand = new int[0];
+	private int[] onOrder = new int[0];
+	private boolean[] onOrderRead = new boolean[0];
+	private int[] cells = new int[0];
+
+	public TransferPlanner(final OrderPolicy policy) {
+		this(policy, null);
+	}
+
+	/**
+	 * @param calendar
+	 *            decides which items can be ordered today, or null to treat
+	 *            every item as orderable
+	 */
+	TransferPlanner(final OrderPolicy policy, final OrderCalendar calendar) {
+		this.policy = policy;
+		this.calendar = calendar;
+	}
+
+	/**
+	 * Plan transfers for a catalog.
+	 *
+	 * @param catalog
+	 *            items to balance
+	 *
+	 * @param db
+	 *            inventory facts
+	 *
+	 * @return transfers, in catalog order
+	 */
+	public List<Transfer> plan(final List<Item> catalog, final InventoryDatabase db) {
+		final List<Transfer> transfers = new ArrayList<>();
+		for (int from = 0; from < catalog.size(); from += AceInventoryManager.PREFETCH_SIZE) {
+			final List<Item> chunk = catalog.subList(from,
+					Math.min(catalog.size(), from + AceInventoryManager.PREFETCH_SIZE));
+			db.prefetch(chunk);
+			plan(chunk, db, transfers);
+		}
+		return transfers;
+	}
+
+	/**
+	 * Plan transfers for one chunk of items. The levels read stay available
+	 * to {@link #view(InventoryDatabase)} until the next chunk.
+	 */
+	void plan(final List<Item> chunk, final InventoryDatabase db, final List<Transfer> transfers) {
+		final int count = chunk.size() * WAREHOUSES.length;
+		ensureCapacity(count);
+		positions.clear();
+		changes.clear();
+		for (int i = 0, cell = 0; i < chunk.size(); i++) {
+			positions.put(chunk.get(i), i);
+			for (final Warehouse warehouse : WAREHOUSES) {
+				items[cell] = chunk.get(i);
+				warehouses[cell++] = warehouse;
+			}
+		}
+		db.onHand(items, warehouses, onHand, count);
+		Arrays.fill(onOrderRead, 0, count, false);
+
+		// on-order levels only where an orderable item with a surplus runs short
+		int wanted = 0;
+		for (int i = 0; i < chunk.size(); i++) {
+			final Item item = chunk.get(i);
+			if (!hasSurplus(item, i) || calendar != null && !calendar.canOrder(item)) {
+				continue;
+			}
+			for (int w = 0; w < WAREHOUSES.length; w++) {
+				final int want = item.wantOnHand(WAREHOUSES[w]);
+				final int cell = i * WAREHOUSES.length + w;
+				if (want > 0 && onHand[cell] < want) {
+					items[wanted] = item;
+					warehouses[wanted] = WAREHOUSES[w];
+					cells[wanted++] = cell;
+				}
+			}
+		}
+		if (wanted > 0) {
+			final int[] read = new int[wanted];
+			db.onOrder(items, warehouses, read, wanted);
+			for (int k = 0; k < wanted; k++) {
+				onOrder[cells[k]] = read[k];
+				onOrderRead[cells[k]] = true;
+			}
+		}
+		Arrays.fill(items, 0, count, null);
+
+		final int planned = transfers.size();
+		for (int i = 0; i < chunk.size(); i++) {
+			final Item item = chunk.get(i);
+			boolean needed = false;
+			for (int w = 0; w < WAREHOUSES.length; w++) {
+				final int cell = i * WAREHOUSES.length + w;
+				shortfall[w] = 0;
+				surplus[w] = Math.max(0, onHand[cell] - item.wantOnHand(WAREHOUSES[w]));
+				if (onOrderRead[cell]) {
+					final int want = item.wantOnHand(WAREHOUSES[w]);
+					final int position = onHand[cell] + onOrder[cell];
+					if (position <= want * policy.reorderThreshold) {
+						shortfall[w] = want - position;
+						needed = true;
+					}
+				}
+			}
+			if (needed) {
+				match(item, transfers);
+			}
+		}
+		record(transfers.subList(planned, transfers.size()), changes);
+	}
+
+	/**
+	 * View of a database as if the transfers of the last chunk planned had
+	 * been sent, like {@link #afterTransfers(InventoryDatabase, List)}, that
+	 * answers the levels this planner read for the chunk without reading them
+	 * again. One view serves a whole run, following each chunk planned.
+	 */
+	InventoryDatabase view(final InventoryDatabase db) {
+		return new TransferView(db, changes, this);
+	}
+
+	private boolean hasSurplus(final Item item, final int position) {
+		for (int w = 0; w < WAREHOUSES.length; w++) {
+			if (onHand[position * WAREHOUSES.length + w] > item.wantOnHand(WAREHOUSES[w])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// cell of the item and warehouse in the last chunk, or -1
+	private int cell(final Item item, final Warehouse warehouse) {
+		final Integer position = positions.get(item);
+		return position == null ? -1 : position * WAREHOUSES.length + warehouse.ordinal();
+	}
+
+	private void match(final Item item, final List<Transfer> transfers) {
+		while (true) {
+			final int to = largest(shortfall);
+			final int from = largest(surplus);
+			if (to < 0 || from < 0) {
+				return;
+			}
+			final int moved = Math.min(shortfall[to], surplus[from]);
+			shortfall[to] -= moved;
+			surplus[from] -= moved;
+			transfers.add(new Transfer(item, WAREHOUSES[from], WAREHOUSES[to], moved));
+		}
+	}
+
+	// index of the largest positive entry, -1 if none
+	private static int largest(final int[] amounts) {
+		int best = -1;
+		for (int w = 0; w < amounts.length; w++) {
+			if (amounts[w] > 0 && (best < 0 || amounts[w] > amounts[best])) {
+				best = w;
+			}
+		}
+		return best;
+	}
+
+	private void ensureCapacity(final int size) {
+		if (items.length < size) {
+			items = new Item[size];
+			warehouses = new Warehouse[size];
+			onHand = new int[size];
+			onOrder = new int[size];
+			onOrderRead = new boolean[size];
+			cells = new int[size];
+		}
+	}
+
+	/**
+	 * View of a database as if the transfers had been sent: units leave the
+	 * source's on-hand level and are on order at the destination. The
+	 * warehouse-less levels are treated as the home warehouse's. Writes go to
+	 * the database.
+	 *
+	 * @param db
+	 *            database to view
+	 *
+	 * @param transfers
+	 *            transfers to account for
+	 *
+	 * @return adjusted view
+	 */
+	public static InventoryDatabase afterTransfers(final InventoryDatabase db, final List<Transfer> transfers) {
+		final Map<Item, int[]> changes = new IdentityHashMap<>();
+		record(transfers, changes);
+		return new TransferView(db, changes, null);
+	}
+
+	// per item: on-hand change then on-order change for each warehouse
+	private static void record(final List<Transfer> transfers, final Map<Item, int[]> changes) {
+		for (final Transfer transfer : transfers) {
+			final int[] change = changes.computeIfAbsent(transfer.item, item -> new int[2 * WAREHOUSES.length]);
+			change[transfer.from.ordinal()] -= transfer.quantity;
+			change[WAREHOUSES.length + transfer.to.ordinal()] += transfer.quantity;
+		}
+	}
+
+	private static final class TransferView extends ForwardingInventoryDatabase {
+
+		private final Map<Item, int[]> changes;
+		private final TransferPlanner planner;
+
+		TransferView(final InventoryDatabase db, final Map<Item, int[]> changes, final TransferPlanner planner) {
+			super(db);
+			this.changes = changes;
+			this.planner = planner;
+		}
+
+		@Override
+		public int onHand(final Item item) {
+			final int cell = cell(item, Warehouse.home());
+			return (cell < 0 ? super.onHand(item) : planner.onHand[cell]) + change(item, Warehouse.home().ordinal());
+		}
+
+		@Override
+		public int onHand(final Item item, final Warehouse warehouse) {
+			final int cell = cell(item, warehouse);
+			return (cell < 0 ? super.onHand(item, warehouse) : planner.onHand[cell])
+					+ change(item, warehouse.ordinal());
+		}
+
+		@Override
+		public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand, final int count) {
+			if (planner == null) {
+				super.onHand(items, warehouses, onHand, count);
+			} else {
+				// levels the planner read are answered from its buffers, the rest in one read
+				final int[] misses = new int[count];
+				int missed = 0;
+				for (int i = 0; i < count; i++) {
+					final int cell = cell(items[i], warehouses[i] == null ? Warehouse.home() : warehouses[i]);
+					if (cell < 0) {
+						misses[missed++] = i;
+					} else {
+						onHand[i] = planner.onHand[cell];
+					}
+				}
+				if (missed > 0) {
+					final Item[] missedItems = new Item[missed];
+					final Warehouse[] missedWarehouses = new Warehouse[missed];
+					final int[] read = new int[missed];
+					for (int k = 0; k < missed; k++) {
+						missedItems[k] = items[misses[k]];
+						missedWarehouses[k] = warehouses[misses[k]];
+					}
+					super.onHand(missedItems, missedWarehouses, read, missed);
+					for (int k = 0; k < missed; k++) {
+						onHand[misses[k]] = read[k];
+					}
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				final Warehouse warehouse = warehouses[i] == null ? Warehouse.home() : warehouses[i];
+				onHand[i] += change(items[i], warehouse.ordinal());
+			}
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public int onOrder(final Item item) {
+			final int cell = cell(item, Warehouse.home());
+			return (cell < 0 || !planner.onOrderRead[cell] ? super.onOrder(item) : planner.onOrder[cell])
+					+ change(item, WAREHOUSES.length + Warehouse.home().ordinal());
+		}
+
+		@Override
+		public int onOrder(final Item item, final Warehouse warehouse) {
+			final int cell = cell(item, warehouse);
+			return (cell < 0 || !planner.onOrderRead[cell] ? super.onOrder(item, warehouse) : planner.onOrder[cell])
+					+ change(item, WAREHOUSES.length + warehouse.ordinal());
+		}
+
+		@Override
+		public void onOrder(final Item[] items, final Warehouse[] warehouses, final int[] onOrder, final int count) {
+			super.onOrder(items, warehouses, onOrder, count);
+			for (int i = 0; i < count; i++) {
+				final Warehouse warehouse = warehouses[i] == null ? Warehouse.home() : warehouses[i];
+				onOrder[i] += change(items[i], WAREHOUSES.length + warehouse.ordinal());
+			}
+		}
+
+		private int cell(final Item item, final Warehouse warehouse) {
+			return planner == null ? -1 : planner.cell(item, warehouse);
+		}
+
+		private int change(final Item item, final int index) {
+			final int[] change = changes.get(item);
+			return change == null ? 0 : change[index];
+		}
+	}
+}
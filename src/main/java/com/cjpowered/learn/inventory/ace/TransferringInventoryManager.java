@@ -0,0 +1,97 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.LazyFacts;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.Transfer;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+/**
+ * Plans every warehouse, moving surplus stock between warehouses with a
+ * {@link TransferPlanner} before buying. Each chunk of the catalog is
+ * balanced first; the ordering rules then see the transferred units as gone
+ * from the source and on order at the destination, so purchases cover only
+ * what transfers could not. Each chunk is prefetched once for both passes,
+ * and one order calendar serves the whole run. Orders are grouped by chunk,
+ * then warehouse. Since the purchases assume the transfers happen,
+ * {@link #getOrders(LocalDate)} hands each run's transfers to a required
+ * consumer before returning the orders.
+ */
+public final class TransferringInventoryManager implements InventoryManager {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final InventoryDatabase database;
+	private final MarketingInfo marketInfo;
+	private final OrderPolicy policy;
+	private final Consumer<List<Transfer>> transfers;
+
+	/**
+	 * @param transfers
+	 *            receives the transfers of each {@link #getOrders(LocalDate)}
+	 *            run, which its orders rely on
+	 */
+	public TransferringInventoryManager(final InventoryDatabase database, final MarketingInfo marketInfo,
+			final OrderPolicy policy, final Consumer<List<Transfer>> transfers) {
+		this.database = database;
+		this.marketInfo = marketInfo;
+		this.policy = policy;
+		this.transfers = Objects.requireNonNull(transfers, "transfers");
+	}
+
+	/**
+	 * Plan a run, hand its transfers to the consumer and return its orders.
+	 */
+	@Override
+	public List<Order> getOrders(final LocalDate today) {
+		final TransferPlan plan = plan(today);
+		transfers.accept(plan.transfers);
+		return plan.orders;
+	}
+
+	/**
+	 * Plan transfers and the purchases left after them.
+	 *
+	 * @param today
+	 *            effective day
+	 *
+	 * @return transfers and orders
+	 */
+	public TransferPlan plan(final LocalDate today) {
+		final List<Item> catalog = database.stockItems();
+		final OrderCalendar calendar = new OrderCalendar(today, marketInfo);
+		final TransferPlanner planner = new TransferPlanner(policy, calendar);
+		final InventoryDatabase after = planner.view(database);
+		final LazyFacts[] facts = new LazyFacts[WAREHOUSES.length];
+		final StockoutBumpPass[] bumps = new StockoutBumpPass[WAREHOUSES.length];
+		for (final Warehouse warehouse : WAREHOUSES) {
+			facts[warehouse.ordinal()] = new LazyFacts(today, after, marketInfo, null, null, warehouse);
+			facts[warehouse.ordinal()].setStockoutBumpsApplied(true);
+			bumps[warehouse.ordinal()] = new StockoutBumpPass(policy, null, null, warehouse);
+		}
+		final List<Transfer> transfers = new ArrayList<>();
+		final List<Order> orders = new ArrayList<>();
+		for (int from = 0; from < catalog.size(); from += AceInventoryManager.PREFETCH_SIZE) {
+			final List<Item> chunk = catalog.subList(from,
+					Math.min(catalog.size(), from + AceInventoryManager.PREFETCH_SIZE));
+			database.prefetch(chunk);
+			planner.plan(chunk, database, transfers);
+			for (final Warehouse warehouse : WAREHOUSES) {
+				AceInventoryManager.evaluate(AceInventoryManager.stockedAt(chunk, warehouse), calendar,
+						facts[warehouse.ordinal()], bumps[warehouse.ordinal()], policy, orders);
+			}
+		}
+		database.flush();
+		return new TransferPlan(transfers, orders);
+	}
+}
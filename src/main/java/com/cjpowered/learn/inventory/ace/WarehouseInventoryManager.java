@@ -0,0 +1,242 @@
+package com.cjpowered.learn.inventory.ace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.LazyFacts;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.audit.DecisionLog;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+/**
+ * Plans each warehouse against its own database shard, on its own fixed pool
+ * of threads sized to the shard's connection budget. Warehouses are planned
+ * concurrently, so a slow shard delays only its own orders; callers that can
+ * act on part of the plan use {@link #getOrders(LocalDate, Warehouse)}. The
+ * home warehouse plans the whole catalog, other warehouses the items stocked
+ * there. Merged orders list the warehouses in declaration order, each in its
+ * catalog order. A run shares one order calendar between its warehouses, and
+ * each planning thread keeps its facts and stockout bump pass for the run.
+ */
+public final class WarehouseInventoryManager implements InventoryManager, AutoCloseable {
+
+	private final EnumMap<Warehouse, InventoryDatabase> databases;
+	private final EnumMap<Warehouse, ExecutorService> executors = new EnumMap<>(Warehouse.class);
+	private final MarketingInfo marketInfo;
+	private final OrderPolicy policy;
+	private final DecisionLog log;
+	private final ItemKey keys;
+	private final StockoutLedger ledger;
+
+	/**
+	 * @param databases
+	 *            shard holding each warehouse to plan
+	 *
+	 * @param connections
+	 *            threads, and so concurrent database calls, for every
+	 *            warehouse
+	 */
+	public WarehouseInventoryManager(final Map<Warehouse, InventoryDatabase> databases,
+			final MarketingInfo marketInfo, final OrderPolicy policy, final int connections) {
+		this(databases, marketInfo, policy, uniform(databases, connections));
+	}
+
+	/**
+	 * @param databases
+	 *            shard holding each warehouse to plan
+	 *
+	 * @param connections
+	 *            threads, and so concurrent database calls, for each
+	 *            warehouse
+	 */
+	public WarehouseInventoryManager(final Map<Warehouse, InventoryDatabase> databases,
+			final MarketingInfo marketInfo, final OrderPolicy policy, final Map<Warehouse, Integer> connections) {
+		this(databases, marketInfo, policy, connections, null, null, null);
+	}
+
+	/**
+	 * @param databases
+	 *            shard holding each warehouse to plan
+	 *
+	 * @param connections
+	 *            threads, and so concurrent database calls, for each
+	 *            warehouse
+	 *
+	 * @param log
+	 *            receives every decision, may be null
+	 *
+	 * @param keys
+	 *            identifies items in the log and ledger
+	 *
+	 * @param ledger
+	 *            open stock outages, so each is bumped once; may be null
+	 */
+	public WarehouseInventoryManager(final Map<Warehouse, InventoryDatabase> databases,
+			final MarketingInfo marketInfo, final OrderPolicy policy, final Map<Warehouse, Integer> connections,
+			final DecisionLog log, final ItemKey keys, final StockoutLedger ledger) {
+		if (databases.isEmpty()) {
+			throw new IllegalArgumentException("need at least one warehouse");
+		}
+		for (final Warehouse warehouse : databases.keySet()) {
+			final Integer budget = connections.get(warehouse);
+			if (budget == null || budget < 1) {
+				throw new IllegalArgumentException("bad connection budget for " + warehouse + ": " + budget);
+			}
+		}
+		this.databases = new EnumMap<>(databases);
+		this.marketInfo = marketInfo;
+		this.policy = policy;
+		this.log = log;
+		this.keys = keys;
+		this.ledger = ledger;
+		for (final Warehouse warehouse : this.databases.keySet()) {
+			final AtomicInteger threads = new AtomicInteger();
+			executors.put(warehouse, Executors.newFixedThreadPool(connections.get(warehouse), task -> {
+				final Thread thread = new Thread(task, "plan-" + warehouse + "-" + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}));
+		}
+	}
+
+	private static Map<Warehouse, Integer> uniform(final Map<Warehouse, InventoryDatabase> databases,
+			final int connections) {
+		final Map<Warehouse, Integer> budgets = new EnumMap<>(Warehouse.class);
+		for (final Warehouse warehouse : databases.keySet()) {
+			budgets.put(warehouse, connections);
+		}
+		return budgets;
+	}
+
+	/**
+	 * Plan every warehouse and wait for all of them.
+	 *
+	 * @throws IllegalStateException
+	 *             if planning any warehouse failed
+	 */
+	@Override
+	public List<Order> getOrders(final LocalDate today) {
+		final OrderCalendar calendar = new OrderCalendar(today, marketInfo);
+		final Map<Warehouse, CompletableFuture<List<Order>>> plans = new EnumMap<>(Warehouse.class);
+		for (final Warehouse warehouse : databases.keySet()) {
+			plans.put(warehouse, getOrders(calendar, today, warehouse));
+		}
+		final List<Order> orders = new ArrayList<>();
+		for (final Map.Entry<Warehouse, CompletableFuture<List<Order>>> plan : plans.entrySet()) {
+			try {
+				orders.addAll(plan.getValue().join());
+			} catch (final CompletionException e) {
+				throw new IllegalStateException("planning failed for " + plan.getKey(), e.getCause());
+			}
+		}
+		return orders;
+	}
+
+	/**
+	 * Plan one warehouse on its own threads.
+	 *
+	 * @param today
+	 *            effective day
+	 *
+	 * @param warehouse
+	 *            warehouse to plan
+	 *
+	 * @return the warehouse's orders, in catalog order
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the warehouse has no shard
+	 */
+	public CompletableFuture<List<Order>> getOrders(final LocalDate today, final Warehouse warehouse) {
+		return getOrders(new OrderCalendar(today, marketInfo), today, warehouse);
+	}
+
+	private CompletableFuture<List<Order>> getOrders(final OrderCalendar calendar, final LocalDate today,
+			final Warehouse warehouse) {
+		final InventoryDatabase database = databases.get(warehouse);
+		if (database == null) {
+			throw new IllegalArgumentException("no shard for " + warehouse);
+		}
+		final ExecutorService executor = executors.get(warehouse);
+		return CompletableFuture.supplyAsync(database::stockItems, executor)
+				.thenCompose(catalog -> plan(catalog, calendar, today, warehouse, database, executor));
+	}
+
+	private CompletableFuture<List<Order>> plan(final List<Item> catalog, final OrderCalendar calendar,
+			final LocalDate today, final Warehouse warehouse, final InventoryDatabase database,
+			final ExecutorService executor) {
+		final List<Item> stocked = AceInventoryManager.stockedAt(catalog, warehouse);
+		// facts and bump buffers are per thread, kept for the run
+		final ThreadLocal<LazyFacts> facts = ThreadLocal.withInitial(() -> {
+			final LazyFacts threadFacts = new LazyFacts(today, database, marketInfo, log, keys, warehouse);
+			threadFacts.setStockoutBumpsApplied(true);
+			return threadFacts;
+		});
+		final ThreadLocal<StockoutBumpPass> bumps = ThreadLocal
+				.withInitial(() -> new StockoutBumpPass(policy, ledger, keys, warehouse));
+		final List<CompletableFuture<List<Order>>> chunks = new ArrayList<>();
+		for (int from = 0; from < stocked.size(); from += AceInventoryManager.PREFETCH_SIZE) {
+			final List<Item> chunk = stocked.subList(from,
+					Math.min(stocked.size(), from + AceInventoryManager.PREFETCH_SIZE));
+			chunks.add(CompletableFuture.supplyAsync(() -> plan(chunk, calendar, facts.get(), bumps.get()),
+					executor));
+		}
+		if (chunks.isEmpty()) {
+			return CompletableFuture.completedFuture(Collections.<Order> emptyList());
+		}
+		return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			final List<Order> orders = new ArrayList<>();
+			for (final CompletableFuture<List<Order>> chunk : chunks) {
+				orders.addAll(chunk.join());
+			}
+			database.flush();
+			syncLedger();
+			return orders;
+		});
+	}
+
+	private List<Order> plan(final List<Item> chunk, final OrderCalendar calendar, final LazyFacts facts,
+			final StockoutBumpPass bumps) {
+		final List<Order> orders = new ArrayList<>();
+		facts.prefetch(chunk);
+		AceInventoryManager.evaluate(chunk, calendar, facts, bumps, policy, orders);
+		return orders;
+	}
+
+	private void syncLedger() {
+		if (ledger == null) {
+			return;
+		}
+		try {
+			ledger.sync();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Stop the planning threads.
+	 */
+	@Override
+	public void close() {
+		for (final ExecutorService executor : executors.values()) {
+			executor.shutdownNow();
+		}
+	}
+}
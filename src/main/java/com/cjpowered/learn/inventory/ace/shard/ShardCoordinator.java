@@ -0,0 +1,220 @@
+package com.cjpowered.learn.inventory.ace.shard;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Plans the catalog in shards, one {@link ShardWorker} process per shard.
+ * Items are assigned to shards by hashing their stable key. Each worker
+ * reports back over its own loopback socket; a shard whose worker fails or
+ * times out is rerun up to the attempt limit. Merged orders are sorted by
+ * item key and warehouse, so the result does not depend on which worker
+ * finished first. Each worker attempt writes its output to its own log file,
+ * named after the shard and attempt, so nothing reaches this process's
+ * console.
+ */
+public final class ShardCoordinator implements InventoryManager {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+	private static final int ACCEPT_POLL_MILLIS = 100;
+
+	private final ShardEnvironment environment;
+	private final int shardCount;
+	private final int maxAttempts;
+	private final long timeoutMillis;
+	private final Path logDirectory;
+
+	/**
+	 * Worker logs go to a new temporary directory per run, deleted once the
+	 * run succeeds; a failed run keeps it for the logs its error names.
+	 */
+	public ShardCoordinator(final ShardEnvironment environment, final int shardCount, final int maxAttempts,
+			final long timeout, final TimeUnit unit) {
+		this(environment, shardCount, maxAttempts, timeout, unit, null);
+	}
+
+	/**
+	 * @param logDirectory
+	 *            directory for worker logs, kept after the run, or null for a
+	 *            new temporary directory per run
+	 */
+	public ShardCoordinator(final ShardEnvironment environment, final int shardCount, final int maxAttempts,
+			final long timeout, final TimeUnit unit, final Path logDirectory) {
+		if (shardCount < 1 || maxAttempts < 1) {
+			throw new IllegalArgumentException("need at least one shard and one attempt");
+		}
+		this.environment = environment;
+		this.shardCount = shardCount;
+		this.maxAttempts = maxAttempts;
+		this.timeoutMillis = unit.toMillis(timeout);
+		this.logDirectory = logDirectory;
+	}
+
+	@Override
+	public List<Order> getOrders(final LocalDate today) {
+		final ItemKey itemKey = environment.itemKey();
+		final Map<Long, Item> catalog = new HashMap<>();
+		for (final Item item : environment.database().stockItems()) {
+			catalog.put(itemKey.keyOf(item), item);
+		}
+
+		final Path logs;
+		try {
+			logs = logDirectory != null ? logDirectory : Files.createTempDirectory("shard-workers");
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(shardCount);
+		try {
+			final List<Future<List<Order>>> shards = new ArrayList<>();
+			for (int shard = 0; shard < shardCount; shard++) {
+				final int current = shard;
+				shards.add(executor.submit(() -> runShard(current, today, catalog, logs)));
+			}
+			final List<Order> orders = new ArrayList<>();
+			for (final Future<List<Order>> shard : shards) {
+				orders.addAll(shard.get());
+			}
+			Collections.sort(orders, Comparator.<Order> comparingLong(order -> itemKey.keyOf(order.item))
+					.thenComparing(order -> order.warehouse));
+			if (logDirectory == null) {
+				delete(logs);
+			}
+			return orders;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted waiting for shards", e);
+		} catch (final ExecutionException e) {
+			throw new IllegalStateException("shard planning failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private List<Order> runShard(final int shard, final LocalDate today, final Map<Long, Item> catalog,
+			final Path logs) throws IOException, InterruptedException {
+		IOException failure = null;
+		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			try {
+				return attempt(shard, attempt, today, catalog, logs);
+			} catch (final IOException e) {
+				failure = e;
+			}
+		}
+		throw new IOException("shard " + shard + " failed after " + maxAttempts + " attempts", failure);
+	}
+
+	private List<Order> attempt(final int shard, final int attempt, final LocalDate today,
+			final Map<Long, Item> catalog, final Path logs) throws IOException, InterruptedException {
+		final Path log = logs.resolve("shard-" + shard + "-attempt-" + attempt + ".log");
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			final Process worker = launch(server.getLocalPort(), shard, today, log);
+			try (Socket socket = accept(server, worker, shard, log)) {
+				socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, timeoutMillis));
+				final List<Order> orders = read(
+						new DataInputStream(new BufferedInputStream(socket.getInputStream())), shard, catalog);
+				if (!worker.waitFor(timeoutMillis, TimeUnit.MILLISECONDS) || worker.exitValue() != 0) {
+					throw new IOException("worker for shard " + shard + " did not exit cleanly, see " + log);
+				}
+				return orders;
+			} finally {
+				worker.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Wait for the worker to connect, giving up early if it dies first.
+	 */
+	private Socket accept(final ServerSocket server, final Process worker, final int shard, final Path log)
+			throws IOException {
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		server.setSoTimeout(ACCEPT_POLL_MILLIS);
+		while (System.currentTimeMillis() < deadline) {
+			try {
+				return server.accept();
+			} catch (final SocketTimeoutException e) {
+				if (!worker.isAlive()) {
+					throw new IOException(
+							"worker for shard " + shard + " exited with " + worker.exitValue() + ", see " + log);
+				}
+			}
+		}
+		throw new IOException("worker for shard " + shard + " did not connect in time");
+	}
+
+	private Process launch(final int port, final int shard, final LocalDate today, final Path log)
+			throws IOException {
+		final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		final ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				ShardWorker.class.getName(), environment.getClass().getName(), Integer.toString(port),
+				Integer.toString(shard), Integer.toString(shardCount), today.toString());
+		builder.environment().putAll(environment.workerEnvironment());
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(log.toFile());
+		return builder.start();
+	}
+
+	// the run's own temporary directory holds only worker logs
+	private static void delete(final Path logs) {
+		try {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(logs)) {
+				for (final Path file : files) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(logs);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("cannot delete worker logs in " + logs, e);
+		}
+	}
+
+	private static List<Order> read(final DataInputStream in, final int shard, final Map<Long, Item> catalog)
+			throws IOException {
+		final int reported = in.readInt();
+		if (reported != shard) {
+			throw new IOException("expected shard " + shard + " but worker reported " + reported);
+		}
+		final int count = in.readInt();
+		final List<Order> orders = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			final long key = in.readLong();
+			final Warehouse warehouse = WAREHOUSES[in.readByte()];
+			final int quantity = in.readInt();
+			final Item item = catalog.get(key);
+			if (item == null) {
+				throw new IOException("worker ordered unknown item " + key);
+			}
+			orders.add(new Order(item, quantity, warehouse));
+		}
+		return orders;
+	}
+}
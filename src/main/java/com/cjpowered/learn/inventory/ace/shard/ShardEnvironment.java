@@ -0,0 +1,48 @@
+package com.cjpowered.learn.inventory.ace.shard;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+/**
+ * Connections a planning process needs. Implementations must be public with a
+ * public no-argument constructor, since each worker process creates its own
+ * instance by class name.
+ */
+public interface ShardEnvironment {
+    /**
+     * @return database holding the full catalog
+     */
+    InventoryDatabase database();
+
+    /**
+     * @return marketing info
+     */
+    MarketingInfo marketing();
+
+    /**
+     * @return stable key for catalog items
+     */
+    ItemKey itemKey();
+
+    /**
+     * @return variables added to each worker process's environment, so the
+     *         instance it creates can pick up settings of this one
+     */
+    default Map<String, String> workerEnvironment() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Called in the worker process before it plans its shard. The default
+     * does nothing.
+     *
+     * @param shard
+     *            shard the worker plans
+     */
+    default void workerStarted(int shard) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.cjpowered.learn.inventory.ace.shard;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+
+/**
+ * Worker process entry point. Plans one shard and reports its orders to the
+ * coordinator over a loopback socket.
+ * <p>
+ * Arguments: environment class name, coordinator port, shard, shard count,
+ * effective day (ISO-8601).
+ */
+public final class ShardWorker {
+
+	private ShardWorker() {
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final ShardEnvironment environment = (ShardEnvironment) Class.forName(args[0]).getConstructor()
+				.newInstance();
+		final int port = Integer.parseInt(args[1]);
+		final int shard = Integer.parseInt(args[2]);
+		final int shardCount = Integer.parseInt(args[3]);
+		final LocalDate today = LocalDate.parse(args[4]);
+		environment.workerStarted(shard);
+
+		final ShardedDatabase database = new ShardedDatabase(environment.database(), environment.itemKey(), shard,
+				shardCount);
+		final List<Order> orders = new AceInventoryManager(database, environment.marketing()).getOrders(today);
+
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			write(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())), environment, shard,
+					orders);
+		}
+	}
+
+	private static void write(final DataOutputStream out, final ShardEnvironment environment, final int shard,
+			final List<Order> orders) throws IOException {
+		out.writeInt(shard);
+		out.writeInt(orders.size());
+		for (final Order order : orders) {
+			out.writeLong(environment.itemKey().keyOf(order.item));
+			out.writeByte(order.warehouse.ordinal());
+			out.writeInt(order.quantity);
+		}
+		out.flush();
+	}
+}
@@ -0,0 +1,44 @@
+package com.cjpowered.learn.inventory.ace.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cjpowered.learn.inventory.ForwardingInventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+
+/**
+ * View of a database whose catalog holds only one shard's items.
+ */
+final class ShardedDatabase extends ForwardingInventoryDatabase {
+
+	private final ItemKey itemKey;
+	private final int shard;
+	private final int shardCount;
+
+	ShardedDatabase(final InventoryDatabase database, final ItemKey itemKey, final int shard, final int shardCount) {
+		super(database);
+		this.itemKey = itemKey;
+		this.shard = shard;
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * @return shard owning the key
+	 */
+	static int shardOf(final long key, final int shardCount) {
+		return (int) Long.remainderUnsigned(ItemKey.mix(key), shardCount);
+	}
+
+	@Override
+	public List<Item> stockItems() {
+		final List<Item> items = new ArrayList<>();
+		for (final Item item : delegate.stockItems()) {
+			if (shardOf(itemKey.keyOf(item), shardCount) == shard) {
+				items.add(item);
+			}
+		}
+		return items;
+	}
+}
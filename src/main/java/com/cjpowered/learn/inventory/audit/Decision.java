@@ -0,0 +1,27 @@
+package com.cjpowered.learn.inventory.audit;
+
+/**
+ * Rule branch that settled an item's order.
+ */
+public enum Decision {
+
+	/**
+	 * restricted item on a day other than the first of the month
+	 */
+	RESTRICTED_DAY,
+
+	/**
+	 * seasonal item outside its high-demand season
+	 */
+	OFF_SEASON,
+
+	/**
+	 * stock on hand and on order above the reorder threshold
+	 */
+	ABOVE_THRESHOLD,
+
+	/**
+	 * deficit ordered, possibly rounded down to whole packages
+	 */
+	ORDERED;
+}
@@ -0,0 +1,283 @@
+package com.cjpowered.learn.inventory.audit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Fixed-size ring of the most recent ordering decisions. All storage is
+ * allocated up front, each record packed into four adjacent longs; recording
+ * writes plain fields, so planning threads never lock or allocate and touch
+ * few cache lines. Each slot carries the sequence of its record, published
+ * after the fields; readers check it before and after copying and skip
+ * records whose slot a newer writer has since claimed.
+ * <p>
+ * A planning run records through its own {@link Writer}, which claims
+ * sequences in blocks with one atomic add per block and works out the date
+ * bits once. Records therefore come back in sequence order, with concurrent
+ * runs interleaved block by block, and the unused end of a run's last block
+ * is a gap in the ring.
+ * <p>
+ * With a sample rate of 1 every decision is kept; with a rate of n only items
+ * whose key hashes into one of n buckets are kept, so a sampled item is seen
+ * in every run; 0 turns capture off.
+ */
+public final class DecisionLog {
+
+	private static final int MAGIC = 0x44454C47;
+	private static final int VERSION = 2;
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+	private static final Decision[] DECISIONS = Decision.values();
+	private static final int FIELDS = 4;
+	private static final int BLOCK = 64;
+
+	private final int mask;
+	private final int block;
+	private final AtomicLong next = new AtomicLong();
+	private final AtomicLongArray stamps;
+	// per slot: item key; date, warehouse, fetched, sale flag and decision;
+	// on hand and on order; target and quantity
+	private final long[] fields;
+	private volatile int sampleEvery;
+
+	/**
+	 * @param capacity
+	 *            records kept, rounded up to a power of two
+	 *
+	 * @param sampleEvery
+	 *            1 to keep every decision, n to keep one item in n, 0 for none
+	 */
+	public DecisionLog(final int capacity, final int sampleEvery) {
+		if (capacity < 1 || capacity > 1 << 28) {
+			throw new IllegalArgumentException("bad capacity: " + capacity);
+		}
+		final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = size - 1;
+		// a block takes at most a sixteenth of the ring, so gaps stay small
+		this.block = Math.max(1, Math.min(BLOCK, size >> 4));
+		this.stamps = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			stamps.set(i, -1);
+		}
+		this.fields = new long[FIELDS * size];
+		setSampleEvery(sampleEvery);
+	}
+
+	/**
+	 * Change the capture mode.
+	 *
+	 * @param sampleEvery
+	 *            1 to keep every decision, n to keep one item in n, 0 for none
+	 */
+	public void setSampleEvery(final int sampleEvery) {
+		if (sampleEvery < 0) {
+			throw new IllegalArgumentException("bad sample rate: " + sampleEvery);
+		}
+		this.sampleEvery = sampleEvery;
+	}
+
+	/**
+	 * @return number of records the ring holds
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * @return true if decisions about the item are being kept
+	 */
+	public boolean wants(final long itemKey) {
+		final int rate = sampleEvery;
+		return rate == 1 || rate > 1 && Long.remainderUnsigned(ItemKey.mix(itemKey), rate) == 0;
+	}
+
+	/**
+	 * Record a decision.
+	 *
+	 * @param fetched
+	 *            inputs the rules fetched, as {@link DecisionRecord#ON_HAND},
+	 *            {@link DecisionRecord#ON_ORDER} and
+	 *            {@link DecisionRecord#ON_SALE} bits; the others are ignored
+	 */
+	public void record(final LocalDate date, final long itemKey, final Warehouse warehouse, final int fetched,
+			final int onHand, final int onOrder, final int onSale, final int target, final Decision decision,
+			final int quantity) {
+		write(next.getAndIncrement(), date.toEpochDay() << 32, itemKey, warehouse, fetched, onHand, onOrder, onSale,
+				target, decision, quantity);
+	}
+
+	/**
+	 * Open a writer for one planning run on one thread.
+	 *
+	 * @param date
+	 *            date of every decision the writer records
+	 */
+	public Writer writer(final LocalDate date) {
+		return new Writer(date.toEpochDay() << 32);
+	}
+
+	/**
+	 * Records the decisions of one run; not thread-safe.
+	 */
+	public final class Writer {
+
+		private final long day;
+		private long sequence;
+		private long end;
+
+		private Writer(final long day) {
+			this.day = day;
+		}
+
+		/**
+		 * Record a decision.
+		 *
+		 * @param fetched
+		 *            inputs the rules fetched, as
+		 *            {@link DecisionRecord#ON_HAND},
+		 *            {@link DecisionRecord#ON_ORDER} and
+		 *            {@link DecisionRecord#ON_SALE} bits; the others are
+		 *            ignored
+		 */
+		public void record(final long itemKey, final Warehouse warehouse, final int fetched, final int onHand,
+				final int onOrder, final int onSale, final int target, final Decision decision, final int quantity) {
+			if (sequence == end) {
+				sequence = next.getAndAdd(block);
+				end = sequence + block;
+			}
+			write(sequence++, day, itemKey, warehouse, fetched, onHand, onOrder, onSale, target, decision, quantity);
+		}
+	}
+
+	/**
+	 * @return retained records accepted by the filter, oldest first
+	 */
+	public List<DecisionRecord> query(final Predicate<DecisionRecord> filter) {
+		final long end = next.get();
+		final List<DecisionRecord> found = new ArrayList<>();
+		for (long sequence = Math.max(0, end - capacity()); sequence < end; sequence++) {
+			final DecisionRecord record = read(sequence);
+			if (record != null && filter.test(record)) {
+				found.add(record);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return retained records about an item, oldest first
+	 */
+	public List<DecisionRecord> query(final long itemKey) {
+		return query(r -> r.itemKey == itemKey);
+	}
+
+	/**
+	 * Write the retained records to a file that {@link #load(Path)} and
+	 * {@link DecisionLogTool} read.
+	 */
+	public void dump(final Path file) throws IOException {
+		final List<DecisionRecord> records = query(r -> true);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(records.size());
+			for (final DecisionRecord record : records) {
+				out.writeLong(record.sequence);
+				out.writeInt((int) record.date.toEpochDay());
+				out.writeLong(record.itemKey);
+				out.writeByte(record.warehouse.ordinal());
+				out.writeByte(record.fetched);
+				out.writeInt(record.onHand);
+				out.writeInt(record.onOrder);
+				out.writeByte(record.onSale);
+				out.writeInt(record.target);
+				out.writeByte(record.decision.ordinal());
+				out.writeInt(record.quantity);
+			}
+		}
+	}
+
+	/**
+	 * Read records written by {@link #dump(Path)}.
+	 */
+	public static List<DecisionRecord> load(final Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("not a decision log: " + file);
+			}
+			final int count = in.readInt();
+			final List<DecisionRecord> records = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				final long sequence = in.readLong();
+				final LocalDate date = LocalDate.ofEpochDay(in.readInt());
+				final long itemKey = in.readLong();
+				final Warehouse warehouse = WAREHOUSES[in.readByte()];
+				final int fetched = in.readByte();
+				final int onHand = in.readInt();
+				final int onOrder = in.readInt();
+				final int onSale = in.readByte();
+				final int target = in.readInt();
+				final Decision decision = DECISIONS[in.readByte()];
+				final int quantity = in.readInt();
+				records.add(new DecisionRecord(sequence, date, itemKey, warehouse, fetched, onHand, onOrder, onSale,
+						target, decision, quantity));
+			}
+			return records;
+		}
+	}
+
+	private void write(final long sequence, final long day, final long itemKey, final Warehouse warehouse,
+			final int fetched, final int onHand, final int onOrder, final int onSale, final int target,
+			final Decision decision, final int quantity) {
+		final int slot = (int) sequence & mask;
+		final int at = FIELDS * slot;
+		fields[at] = itemKey;
+		fields[at + 1] = day | warehouse.ordinal() << 24 | (fetched & 0xff) << 16
+				| ((fetched & DecisionRecord.ON_SALE) == 0 ? 0 : (onSale & 0xff) << 8) | decision.ordinal();
+		fields[at + 2] = pack((fetched & DecisionRecord.ON_HAND) == 0 ? 0 : onHand,
+				(fetched & DecisionRecord.ON_ORDER) == 0 ? 0 : onOrder);
+		fields[at + 3] = pack(target, quantity);
+		stamps.lazySet(slot, sequence);
+	}
+
+	private DecisionRecord read(final long sequence) {
+		final int slot = (int) sequence & mask;
+		if (stamps.get(slot) != sequence) {
+			return null;
+		}
+		final int at = FIELDS * slot;
+		final long itemKey = fields[at];
+		final long flags = fields[at + 1];
+		final long levels = fields[at + 2];
+		final long outcome = fields[at + 3];
+		// an atomic update, unlike a volatile read, keeps the field reads before it
+		if (!stamps.compareAndSet(slot, sequence, sequence)) {
+			return null;
+		}
+		// a newer writer may be filling the slot before publishing its stamp
+		if (next.get() - sequence > capacity()) {
+			return null;
+		}
+		return new DecisionRecord(sequence, LocalDate.ofEpochDay(flags >> 32), itemKey,
+				WAREHOUSES[(int) (flags >>> 24) & 0xff], (int) (flags >>> 16) & 0xff, (int) (levels >> 32),
+				(int) levels, (byte) (flags >>> 8), (int) (outcome >> 32), DECISIONS[(int) flags & 0xff],
+				(int) outcome);
+	}
+
+	private static long pack(final int high, final int low) {
+		return (long) high << 32 | low & 0xffffffffL;
+	}
+}
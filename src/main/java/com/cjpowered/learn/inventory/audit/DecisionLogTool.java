@@ -0,0 +1,30 @@
+package com.cjpowered.learn.inventory.audit;
+
+import java.nio.file.Paths;
+
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Prints decisions from a file written by {@link DecisionLog#dump}.
+ * <p>
+ * Usage: {@code DecisionLogTool file [itemKey [warehouse]]}
+ */
+public final class DecisionLogTool {
+
+	private DecisionLogTool() {
+	}
+
+	public static void main(final String[] args) throws Exception {
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("usage: DecisionLogTool file [itemKey [warehouse]]");
+			System.exit(2);
+		}
+		final Long itemKey = args.length > 1 ? Long.valueOf(args[1]) : null;
+		final Warehouse warehouse = args.length > 2 ? Warehouse.valueOf(args[2]) : null;
+		for (final DecisionRecord record : DecisionLog.load(Paths.get(args[0]))) {
+			if ((itemKey == null || record.itemKey == itemKey) && (warehouse == null || record.warehouse == warehouse)) {
+				System.out.println(record);
+			}
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.cjpowered.learn.inventory.audit;
+
+import java.time.LocalDate;
+
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * One recorded decision. Inputs the rules never fetched are 0, with their
+ * bit clear in {@link #fetched}.
+ */
+public final class DecisionRecord {
+
+	/**
+	 * bit of {@link #fetched} for the on-hand level
+	 */
+	public static final int ON_HAND = 1;
+
+	/**
+	 * bit of {@link #fetched} for the on-order level
+	 */
+	public static final int ON_ORDER = 2;
+
+	/**
+	 * bit of {@link #fetched} for the sale flag
+	 */
+	public static final int ON_SALE = 4;
+
+	/**
+	 * position in the log's sequence of decisions
+	 */
+	public final long sequence;
+
+	/**
+	 * effective day of the run
+	 */
+	public final LocalDate date;
+
+	/**
+	 * stable key of the item
+	 */
+	public final long itemKey;
+
+	/**
+	 * warehouse ordered for
+	 */
+	public final Warehouse warehouse;
+
+	/**
+	 * inputs the rules fetched, as {@link #ON_HAND}, {@link #ON_ORDER} and
+	 * {@link #ON_SALE} bits
+	 */
+	public final int fetched;
+
+	/**
+	 * number on hand
+	 */
+	public final int onHand;
+
+	/**
+	 * number on order
+	 */
+	public final int onOrder;
+
+	/**
+	 * 1 if on sale, 0 if not
+	 */
+	public final int onSale;
+
+	/**
+	 * level the rules aimed for
+	 */
+	public final int target;
+
+	/**
+	 * branch that settled the order
+	 */
+	public final Decision decision;
+
+	/**
+	 * units ordered
+	 */
+	public final int quantity;
+
+	public DecisionRecord(final long sequence, final LocalDate date, final long itemKey, final Warehouse warehouse,
+			final int fetched, final int onHand, final int onOrder, final int onSale, final int target,
+			final Decision decision, final int quantity) {
+		this.sequence = sequence;
+		this.date = date;
+		this.itemKey = itemKey;
+		this.warehouse = warehouse;
+		this.fetched = fetched;
+		this.onHand = onHand;
+		this.onOrder = onOrder;
+		this.onSale = onSale;
+		this.target = target;
+		this.decision = decision;
+		this.quantity = quantity;
+	}
+
+	@Override
+	public String toString() {
+		return "#" + sequence + " " + date + " item " + itemKey + " @" + warehouse + ": " + decision + " qty="
+				+ quantity + " target=" + target + " onHand=" + input(ON_HAND, onHand) + " onOrder="
+				+ input(ON_ORDER, onOrder) + " onSale=" + input(ON_SALE, onSale);
+	}
+
+	/**
+	 * @param input
+	 *            {@link #ON_HAND}, {@link #ON_ORDER} or {@link #ON_SALE}
+	 *
+	 * @return true if the rules fetched the input
+	 */
+	public boolean wasFetched(final int input) {
+		return (fetched & input) != 0;
+	}
+
+	private String input(final int input, final int value) {
+		return wasFetched(input) ? Integer.toString(value) : "-";
+	}
+}
@@ -0,0 +1,55 @@
+package com.cjpowered.learn.inventory.cache;
+
+/**
+ * Point-in-time cache counters.
+ */
+public final class CacheStats {
+
+	/**
+	 * lookups answered from the cache
+	 */
+	public final long hits;
+
+	/**
+	 * lookups passed to the underlying database
+	 */
+	public final long misses;
+
+	/**
+	 * entries dropped to stay within the size bound
+	 */
+	public final long evictions;
+
+	/**
+	 * entries dropped because they outlived the time to live
+	 */
+	public final long expirations;
+
+	/**
+	 * entries currently held
+	 */
+	public final int size;
+
+	public CacheStats(final long hits, final long misses, final long evictions, final long expirations,
+			final int size) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.expirations = expirations;
+		this.size = size;
+	}
+
+	/**
+	 * @return fraction of lookups answered from the cache, 0 if none yet
+	 */
+	public double hitRate() {
+		final long lookups = hits + misses;
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats[hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", expirations="
+				+ expirations + ", size=" + size + "]";
+	}
+}
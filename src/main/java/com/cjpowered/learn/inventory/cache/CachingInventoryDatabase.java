@@ -0,0 +1,357 @@
+package com.cjpowered.learn.inventory.cache;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import com.cjpowered.learn.inventory.ForwardingInventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Read-through cache in front of a slow database. On-hand and on-order
+ * lookups, with and without a warehouse, are kept in a size-bounded
+ * least-recently-used map; the catalog is kept as a single entry. Every entry
+ * expires after the time to live. Required levels are not cached, so
+ * changing one leaves the cached amounts and catalog in place; call
+ * {@link #invalidate(Item)} when stock changes behind the cache's back. A
+ * load that overlaps an invalidation of its item is returned but not cached,
+ * while loads of other items are kept.
+ */
+public final class CachingInventoryDatabase extends ForwardingInventoryDatabase {
+
+	private static final byte ON_HAND = 0;
+	private static final byte ON_ORDER = 1;
+
+	private final int maximumSize;
+	private final long ttlNanos;
+	private final LongSupplier ticker;
+	private final LinkedHashMap<Key, CachedValue> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+	private final Map<Item, Load> loading = new IdentityHashMap<>();
+	private long catalogVersion;
+	private List<Item> stockItems;
+	private long stockItemsLoaded;
+
+	public CachingInventoryDatabase(final InventoryDatabase delegate, final int maximumSize, final long ttl,
+			final TimeUnit unit) {
+		this(delegate, maximumSize, ttl, unit, System::nanoTime);
+	}
+
+	/**
+	 * @param ticker
+	 *            nanosecond time source, for tests
+	 */
+	public CachingInventoryDatabase(final InventoryDatabase delegate, final int maximumSize, final long ttl,
+			final TimeUnit unit, final LongSupplier ticker) {
+		super(delegate);
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("maximum size must be positive: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		this.ttlNanos = unit.toNanos(ttl);
+		this.ticker = ticker;
+		this.entries = new LinkedHashMap<Key, CachedValue>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, CachedValue> eldest) {
+				if (size() > CachingInventoryDatabase.this.maximumSize) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public int onHand(final Item item) {
+		return read(new Key(item, null, ON_HAND), () -> delegate.onHand(item));
+	}
+
+	@Override
+	public int onHand(final Item item, final Warehouse warehouse) {
+		return read(new Key(item, warehouse, ON_HAND), () -> delegate.onHand(item, warehouse));
+	}
+
+	/**
+	 * Serve cached amounts and load the rest with one bulk read.
+	 */
+	@Override
+	public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand, final int count) {
+		readAll(ON_HAND, items, warehouses, onHand, count);
+	}
+
+	/**
+	 * Serve cached amounts and load the rest with one bulk read.
+	 */
+	@Override
+	public void onOrder(final Item[] items, final Warehouse[] warehouses, final int[] onOrder, final int count) {
+		readAll(ON_ORDER, items, warehouses, onOrder, count);
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public int onOrder(final Item item) {
+		return read(new Key(item, null, ON_ORDER), () -> delegate.onOrder(item));
+	}
+
+	@Override
+	public int onOrder(final Item item, final Warehouse warehouse) {
+		return read(new Key(item, warehouse, ON_ORDER), () -> delegate.onOrder(item, warehouse));
+	}
+
+	@Override
+	public List<Item> stockItems() {
+		synchronized (this) {
+			if (stockItems != null) {
+				if (ticker.getAsLong() - stockItemsLoaded < ttlNanos) {
+					hits.increment();
+					return stockItems;
+				}
+				stockItems = null;
+				expirations.increment();
+			}
+		}
+		misses.increment();
+		final long loadVersion;
+		synchronized (this) {
+			loadVersion = catalogVersion;
+		}
+		final List<Item> loaded = Collections.unmodifiableList(delegate.stockItems());
+		synchronized (this) {
+			if (loadVersion == catalogVersion) {
+				stockItems = loaded;
+				stockItemsLoaded = ticker.getAsLong();
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * Drop every cached fact about an item, and the cached catalog.
+	 *
+	 * @param item
+	 *            item to drop
+	 */
+	public synchronized void invalidate(final Item item) {
+		for (byte kind = ON_HAND; kind <= ON_ORDER; kind++) {
+			entries.remove(new Key(item, null, kind));
+			for (final Warehouse warehouse : Warehouse.values()) {
+				entries.remove(new Key(item, warehouse, kind));
+			}
+		}
+		stockItems = null;
+		final Load load = loading.get(item);
+		if (load != null) {
+			load.invalidations++;
+		}
+		catalogVersion++;
+	}
+
+	/**
+	 * Drop everything.
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		stockItems = null;
+		for (final Load load : loading.values()) {
+			load.invalidations++;
+		}
+		catalogVersion++;
+	}
+
+	/**
+	 * @return current counters
+	 */
+	public synchronized CacheStats stats() {
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), entries.size());
+	}
+
+	/**
+	 * Drop expired entries now rather than on their next lookup.
+	 */
+	public synchronized void cleanUp() {
+		final long now = ticker.getAsLong();
+		for (final Iterator<CachedValue> it = entries.values().iterator(); it.hasNext();) {
+			if (now - it.next().loaded >= ttlNanos) {
+				it.remove();
+				expirations.increment();
+			}
+		}
+	}
+
+	private void readAll(final byte kind, final Item[] items, final Warehouse[] warehouses, final int[] amounts,
+			final int count) {
+		final int[] misses = new int[count];
+		final Load[] loads = new Load[count];
+		final long[] seen = new long[count];
+		int missed = 0;
+		synchronized (this) {
+			for (int i = 0; i < count; i++) {
+				final Integer cached = lookup(new Key(items[i], warehouses[i], kind));
+				if (cached != null) {
+					amounts[i] = cached;
+				} else {
+					loads[missed] = startLoad(items[i]);
+					seen[missed] = loads[missed].invalidations;
+					misses[missed++] = i;
+				}
+			}
+		}
+		if (missed == 0) {
+			return;
+		}
+		final Item[] missedItems = new Item[missed];
+		final Warehouse[] missedWarehouses = new Warehouse[missed];
+		final int[] loaded = new int[missed];
+		for (int m = 0; m < missed; m++) {
+			missedItems[m] = items[misses[m]];
+			missedWarehouses[m] = warehouses[misses[m]];
+		}
+		try {
+			if (kind == ON_HAND) {
+				delegate.onHand(missedItems, missedWarehouses, loaded, missed);
+			} else {
+				delegate.onOrder(missedItems, missedWarehouses, loaded, missed);
+			}
+		} catch (final RuntimeException | Error e) {
+			synchronized (this) {
+				for (int m = 0; m < missed; m++) {
+					finishLoad(missedItems[m], loads[m]);
+				}
+			}
+			throw e;
+		}
+		synchronized (this) {
+			final long now = ticker.getAsLong();
+			for (int m = 0; m < missed; m++) {
+				amounts[misses[m]] = loaded[m];
+				if (finishLoad(missedItems[m], loads[m]) == seen[m]) {
+					entries.put(new Key(missedItems[m], missedWarehouses[m], kind),
+							new CachedValue(loaded[m], now));
+				}
+			}
+		}
+	}
+
+	private int read(final Key key, final IntSupplier loader) {
+		final Load load;
+		final long seen;
+		synchronized (this) {
+			final Integer cached = lookup(key);
+			if (cached != null) {
+				return cached;
+			}
+			load = startLoad(key.item);
+			seen = load.invalidations;
+		}
+		final int value;
+		try {
+			value = loader.getAsInt();
+		} catch (final RuntimeException | Error e) {
+			synchronized (this) {
+				finishLoad(key.item, load);
+			}
+			throw e;
+		}
+		synchronized (this) {
+			// an invalidation of the item while loading makes the value suspect
+			if (finishLoad(key.item, load) == seen) {
+				entries.put(key, new CachedValue(value, ticker.getAsLong()));
+			}
+		}
+		return value;
+	}
+
+	private Integer lookup(final Key key) {
+		final CachedValue entry = entries.get(key);
+		if (entry != null) {
+			if (ticker.getAsLong() - entry.loaded < ttlNanos) {
+				hits.increment();
+				return entry.value;
+			}
+			entries.remove(key);
+			expirations.increment();
+		}
+		misses.increment();
+		return null;
+	}
+
+	private static final class Key {
+
+		private final Item item;
+		private final Warehouse warehouse;
+		private final byte kind;
+
+		Key(final Item item, final Warehouse warehouse, final byte kind) {
+			this.item = item;
+			this.warehouse = warehouse;
+			this.kind = kind;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj)
+				return true;
+			else if (obj instanceof Key)
+				return this.item.equals(((Key) obj).item) && this.warehouse == ((Key) obj).warehouse
+						&& this.kind == ((Key) obj).kind;
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.item, this.warehouse, this.kind);
+		}
+	}
+
+	// caller holds the lock
+	private Load startLoad(final Item item) {
+		final Load load = loading.computeIfAbsent(item, k -> new Load());
+		load.active++;
+		return load;
+	}
+
+	// caller holds the lock; returns the invalidations seen by the load
+	private long finishLoad(final Item item, final Load load) {
+		if (--load.active == 0) {
+			loading.remove(item);
+		}
+		return load.invalidations;
+	}
+
+	/**
+	 * Loads of one item in flight, and how often the item was invalidated
+	 * while any of them ran.
+	 */
+	private static final class Load {
+
+		private int active;
+		private long invalidations;
+	}
+
+	private static final class CachedValue {
+
+		private final int value;
+		private final long loaded;
+
+		CachedValue(final int value, final long loaded) {
+			this.value = value;
+			this.loaded = loaded;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.cjpowered.learn.inventory.cache;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Order;
+
+/**
+ * Shares plans between callers. Calls for the same date while the data
+ * version is unchanged get the same result: the first caller computes it
+ * through the delegate and any caller arriving meanwhile waits for that
+ * computation instead of starting its own. A new data version makes the next
+ * call recompute; a failed computation is not cached.
+ * <p>
+ * The data version must change whenever inventory or marketing data changes,
+ * for example {@code VersionedInventoryDatabase::version} combined with a
+ * counter bumped on marketing updates. Returned lists are shared and
+ * unmodifiable.
+ */
+public final class CoalescingInventoryManager implements InventoryManager {
+
+	private final InventoryManager delegate;
+	private final LongSupplier dataVersion;
+	private final ConcurrentMap<LocalDate, Plan> plans = new ConcurrentHashMap<>();
+	private final LongAdder computations = new LongAdder();
+
+	/**
+	 * @param delegate
+	 *            computes plans
+	 *
+	 * @param dataVersion
+	 *            changes whenever the delegate's inputs change
+	 */
+	public CoalescingInventoryManager(final InventoryManager delegate, final LongSupplier dataVersion) {
+		this.delegate = delegate;
+		this.dataVersion = dataVersion;
+	}
+
+	@Override
+	public List<Order> getOrders(final LocalDate today) {
+		final long version = dataVersion.getAsLong();
+		final Plan mine = new Plan(version);
+		final Plan plan = plans.compute(today,
+				(k, current) -> current != null && current.version == version ? current : mine);
+		if (plan == mine) {
+			compute(today, mine);
+		}
+		try {
+			return plan.orders.join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Drop every cached plan, for inputs that changed without a new data
+	 * version.
+	 */
+	public void invalidateAll() {
+		plans.clear();
+	}
+
+	/**
+	 * @return number of plans computed through the delegate
+	 */
+	public long computations() {
+		return computations.sum();
+	}
+
+	private void compute(final LocalDate today, final Plan plan) {
+		computations.increment();
+		try {
+			plan.orders.complete(Collections.unmodifiableList(delegate.getOrders(today)));
+			// only plans for the current version can be served again, this one included if the data moved on
+			final long current = dataVersion.getAsLong();
+			plans.values().removeIf(p -> p.version != current && p.orders.isDone());
+		} catch (final Throwable e) {
+			// errors too, or waiters on this plan would block forever
+			plans.remove(today, plan);
+			plan.orders.completeExceptionally(e);
+		}
+	}
+
+	private static final class Plan {
+
+		final long version;
+		final CompletableFuture<List<Order>> orders = new CompletableFuture<>();
+
+		Plan(final long version) {
+			this.version = version;
+		}
+	}
+}
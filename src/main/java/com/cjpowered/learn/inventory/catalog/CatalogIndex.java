@@ -0,0 +1,264 @@
+package com.cjpowered.learn.inventory.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * In-memory secondary indexes over the catalog by season, restriction, pack
+ * size, item class and stocking warehouse. Lookups return live read-only
+ * views, so the cost of a query is proportional to its result. An item's
+ * attributes must not change while it is indexed; remove and add it again
+ * instead. Not thread-safe.
+ */
+public final class CatalogIndex {
+
+	private final Set<Item> all = new LinkedHashSet<>();
+	private final Map<Season, Set<Item>> bySeason = new EnumMap<>(Season.class);
+	private final Set<Item> nonSeasonal = new LinkedHashSet<>();
+	private final Set<Item> restricted = new LinkedHashSet<>();
+	private final Set<Item> unrestricted = new LinkedHashSet<>();
+	private final Map<PackSize, Set<Item>> byPackSize = new EnumMap<>(PackSize.class);
+	private final Map<Class<? extends Item>, Set<Item>> byKind = new HashMap<>();
+	private final Map<Warehouse, Set<Item>> byWarehouse = new EnumMap<>(Warehouse.class);
+
+	public CatalogIndex() {
+		for (final Season season : Season.values()) {
+			bySeason.put(season, new LinkedHashSet<>());
+		}
+		for (final PackSize size : PackSize.values()) {
+			byPackSize.put(size, new LinkedHashSet<>());
+		}
+		for (final Warehouse warehouse : Warehouse.values()) {
+			byWarehouse.put(warehouse, new LinkedHashSet<>());
+		}
+	}
+
+	/**
+	 * Index a whole catalog.
+	 *
+	 * @param items
+	 *            items to index
+	 *
+	 * @return new index
+	 */
+	public static CatalogIndex of(final Collection<Item> items) {
+		final CatalogIndex index = new CatalogIndex();
+		for (final Item item : items) {
+			index.add(item);
+		}
+		return index;
+	}
+
+	/**
+	 * Add an item to every index.
+	 *
+	 * @param item
+	 *            item to add
+	 *
+	 * @return false if the item was already indexed
+	 */
+	public boolean add(final Item item) {
+		if (!all.add(item)) {
+			return false;
+		}
+		seasonSet(item).add(item);
+		(item.isRestricted() ? restricted : unrestricted).add(item);
+		byPackSize.get(PackSize.of(item.bulkAmount())).add(item);
+		byKind.computeIfAbsent(item.getClass(), k -> new LinkedHashSet<>()).add(item);
+		for (final Warehouse warehouse : Warehouse.values()) {
+			if (item.wantOnHand(warehouse) > 0) {
+				byWarehouse.get(warehouse).add(item);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Remove an item from every index.
+	 *
+	 * @param item
+	 *            item to remove
+	 *
+	 * @return false if the item was not indexed
+	 */
+	public boolean remove(final Item item) {
+		if (!all.remove(item)) {
+			return false;
+		}
+		seasonSet(item).remove(item);
+		(item.isRestricted() ? restricted : unrestricted).remove(item);
+		byPackSize.get(PackSize.of(item.bulkAmount())).remove(item);
+		final Set<Item> kind = byKind.get(item.getClass());
+		kind.remove(item);
+		if (kind.isEmpty()) {
+			byKind.remove(item.getClass());
+		}
+		for (final Set<Item> stocked : byWarehouse.values()) {
+			stocked.remove(item);
+		}
+		return true;
+	}
+
+	/**
+	 * @return every indexed item
+	 */
+	public Set<Item> items() {
+		return Collections.unmodifiableSet(all);
+	}
+
+	/**
+	 * @param season
+	 *            high-demand season
+	 *
+	 * @return seasonal items for the season
+	 */
+	public Set<Item> bySeason(final Season season) {
+		return Collections.unmodifiableSet(bySeason.get(season));
+	}
+
+	/**
+	 * @return items without a high-demand season
+	 */
+	public Set<Item> nonSeasonal() {
+		return Collections.unmodifiableSet(nonSeasonal);
+	}
+
+	/**
+	 * @param isRestricted
+	 *            restriction to match
+	 *
+	 * @return items that are, or are not, restricted to the first of the month
+	 */
+	public Set<Item> byRestricted(final boolean isRestricted) {
+		return Collections.unmodifiableSet(isRestricted ? restricted : unrestricted);
+	}
+
+	/**
+	 * @param size
+	 *            pack size bucket
+	 *
+	 * @return items whose package size falls in the bucket
+	 */
+	public Set<Item> byPackSize(final PackSize size) {
+		return Collections.unmodifiableSet(byPackSize.get(size));
+	}
+
+	/**
+	 * @param kind
+	 *            item class
+	 *
+	 * @return items of exactly that class
+	 */
+	public Set<Item> byKind(final Class<? extends Item> kind) {
+		final Set<Item> items = byKind.get(kind);
+		return items == null ? Collections.<Item> emptySet() : Collections.unmodifiableSet(items);
+	}
+
+	/**
+	 * @param warehouse
+	 *            warehouse to match
+	 *
+	 * @return items with a normal level at the warehouse
+	 */
+	public Set<Item> byWarehouse(final Warehouse warehouse) {
+		return Collections.unmodifiableSet(byWarehouse.get(warehouse));
+	}
+
+	/**
+	 * @return new query over this index
+	 */
+	public Query query() {
+		return new Query();
+	}
+
+	private Set<Item> seasonSet(final Item item) {
+		final Optional<Season> highSeason = item.highSeason();
+		return highSeason.isPresent() ? bySeason.get(highSeason.get()) : nonSeasonal;
+	}
+
+	/**
+	 * Conjunction of index lookups. Only the smallest matching set is scanned;
+	 * the rest are probed.
+	 */
+	public final class Query {
+
+		private final List<Set<Item>> terms = new ArrayList<>();
+
+		private Query() {
+		}
+
+		public Query season(final Season season) {
+			terms.add(bySeason.get(season));
+			return this;
+		}
+
+		public Query nonSeasonal() {
+			terms.add(nonSeasonal);
+			return this;
+		}
+
+		public Query restricted(final boolean isRestricted) {
+			terms.add(isRestricted ? restricted : unrestricted);
+			return this;
+		}
+
+		public Query packSize(final PackSize size) {
+			terms.add(byPackSize.get(size));
+			return this;
+		}
+
+		public Query kind(final Class<? extends Item> kind) {
+			final Set<Item> items = byKind.get(kind);
+			terms.add(items == null ? Collections.<Item> emptySet() : items);
+			return this;
+		}
+
+		public Query warehouse(final Warehouse warehouse) {
+			terms.add(byWarehouse.get(warehouse));
+			return this;
+		}
+
+		/**
+		 * @return items matching every term, in insertion order
+		 */
+		public List<Item> items() {
+			if (terms.isEmpty()) {
+				return new ArrayList<>(all);
+			}
+			Set<Item> smallest = terms.get(0);
+			for (final Set<Item> term : terms) {
+				if (term.size() < smallest.size()) {
+					smallest = term;
+				}
+			}
+			final List<Item> result = new ArrayList<>();
+			for (final Item item : smallest) {
+				if (matchesAll(item)) {
+					result.add(item);
+				}
+			}
+			return result;
+		}
+
+		private boolean matchesAll(final Item item) {
+			for (final Set<Item> term : terms) {
+				if (!term.contains(item)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
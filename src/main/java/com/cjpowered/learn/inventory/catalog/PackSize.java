@@ -0,0 +1,48 @@
+package com.cjpowered.learn.inventory.catalog;
+
+/**
+ * Buckets of units per package.
+ */
+public enum PackSize {
+
+	/**
+	 * ordered by the unit
+	 */
+	SINGLE(1),
+
+	/**
+	 * up to a six-pack
+	 */
+	SMALL(6),
+
+	/**
+	 * up to a case of 24
+	 */
+	CASE(24),
+
+	/**
+	 * more than a case
+	 */
+	BULK(Integer.MAX_VALUE);
+
+	private final int maxUnits;
+
+	private PackSize(final int maxUnits) {
+		this.maxUnits = maxUnits;
+	}
+
+	/**
+	 * @param units
+	 *            units per package
+	 *
+	 * @return smallest bucket holding the package size
+	 */
+	public static PackSize of(final int units) {
+		for (final PackSize size : values()) {
+			if (units <= size.maxUnits) {
+				return size;
+			}
+		}
+		return BULK;
+	}
+}
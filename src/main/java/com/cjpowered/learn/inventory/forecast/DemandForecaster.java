@@ -0,0 +1,237 @@
+package com.cjpowered.learn.inventory.forecast;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ingest.InventoryEvent;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Daily demand per item and warehouse, kept by exponential smoothing with a
+ * multiplicative factor for each {@link Season}. Sales for the current day
+ * are summed; when a later day's sale arrives the finished day is folded into
+ * the level and its season's factor, and the days without sales in between
+ * decay the level in one step. Each sale therefore costs constant time and
+ * each item a fixed amount of memory, with no history kept. Late sales count
+ * toward the day still open. Safe for concurrent use.
+ */
+public final class DemandForecaster {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+	private static final Season[] SEASONS = Season.values();
+	private static final long NO_DAY = Long.MIN_VALUE;
+
+	private final MarketingInfo marketInfo;
+	private final double alpha;
+	private final double gamma;
+	private final ConcurrentMap<Item, Cell> cells = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, Season> seasons = new ConcurrentHashMap<>();
+
+	/**
+	 * @param marketInfo
+	 *            season calendar
+	 *
+	 * @param alpha
+	 *            weight of each new day in the level, in (0, 1]
+	 *
+	 * @param gamma
+	 *            weight of each new day in its season's factor, in [0, 1]
+	 */
+	public DemandForecaster(final MarketingInfo marketInfo, final double alpha, final double gamma) {
+		if (!(alpha > 0 && alpha <= 1) || !(gamma >= 0 && gamma <= 1)) {
+			throw new IllegalArgumentException("bad smoothing weights: " + alpha + ", " + gamma);
+		}
+		this.marketInfo = marketInfo;
+		this.alpha = alpha;
+		this.gamma = gamma;
+	}
+
+	// state of one item in every warehouse
+	private static final class Cell {
+		final long[] day = new long[WAREHOUSES.length];
+		final long[] sold = new long[WAREHOUSES.length];
+		final boolean[] smoothed = new boolean[WAREHOUSES.length];
+		final double[] level = new double[WAREHOUSES.length];
+		final double[] factor = new double[WAREHOUSES.length * SEASONS.length];
+
+		Cell() {
+			Arrays.fill(day, NO_DAY);
+			Arrays.fill(factor, 1.0);
+		}
+	}
+
+	/**
+	 * Count a stock event; only sales are demand.
+	 *
+	 * @param event
+	 *            event to count
+	 *
+	 * @param when
+	 *            day the event happened
+	 */
+	public void record(final InventoryEvent event, final LocalDate when) {
+		if (event.type == InventoryEvent.Type.SALE) {
+			recordSale(event.item, event.warehouse, when, event.quantity);
+		}
+	}
+
+	/**
+	 * Count a sale.
+	 *
+	 * @param item
+	 *            item sold
+	 *
+	 * @param warehouse
+	 *            warehouse it was sold from
+	 *
+	 * @param when
+	 *            day of the sale
+	 *
+	 * @param quantity
+	 *            units sold
+	 */
+	public void recordSale(final Item item, final Warehouse warehouse, final LocalDate when, final int quantity) {
+		final Cell cell = cells.computeIfAbsent(item, key -> new Cell());
+		final int w = warehouse.ordinal();
+		final long today = when.toEpochDay();
+		synchronized (cell) {
+			if (cell.day[w] == NO_DAY) {
+				cell.day[w] = today;
+			} else if (today > cell.day[w]) {
+				close(cell, w);
+				cell.level[w] *= Math.pow(1 - alpha, today - cell.day[w] - 1);
+				cell.day[w] = today;
+			}
+			cell.sold[w] += quantity;
+		}
+	}
+
+	// fold the open day into the level and its season's factor; caller holds the lock
+	private void close(final Cell cell, final int w) {
+		final int slot = w * SEASONS.length + season(cell.day[w]).ordinal();
+		final double level = closedLevel(cell, w, slot);
+		cell.factor[slot] = closedFactor(cell, w, slot, level);
+		cell.level[w] = level;
+		cell.smoothed[w] = true;
+		cell.sold[w] = 0;
+	}
+
+	// the first finished day sets the level; caller holds the lock
+	private double closedLevel(final Cell cell, final int w, final int slot) {
+		return cell.smoothed[w] ? alpha * cell.sold[w] / cell.factor[slot] + (1 - alpha) * cell.level[w]
+				: cell.sold[w];
+	}
+
+	// caller holds the lock
+	private double closedFactor(final Cell cell, final int w, final int slot, final double level) {
+		return cell.smoothed[w] && level > 0 ? gamma * cell.sold[w] / level + (1 - gamma) * cell.factor[slot]
+				: cell.factor[slot];
+	}
+
+	private Season season(final long epochDay) {
+		return seasons.computeIfAbsent(epochDay, day -> marketInfo.season(LocalDate.ofEpochDay(day)));
+	}
+
+	/**
+	 * Expected units sold per day, counting the open day as finished if it is
+	 * before {@code asOf}. Does not change the estimates.
+	 *
+	 * @param item
+	 *            item to forecast
+	 *
+	 * @param warehouse
+	 *            warehouse to forecast
+	 *
+	 * @param asOf
+	 *            day to forecast
+	 *
+	 * @return daily demand, 0 if the item was never sold there
+	 */
+	public double dailyDemand(final Item item, final Warehouse warehouse, final LocalDate asOf) {
+		final Cell cell = cells.get(item);
+		if (cell == null) {
+			return 0;
+		}
+		final int w = warehouse.ordinal();
+		final long day = asOf.toEpochDay();
+		final int wanted = w * SEASONS.length + season(day).ordinal();
+		synchronized (cell) {
+			if (cell.day[w] == NO_DAY) {
+				return 0;
+			}
+			if (day <= cell.day[w]) {
+				return cell.level[w] * cell.factor[wanted];
+			}
+			final int slot = w * SEASONS.length + season(cell.day[w]).ordinal();
+			final double level = closedLevel(cell, w, slot);
+			final double factor = slot == wanted ? closedFactor(cell, w, slot, level) : cell.factor[wanted];
+			return level * Math.pow(1 - alpha, day - cell.day[w] - 1) * factor;
+		}
+	}
+
+	/**
+	 * @param coverDays
+	 *            days of demand to keep on hand
+	 *
+	 * @return required level covering the forecast demand
+	 */
+	public int requiredLevel(final Item item, final Warehouse warehouse, final LocalDate asOf, final int coverDays) {
+		return (int) Math.ceil(dailyDemand(item, warehouse, asOf) * coverDays);
+	}
+
+	/**
+	 * Write the forecast required levels of every item and warehouse with
+	 * recorded sales in one bulk call.
+	 *
+	 * @param items
+	 *            items to update
+	 *
+	 * @param asOf
+	 *            day to forecast
+	 *
+	 * @param coverDays
+	 *            days of demand to keep on hand
+	 *
+	 * @param db
+	 *            database receiving the levels
+	 *
+	 * @return number of levels written
+	 */
+	public int apply(final List<Item> items, final LocalDate asOf, final int coverDays, final InventoryDatabase db) {
+		final int capacity = items.size() * WAREHOUSES.length;
+		final Item[] updated = new Item[capacity];
+		final Warehouse[] warehouses = new Warehouse[capacity];
+		final int[] levels = new int[capacity];
+		int count = 0;
+		for (final Item item : items) {
+			final Cell cell = cells.get(item);
+			if (cell == null) {
+				continue;
+			}
+			for (final Warehouse warehouse : WAREHOUSES) {
+				if (seen(cell, warehouse)) {
+					updated[count] = item;
+					warehouses[count] = warehouse;
+					levels[count++] = requiredLevel(item, warehouse, asOf, coverDays);
+				}
+			}
+		}
+		if (count > 0) {
+			db.setRequiredOnHand(updated, warehouses, levels, count);
+		}
+		return count;
+	}
+
+	private static boolean seen(final Cell cell, final Warehouse warehouse) {
+		synchronized (cell) {
+			return cell.day[warehouse.ordinal()] != NO_DAY;
+		}
+	}
+}
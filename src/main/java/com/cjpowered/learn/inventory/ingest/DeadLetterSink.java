@@ -0,0 +1,34 @@
+package com.cjpowered.learn.inventory.ingest;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Receives netted changes the writer rejected for good, so the rest of their
+ * batch can still be applied.
+ */
+@FunctionalInterface
+public interface DeadLetterSink {
+
+	/**
+	 * @param item
+	 *            item changed
+	 *
+	 * @param warehouse
+	 *            warehouse changed
+	 *
+	 * @param onHandDelta
+	 *            netted change in number on hand
+	 *
+	 * @param onOrderDelta
+	 *            netted change in number on order
+	 *
+	 * @param events
+	 *            events netted into the change
+	 *
+	 * @param cause
+	 *            why the writer rejected it
+	 */
+	void rejected(Item item, Warehouse warehouse, int onHandDelta, int onOrderDelta, int events,
+			IllegalArgumentException cause);
+}
@@ -0,0 +1,75 @@
+package com.cjpowered.learn.inventory.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongFunction;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Reads events from a text file, one per line:
+ * {@code TYPE,itemKey,WAREHOUSE,quantity}, for example
+ * {@code SALE,1042,Ashford,3}. Blank lines and lines starting with
+ * {@code #} are skipped.
+ */
+public final class EventFileReader {
+
+	private final LongFunction<Item> items;
+
+	/**
+	 * @param items
+	 *            finds the item for a key
+	 */
+	public EventFileReader(final LongFunction<Item> items) {
+		this.items = items;
+	}
+
+	/**
+	 * Submit every event in a file.
+	 *
+	 * @return number of events submitted
+	 *
+	 * @throws IOException
+	 *             if the file cannot be read or a line is malformed
+	 */
+	public long readInto(final Path file, final IngestionPipeline pipeline) throws IOException, InterruptedException {
+		long count = 0;
+		int lineNumber = 0;
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				pipeline.submit(parse(line, file, lineNumber));
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private InventoryEvent parse(final String line, final Path file, final int lineNumber) throws IOException {
+		final String[] fields = line.split(",");
+		if (fields.length != 4) {
+			throw new IOException(file + ":" + lineNumber + ": expected 4 fields");
+		}
+		try {
+			final InventoryEvent.Type type = InventoryEvent.Type.valueOf(fields[0].trim());
+			final Item item = items.apply(Long.parseLong(fields[1].trim()));
+			if (item == null) {
+				throw new IOException(file + ":" + lineNumber + ": unknown item " + fields[1].trim());
+			}
+			final Warehouse warehouse = Warehouse.valueOf(fields[2].trim());
+			final int quantity = Integer.parseInt(fields[3].trim());
+			return new InventoryEvent(type, item, warehouse, quantity);
+		} catch (final IllegalArgumentException e) {
+			throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+		}
+	}
+}
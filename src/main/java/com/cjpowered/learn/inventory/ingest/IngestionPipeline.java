@@ -0,0 +1,388 @@
+package com.cjpowered.learn.inventory.ingest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.cjpowered.learn.inventory.InventoryWriter;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Applies sales, receipts and adjustments to inventory in micro-batches.
+ * Producers submit events into a bounded queue; one drain thread collects up
+ * to a batch or a delay's worth of events, nets them per item and warehouse,
+ * and hands the totals to the writer in a single bulk call. A full queue
+ * blocks producers, which bounds how far the inventory can lag behind.
+ * Events for items the writer does not stock are refused on submit. A bulk
+ * write the writer rejects is split until the rejected changes are isolated;
+ * those go to a dead-letter sink and the rest land. Any other failed write
+ * keeps its netted totals and is retried with the next batch, so no change
+ * is lost or counted as applied before it lands. If the drain thread fails,
+ * the pipeline stops accepting events and reports the failure.
+ */
+public final class IngestionPipeline implements AutoCloseable {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final InventoryWriter writer;
+	private final DeadLetterSink deadLetters;
+	private final BlockingQueue<InventoryEvent> queue;
+	private final int maxBatch;
+	private final long maxDelayNanos;
+	private final Thread drainer;
+	private final Object progress = new Object();
+	private final LongAdder submitted = new LongAdder();
+	private volatile boolean running = true;
+	private volatile long applied;
+	private volatile long rejected;
+	private volatile long batches;
+	private volatile RuntimeException failure;
+
+	// reused by the drain thread only; per item and warehouse, the netted
+	// on-hand and on-order changes and the number of events behind them
+	private final Map<Item, int[]> totals = new IdentityHashMap<>();
+	private long netted;
+	private long settledApplied;
+	private long settledRejected;
+	private Item[] items = new Item[0];
+	private Warehouse[] warehouses = new Warehouse[0];
+	private int[] onHandDeltas = new int[0];
+	private int[] onOrderDeltas = new int[0];
+
+	private IngestionPipeline(final InventoryWriter writer, final DeadLetterSink deadLetters,
+			final int queueCapacity, final int maxBatch, final long maxDelay, final TimeUnit unit) {
+		this.writer = writer;
+		this.deadLetters = deadLetters;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.maxBatch = maxBatch;
+		this.maxDelayNanos = unit.toNanos(maxDelay);
+		this.drainer = new Thread(this::drain, "inventory-ingestion");
+		this.drainer.setDaemon(true);
+	}
+
+	/**
+	 * Start a pipeline.
+	 *
+	 * @param writer
+	 *            receives netted changes
+	 *
+	 * @param queueCapacity
+	 *            events that may wait before producers block
+	 *
+	 * @param maxBatch
+	 *            most events netted into one bulk write
+	 *
+	 * @param maxDelay
+	 *            longest an event waits for its batch to fill
+	 *
+	 * @param unit
+	 *            unit of the delay
+	 *
+	 * @return running pipeline
+	 */
+	public static IngestionPipeline start(final InventoryWriter writer, final int queueCapacity, final int maxBatch,
+			final long maxDelay, final TimeUnit unit) {
+		return start(writer, (item, warehouse, onHandDelta, onOrderDelta, events, cause) -> {
+			// counted in rejected()
+		}, queueCapacity, maxBatch, maxDelay, unit);
+	}
+
+	/**
+	 * Start a pipeline.
+	 *
+	 * @param writer
+	 *            receives netted changes
+	 *
+	 * @param deadLetters
+	 *            receives netted changes the writer rejected
+	 *
+	 * @param queueCapacity
+	 *            events that may wait before producers block
+	 *
+	 * @param maxBatch
+	 *            most events netted into one bulk write
+	 *
+	 * @param maxDelay
+	 *            longest an event waits for its batch to fill
+	 *
+	 * @param unit
+	 *            unit of the delay
+	 *
+	 * @return running pipeline
+	 */
+	public static IngestionPipeline start(final InventoryWriter writer, final DeadLetterSink deadLetters,
+			final int queueCapacity, final int maxBatch, final long maxDelay, final TimeUnit unit) {
+		final IngestionPipeline pipeline = new IngestionPipeline(writer, deadLetters, queueCapacity, maxBatch,
+				maxDelay, unit);
+		pipeline.drainer.start();
+		return pipeline;
+	}
+
+	/**
+	 * Queue an event, waiting for room if the queue is full.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the writer does not stock the event's item
+	 *
+	 * @throws IllegalStateException
+	 *             if the pipeline was closed or its drain thread failed
+	 */
+	public void submit(final InventoryEvent event) throws InterruptedException {
+		if (!running) {
+			throw new IllegalStateException("pipeline closed", failure);
+		}
+		if (!writer.stocks(event.item)) {
+			throw new IllegalArgumentException("item not stocked: " + event.item);
+		}
+		queue.put(event);
+		submitted.increment();
+	}
+
+	/**
+	 * Queue events in order, waiting for room as needed.
+	 */
+	public void submitAll(final Collection<InventoryEvent> events) throws InterruptedException {
+		for (final InventoryEvent event : events) {
+			submit(event);
+		}
+	}
+
+	/**
+	 * Wait until every event submitted so far has been applied or rejected.
+	 *
+	 * @return false if the timeout passed first
+	 *
+	 * @throws IllegalStateException
+	 *             if the last bulk write failed and has not been retried yet,
+	 *             or the drain thread failed
+	 */
+	public boolean awaitApplied(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		final long target = submitted.sum();
+		synchronized (progress) {
+			while (applied + rejected < target) {
+				checkFailure();
+				final long wait = deadline - System.nanoTime();
+				if (wait <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(progress, wait);
+			}
+			checkFailure();
+			return true;
+		}
+	}
+
+	/**
+	 * @return events applied so far
+	 */
+	public long applied() {
+		return applied;
+	}
+
+	/**
+	 * @return events whose changes went to the dead-letter sink
+	 */
+	public long rejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return bulk writes made so far
+	 */
+	public long batches() {
+		return batches;
+	}
+
+	/**
+	 * Stop accepting events, apply what is queued and stop the drain thread.
+	 *
+	 * @throws IllegalStateException
+	 *             if some events could not be applied
+	 */
+	@Override
+	public void close() {
+		running = false;
+		boolean interrupted = false;
+		while (drainer.isAlive()) {
+			try {
+				drainer.join();
+			} catch (final InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		final long lost = netted + queue.size();
+		if (lost > 0) {
+			throw new IllegalStateException(lost + " events not applied", failure);
+		}
+	}
+
+	private void drain() {
+		final List<InventoryEvent> batch = new ArrayList<>(maxBatch);
+		try {
+			while (running || !queue.isEmpty()) {
+				final InventoryEvent first = queue.poll(maxDelayNanos, TimeUnit.NANOSECONDS);
+				if (first == null) {
+					if (netted > 0) {
+						// retry a failed write once the queue goes quiet
+						apply(batch);
+					}
+					continue;
+				}
+				batch.add(first);
+				final long deadline = System.nanoTime() + maxDelayNanos;
+				while (batch.size() < maxBatch) {
+					if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+						continue;
+					}
+					final long wait = deadline - System.nanoTime();
+					final InventoryEvent next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				apply(batch);
+				batch.clear();
+			}
+			if (netted > 0) {
+				apply(batch);
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (final RuntimeException e) {
+			synchronized (progress) {
+				failure = e;
+				running = false;
+				progress.notifyAll();
+			}
+		}
+	}
+
+	private void apply(final List<InventoryEvent> batch) {
+		for (final InventoryEvent event : batch) {
+			final int[] itemTotals = totals.computeIfAbsent(event.item, k -> new int[3 * WAREHOUSES.length]);
+			final int slot = 3 * event.warehouse.ordinal();
+			itemTotals[slot] += event.onHandDelta();
+			itemTotals[slot + 1] += event.onOrderDelta();
+			itemTotals[slot + 2]++;
+		}
+		netted += batch.size();
+
+		int count = 0;
+		ensureCapacity(totals.size() * WAREHOUSES.length);
+		for (final Map.Entry<Item, int[]> entry : totals.entrySet()) {
+			final int[] itemTotals = entry.getValue();
+			for (final Warehouse warehouse : WAREHOUSES) {
+				final int slot = 3 * warehouse.ordinal();
+				if (itemTotals[slot] != 0 || itemTotals[slot + 1] != 0) {
+					items[count] = entry.getKey();
+					warehouses[count] = warehouse;
+					onHandDeltas[count] = itemTotals[slot];
+					onOrderDeltas[count] = itemTotals[slot + 1];
+					count++;
+				} else if (itemTotals[slot + 2] > 0) {
+					// events that cancel out need no write
+					settledApplied += itemTotals[slot + 2];
+					netted -= itemTotals[slot + 2];
+					itemTotals[slot + 2] = 0;
+				}
+			}
+		}
+
+		final RuntimeException error = count == 0 ? null : write(0, count);
+		Arrays.fill(items, 0, count, null);
+		totals.values().removeIf(IngestionPipeline::settled);
+		synchronized (progress) {
+			// only the drain thread writes these
+			applied += settledApplied;
+			rejected += settledRejected;
+			settledApplied = 0;
+			settledRejected = 0;
+			failure = error;
+			progress.notifyAll();
+		}
+	}
+
+	// writes entries [from, to), isolating rejected ones; returns a failure
+	// to retry later
+	private RuntimeException write(final int from, final int to) {
+		try {
+			if (from == 0) {
+				writer.applyDeltas(items, warehouses, onHandDeltas, onOrderDeltas, to);
+			} else {
+				writer.applyDeltas(Arrays.copyOfRange(items, from, to), Arrays.copyOfRange(warehouses, from, to),
+						Arrays.copyOfRange(onHandDeltas, from, to), Arrays.copyOfRange(onOrderDeltas, from, to),
+						to - from);
+			}
+			batches++;
+			settle(from, to, false);
+			return null;
+		} catch (final IllegalArgumentException e) {
+			if (to - from == 1) {
+				final int[] itemTotals = totals.get(items[from]);
+				deadLetters.rejected(items[from], warehouses[from], onHandDeltas[from], onOrderDeltas[from],
+						itemTotals[3 * warehouses[from].ordinal() + 2], e);
+				settle(from, to, true);
+				return null;
+			}
+			final int middle = (from + to) >>> 1;
+			final RuntimeException left = write(from, middle);
+			final RuntimeException right = write(middle, to);
+			return left != null ? left : right;
+		} catch (final RuntimeException e) {
+			return e;
+		}
+	}
+
+	private void settle(final int from, final int to, final boolean rejected) {
+		for (int k = from; k < to; k++) {
+			final int[] itemTotals = totals.get(items[k]);
+			final int slot = 3 * warehouses[k].ordinal();
+			if (rejected) {
+				settledRejected += itemTotals[slot + 2];
+			} else {
+				settledApplied += itemTotals[slot + 2];
+			}
+			netted -= itemTotals[slot + 2];
+			itemTotals[slot] = 0;
+			itemTotals[slot + 1] = 0;
+			itemTotals[slot + 2] = 0;
+		}
+	}
+
+	private static boolean settled(final int[] itemTotals) {
+		for (int slot = 2; slot < itemTotals.length; slot += 3) {
+			if (itemTotals[slot] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void ensureCapacity(final int size) {
+		if (items.length < size) {
+			items = new Item[size];
+			warehouses = new Warehouse[size];
+			onHandDeltas = new int[size];
+			onOrderDeltas = new int[size];
+		}
+	}
+
+	private void checkFailure() {
+		if (failure != null) {
+			throw new IllegalStateException("bulk write failed", failure);
+		}
+	}
+}
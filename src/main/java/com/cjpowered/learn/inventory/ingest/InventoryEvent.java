@@ -0,0 +1,79 @@
+package com.cjpowered.learn.inventory.ingest;
+
+import java.util.Objects;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Something that happened to stock: a sale, a goods receipt, or a manual
+ * adjustment.
+ */
+public final class InventoryEvent {
+
+	public enum Type {
+
+		/**
+		 * units left the shelf
+		 */
+		SALE,
+
+		/**
+		 * ordered units arrived
+		 */
+		RECEIPT,
+
+		/**
+		 * units counted in or written off; quantity may be negative
+		 */
+		ADJUSTMENT;
+	}
+
+	/**
+	 * kind of event
+	 */
+	public final Type type;
+
+	/**
+	 * item affected
+	 */
+	public final Item item;
+
+	/**
+	 * warehouse affected
+	 */
+	public final Warehouse warehouse;
+
+	/**
+	 * units involved
+	 */
+	public final int quantity;
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if a sale or receipt has a negative quantity
+	 */
+	public InventoryEvent(final Type type, final Item item, final Warehouse warehouse, final int quantity) {
+		this.type = Objects.requireNonNull(type, "type");
+		this.item = Objects.requireNonNull(item, "item");
+		this.warehouse = Objects.requireNonNull(warehouse, "warehouse");
+		if (quantity < 0 && type != Type.ADJUSTMENT) {
+			throw new IllegalArgumentException("negative " + type + " quantity: " + quantity);
+		}
+		this.quantity = quantity;
+	}
+
+	/**
+	 * @return change this event makes to the number on hand
+	 */
+	public int onHandDelta() {
+		return type == Type.SALE ? -quantity : quantity;
+	}
+
+	/**
+	 * @return change this event makes to the number on order
+	 */
+	public int onOrderDelta() {
+		return type == Type.RECEIPT ? -quantity : 0;
+	}
+}
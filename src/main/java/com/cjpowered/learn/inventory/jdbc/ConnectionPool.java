@@ -0,0 +1,150 @@
+package com.cjpowered.learn.inventory.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-size pool of JDBC connections opened up front. Each pooled connection
+ * keeps its prepared statements, so a statement is parsed once per
+ * connection rather than once per call. Each borrow hands out a fresh
+ * {@link Pooled} lease, so closing a lease twice returns the connection once.
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+	private final List<Slot> all = new ArrayList<>();
+	private final BlockingQueue<Slot> idle;
+	private final long timeoutNanos;
+
+	/**
+	 * Open the pool.
+	 *
+	 * @param url
+	 *            JDBC url
+	 *
+	 * @param size
+	 *            number of connections
+	 *
+	 * @param timeout
+	 *            longest to wait for a free connection
+	 *
+	 * @param unit
+	 *            unit of the timeout
+	 *
+	 * @throws SQLException
+	 *             if a connection cannot be opened
+	 */
+	public ConnectionPool(final String url, final String user, final String password, final int size,
+			final long timeout, final TimeUnit unit) throws SQLException {
+		if (size < 1) {
+			throw new IllegalArgumentException("pool size must be positive: " + size);
+		}
+		this.idle = new ArrayBlockingQueue<>(size);
+		this.timeoutNanos = unit.toNanos(timeout);
+		try {
+			for (int i = 0; i < size; i++) {
+				final Slot slot = new Slot(DriverManager.getConnection(url, user, password));
+				all.add(slot);
+				idle.add(slot);
+			}
+		} catch (final SQLException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Borrow a connection; give it back with {@link Pooled#close()}.
+	 *
+	 * @throws SQLException
+	 *             if none became free within the timeout
+	 */
+	public Pooled borrow() throws SQLException {
+		try {
+			final Slot slot = idle.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+			if (slot == null) {
+				throw new SQLException("no free connection");
+			}
+			return new Pooled(slot);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("interrupted waiting for a connection", e);
+		}
+	}
+
+	/**
+	 * Close every connection, borrowed or not.
+	 */
+	@Override
+	public void close() {
+		for (final Slot slot : all) {
+			try {
+				slot.connection.close();
+			} catch (final SQLException e) {
+				// closing anyway
+			}
+		}
+	}
+
+	// a connection and the statements prepared on it
+	private static final class Slot {
+
+		final Connection connection;
+		final Map<String, PreparedStatement> statements = new HashMap<>();
+
+		Slot(final Connection connection) {
+			this.connection = connection;
+		}
+	}
+
+	/**
+	 * Borrowed connection.
+	 */
+	public final class Pooled implements AutoCloseable {
+
+		private final Slot slot;
+		private boolean closed;
+
+		private Pooled(final Slot slot) {
+			this.slot = slot;
+		}
+
+		/**
+		 * @return the underlying connection
+		 */
+		public Connection connection() {
+			return slot.connection;
+		}
+
+		/**
+		 * @return statement for the sql, prepared on first use
+		 */
+		public PreparedStatement prepare(final String sql) throws SQLException {
+			PreparedStatement statement = slot.statements.get(sql);
+			if (statement == null) {
+				statement = slot.connection.prepareStatement(sql);
+				slot.statements.put(sql, statement);
+			}
+			return statement;
+		}
+
+		/**
+		 * Return the connection to the pool; later calls do nothing.
+		 */
+		@Override
+		public void close() {
+			if (!closed) {
+				closed = true;
+				idle.add(slot);
+			}
+		}
+	}
+}
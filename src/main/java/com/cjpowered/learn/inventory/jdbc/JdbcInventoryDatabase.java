@@ -0,0 +1,428 @@
+package com.cjpowered.learn.inventory.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Database backed by a relational table, one row per item and warehouse:
+ * {@code inventory_level(item_id, warehouse, on_hand, on_order,
+ * required_on_hand)}. All statements are prepared once per pooled connection.
+ * <p>
+ * {@link #prefetch(List)} loads the levels of a whole chunk of items with one
+ * set-based query per {@value #FETCH_SIZE} items; the prefetched levels then
+ * answer every read, single or bulk, until the calling thread's next prefetch
+ * or {@link #flush()}, so the passes of one chunk share a single fetch and a
+ * finished run leaves nothing stale behind. Every thread has its own prefetch
+ * window, so concurrent planning passes do not displace each other's.
+ * Required-level changes are buffered and written as one JDBC batch when the
+ * buffer fills, before each prefetch, and on {@link #flush()} or
+ * {@link #close()}; bulk changes go out as one batch straight away. A change
+ * for an item and warehouse without a row inserts one.
+ * <p>
+ * Failures surface as {@link IllegalStateException} wrapping the
+ * {@link SQLException}. The warehouse-less overloads act on
+ * {@link Warehouse#home()}.
+ */
+public final class JdbcInventoryDatabase implements InventoryDatabase, AutoCloseable {
+
+	/**
+	 * item keys bound per bulk query
+	 */
+	public static final int FETCH_SIZE = 128;
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS inventory_level ("
+			+ "item_id BIGINT NOT NULL, warehouse VARCHAR(32) NOT NULL, on_hand INT DEFAULT 0 NOT NULL, "
+			+ "on_order INT DEFAULT 0 NOT NULL, required_on_hand INT DEFAULT 0 NOT NULL, "
+			+ "PRIMARY KEY (item_id, warehouse))";
+	private static final String SELECT_ITEMS = "SELECT DISTINCT item_id FROM inventory_level ORDER BY item_id";
+	private static final String SELECT_ON_HAND = "SELECT on_hand FROM inventory_level "
+			+ "WHERE item_id = ? AND warehouse = ?";
+	private static final String SELECT_ON_ORDER = "SELECT on_order FROM inventory_level "
+			+ "WHERE item_id = ? AND warehouse = ?";
+	private static final String SELECT_REQUIRED = "SELECT required_on_hand FROM inventory_level "
+			+ "WHERE item_id = ? AND warehouse = ?";
+	private static final String SELECT_CHUNK = selectChunk();
+	private static final String UPDATE_REQUIRED = "UPDATE inventory_level SET required_on_hand = ? "
+			+ "WHERE item_id = ? AND warehouse = ?";
+	private static final String UPDATE_LEVELS = "UPDATE inventory_level "
+			+ "SET on_hand = ?, on_order = ?, required_on_hand = ? WHERE item_id = ? AND warehouse = ?";
+	private static final String INSERT_LEVELS = "INSERT INTO inventory_level "
+			+ "(on_hand, on_order, required_on_hand, item_id, warehouse) VALUES (?, ?, ?, ?, ?)";
+
+	private final ConnectionPool pool;
+	private final ItemKey keys;
+	private final LongFunction<Item> items;
+	private final ThreadLocal<Map<Long, Levels>> window = ThreadLocal.withInitial(Collections::emptyMap);
+	private final Object pendingLock = new Object();
+	private final long[] pendingKeys;
+	private final Warehouse[] pendingWarehouses;
+	private final int[] pendingAmounts;
+	private int pendingCount;
+
+	/**
+	 * @param pool
+	 *            connections to use; not closed by this database
+	 *
+	 * @param keys
+	 *            maps items to {@code item_id}
+	 *
+	 * @param items
+	 *            maps {@code item_id} back to items
+	 *
+	 * @param batchSize
+	 *            required-level changes buffered before a write
+	 */
+	public JdbcInventoryDatabase(final ConnectionPool pool, final ItemKey keys, final LongFunction<Item> items,
+			final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+		}
+		this.pool = pool;
+		this.keys = keys;
+		this.items = items;
+		this.pendingKeys = new long[batchSize];
+		this.pendingWarehouses = new Warehouse[batchSize];
+		this.pendingAmounts = new int[batchSize];
+	}
+
+	/**
+	 * Create the levels table if it does not exist.
+	 */
+	public void createTable() {
+		try (ConnectionPool.Pooled pooled = pool.borrow();
+				Statement statement = pooled.connection().createStatement()) {
+			statement.execute(CREATE_TABLE);
+		} catch (final SQLException e) {
+			throw new IllegalStateException("create table failed", e);
+		}
+	}
+
+	/**
+	 * Insert or replace the row for an item in a warehouse.
+	 */
+	public void putLevels(final Item item, final Warehouse warehouse, final int onHand, final int onOrder,
+			final int requiredOnHand) {
+		try (ConnectionPool.Pooled pooled = pool.borrow()) {
+			PreparedStatement statement = pooled.prepare(UPDATE_LEVELS);
+			bindLevels(statement, keys.keyOf(item), warehouse, onHand, onOrder, requiredOnHand);
+			if (statement.executeUpdate() == 0) {
+				statement = pooled.prepare(INSERT_LEVELS);
+				bindLevels(statement, keys.keyOf(item), warehouse, onHand, onOrder, requiredOnHand);
+				statement.executeUpdate();
+			}
+		} catch (final SQLException e) {
+			throw new IllegalStateException("write failed", e);
+		}
+	}
+
+	@Override
+	public List<Item> stockItems() {
+		final List<Item> stocked = new ArrayList<>();
+		try (ConnectionPool.Pooled pooled = pool.borrow();
+				ResultSet rows = pooled.prepare(SELECT_ITEMS).executeQuery()) {
+			while (rows.next()) {
+				final long key = rows.getLong(1);
+				final Item item = items.apply(key);
+				if (item == null) {
+					throw new IllegalStateException("unknown item id: " + key);
+				}
+				stocked.add(item);
+			}
+		} catch (final SQLException e) {
+			throw new IllegalStateException("query failed", e);
+		}
+		return stocked;
+	}
+
+	@Override
+	public void prefetch(final List<Item> chunk) {
+		writePending();
+		final Map<Long, Levels> fetched = new HashMap<>(chunk.size() * 2);
+		for (final Item item : chunk) {
+			fetched.put(keys.keyOf(item), new Levels());
+		}
+		fetch(fetched);
+		window.set(fetched);
+	}
+
+	/**
+	 * Answer from prefetched levels where there are some, and fetch the rest
+	 * with set-based queries.
+	 */
+	@Override
+	public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand, final int count) {
+		readAll(true, items, warehouses, onHand, count);
+	}
+
+	/**
+	 * Answer from prefetched levels where there are some, and fetch the rest
+	 * with set-based queries.
+	 */
+	@Override
+	public void onOrder(final Item[] items, final Warehouse[] warehouses, final int[] onOrder, final int count) {
+		readAll(false, items, warehouses, onOrder, count);
+	}
+
+	@Override
+	public int onHand(final Item item) {
+		return onHand(item, Warehouse.home());
+	}
+
+	@Override
+	public int onHand(final Item item, final Warehouse warehouse) {
+		final long key = keys.keyOf(item);
+		final Levels levels = window.get().get(key);
+		return levels != null ? levels.onHand[warehouse.ordinal()] : select(SELECT_ON_HAND, key, warehouse);
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public int onOrder(final Item item) {
+		return onOrder(item, Warehouse.home());
+	}
+
+	@Override
+	public int onOrder(final Item item, final Warehouse warehouse) {
+		final long key = keys.keyOf(item);
+		final Levels levels = window.get().get(key);
+		return levels != null ? levels.onOrder[warehouse.ordinal()] : select(SELECT_ON_ORDER, key, warehouse);
+	}
+
+	/**
+	 * Fetch the required on-hand amount, writing buffered changes first.
+	 */
+	public int requiredOnHand(final Item item, final Warehouse warehouse) {
+		writePending();
+		return select(SELECT_REQUIRED, keys.keyOf(item), warehouse);
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final int newAmount) {
+		setRequiredOnHand(item, Warehouse.home(), newAmount);
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+		final long key = keys.keyOf(item);
+		synchronized (pendingLock) {
+			// make room first, so a failed write leaves the buffer as it was
+			if (pendingCount == pendingKeys.length) {
+				writePending();
+			}
+			pendingKeys[pendingCount] = key;
+			pendingWarehouses[pendingCount] = warehouse;
+			pendingAmounts[pendingCount] = newAmount;
+			pendingCount++;
+		}
+	}
+
+	/**
+	 * Write the changes in one batch and transaction, after any buffered ones.
+	 */
+	@Override
+	public void setRequiredOnHand(final Item[] items, final Warehouse[] warehouses, final int[] newAmounts,
+			final int count) {
+		final long[] itemKeys = new long[count];
+		final Warehouse[] resolved = new Warehouse[count];
+		for (int i = 0; i < count; i++) {
+			itemKeys[i] = keys.keyOf(items[i]);
+			resolved[i] = warehouses[i] == null ? Warehouse.home() : warehouses[i];
+		}
+		synchronized (pendingLock) {
+			writePending();
+			writeRequired(itemKeys, resolved, newAmounts, count);
+		}
+	}
+
+	/**
+	 * Write buffered required-level changes in one transaction and drop the
+	 * calling thread's prefetched levels. On failure the changes stay
+	 * buffered.
+	 */
+	@Override
+	public void flush() {
+		window.remove();
+		writePending();
+	}
+
+	/**
+	 * Write buffered changes. The pool stays open.
+	 */
+	@Override
+	public void close() {
+		flush();
+	}
+
+	private void writePending() {
+		synchronized (pendingLock) {
+			if (pendingCount == 0) {
+				return;
+			}
+			writeRequired(pendingKeys, pendingWarehouses, pendingAmounts, pendingCount);
+			pendingCount = 0;
+		}
+	}
+
+	private void writeRequired(final long[] itemKeys, final Warehouse[] warehouses, final int[] amounts,
+			final int count) {
+		if (count == 0) {
+			return;
+		}
+		try (ConnectionPool.Pooled pooled = pool.borrow()) {
+			final Connection connection = pooled.connection();
+			final PreparedStatement statement = pooled.prepare(UPDATE_REQUIRED);
+			connection.setAutoCommit(false);
+			try {
+				for (int i = 0; i < count; i++) {
+					statement.setInt(1, amounts[i]);
+					statement.setLong(2, itemKeys[i]);
+					statement.setString(3, warehouses[i].name());
+					statement.addBatch();
+				}
+				final int[] updated = statement.executeBatch();
+				for (int i = 0; i < count; i++) {
+					// one at a time, so a key repeated in the batch inserts once
+					if (updated[i] == 0) {
+						upsertRequired(pooled, itemKeys[i], warehouses[i], amounts[i]);
+					}
+				}
+				connection.commit();
+			} catch (final SQLException e) {
+				statement.clearBatch();
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		} catch (final SQLException e) {
+			throw new IllegalStateException("batch update failed", e);
+		}
+	}
+
+	private static void upsertRequired(final ConnectionPool.Pooled pooled, final long key, final Warehouse warehouse,
+			final int amount) throws SQLException {
+		final PreparedStatement update = pooled.prepare(UPDATE_REQUIRED);
+		update.setInt(1, amount);
+		update.setLong(2, key);
+		update.setString(3, warehouse.name());
+		if (update.executeUpdate() == 0) {
+			final PreparedStatement insert = pooled.prepare(INSERT_LEVELS);
+			bindLevels(insert, key, warehouse, 0, 0, amount);
+			insert.executeUpdate();
+		}
+	}
+
+	private void readAll(final boolean onHand, final Item[] items, final Warehouse[] warehouses,
+			final int[] amounts, final int count) {
+		final Map<Long, Levels> prefetched = window.get();
+		final long[] itemKeys = new long[count];
+		final boolean[] missed = new boolean[count];
+		Map<Long, Levels> fetched = null;
+		for (int i = 0; i < count; i++) {
+			itemKeys[i] = keys.keyOf(items[i]);
+			final int w = (warehouses[i] == null ? Warehouse.home() : warehouses[i]).ordinal();
+			final Levels levels = prefetched.get(itemKeys[i]);
+			if (levels != null) {
+				amounts[i] = onHand ? levels.onHand[w] : levels.onOrder[w];
+			} else {
+				if (fetched == null) {
+					fetched = new HashMap<>();
+				}
+				fetched.putIfAbsent(itemKeys[i], new Levels());
+				missed[i] = true;
+			}
+		}
+		if (fetched == null) {
+			return;
+		}
+		fetch(fetched);
+		for (int i = 0; i < count; i++) {
+			if (missed[i]) {
+				final int w = (warehouses[i] == null ? Warehouse.home() : warehouses[i]).ordinal();
+				final Levels levels = fetched.get(itemKeys[i]);
+				amounts[i] = onHand ? levels.onHand[w] : levels.onOrder[w];
+			}
+		}
+	}
+
+	// fills the levels of every key in the map
+	private void fetch(final Map<Long, Levels> fetched) {
+		final long[] pending = new long[fetched.size()];
+		int count = 0;
+		for (final Long key : fetched.keySet()) {
+			pending[count++] = key;
+		}
+		try (ConnectionPool.Pooled pooled = pool.borrow()) {
+			final PreparedStatement statement = pooled.prepare(SELECT_CHUNK);
+			for (int from = 0; from < count; from += FETCH_SIZE) {
+				// pad the last round with a repeated key to reuse one statement
+				for (int i = 0; i < FETCH_SIZE; i++) {
+					statement.setLong(i + 1, pending[Math.min(from + i, count - 1)]);
+				}
+				try (ResultSet rows = statement.executeQuery()) {
+					while (rows.next()) {
+						final Levels levels = fetched.get(rows.getLong(1));
+						final int w = Warehouse.valueOf(rows.getString(2)).ordinal();
+						levels.onHand[w] = rows.getInt(3);
+						levels.onOrder[w] = rows.getInt(4);
+					}
+				}
+			}
+		} catch (final SQLException e) {
+			throw new IllegalStateException("query failed", e);
+		}
+	}
+
+	private int select(final String sql, final long key, final Warehouse warehouse) {
+		try (ConnectionPool.Pooled pooled = pool.borrow()) {
+			final PreparedStatement statement = pooled.prepare(sql);
+			statement.setLong(1, key);
+			statement.setString(2, warehouse.name());
+			try (ResultSet rows = statement.executeQuery()) {
+				return rows.next() ? rows.getInt(1) : 0;
+			}
+		} catch (final SQLException e) {
+			throw new IllegalStateException("query failed", e);
+		}
+	}
+
+	private static void bindLevels(final PreparedStatement statement, final long key, final Warehouse warehouse,
+			final int onHand, final int onOrder, final int requiredOnHand) throws SQLException {
+		statement.setInt(1, onHand);
+		statement.setInt(2, onOrder);
+		statement.setInt(3, requiredOnHand);
+		statement.setLong(4, key);
+		statement.setString(5, warehouse.name());
+	}
+
+	private static String selectChunk() {
+		final StringBuilder sql = new StringBuilder(
+				"SELECT item_id, warehouse, on_hand, on_order FROM inventory_level WHERE item_id IN (?");
+		for (int i = 1; i < FETCH_SIZE; i++) {
+			sql.append(", ?");
+		}
+		return sql.append(')').toString();
+	}
+
+	private static final class Levels {
+
+		final int[] onHand = new int[WAREHOUSES.length];
+		final int[] onOrder = new int[WAREHOUSES.length];
+	}
+}
@@ -0,0 +1,335 @@
+package com.cjpowered.learn.inventory.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryEvents;
+import com.cjpowered.learn.inventory.InventoryWriter;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Lock-free in-memory database. Each registered item gets a dense id; its
+ * on-hand, on-order and required levels live in atomic integer arrays at
+ * {@code id * warehouses + warehouse}. Reads are single volatile loads and
+ * updates are CAS-based, so point-of-sale updates and planning reads never
+ * block each other. Capacity is fixed at construction.
+ * <p>
+ * The warehouse-less overloads act on {@link Warehouse#home()}.
+ */
+public final class ConcurrentInventoryDatabase implements InventoryDatabase, InventoryWriter {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final int capacity;
+	private final ConcurrentMap<Item, Integer> ids = new ConcurrentHashMap<>();
+	private final AtomicReferenceArray<Item> items;
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final AtomicIntegerArray onHand;
+	private final AtomicIntegerArray onOrder;
+	private final AtomicIntegerArray required;
+	private final InventoryEvents events;
+
+	public ConcurrentInventoryDatabase(final int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * @param events
+	 *            receives every on-hand and on-order change, may be null
+	 */
+	public ConcurrentInventoryDatabase(final int capacity, final InventoryEvents events) {
+		this.capacity = capacity;
+		this.items = new AtomicReferenceArray<>(capacity);
+		this.onHand = new AtomicIntegerArray(capacity * WAREHOUSES.length);
+		this.onOrder = new AtomicIntegerArray(capacity * WAREHOUSES.length);
+		this.required = new AtomicIntegerArray(capacity * WAREHOUSES.length);
+		this.events = events;
+	}
+
+	/**
+	 * Register an item, with its required levels taken from its normal levels.
+	 * Registering an item again returns its existing id.
+	 *
+	 * @param item
+	 *            item to stock
+	 *
+	 * @return dense id of the item
+	 *
+	 * @throws IllegalStateException
+	 *             if the database is full
+	 */
+	public int add(final Item item) {
+		return ids.computeIfAbsent(item, k -> {
+			final int id = nextId.getAndIncrement();
+			if (id >= capacity) {
+				nextId.decrementAndGet();
+				throw new IllegalStateException("database full at " + capacity + " items");
+			}
+			for (final Warehouse warehouse : WAREHOUSES) {
+				required.set(slot(id, warehouse), k.wantOnHand(warehouse));
+			}
+			items.set(id, k);
+			return id;
+		});
+	}
+
+	/**
+	 * @param item
+	 *            registered item
+	 *
+	 * @return dense id of the item
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the item is not registered
+	 */
+	public int idOf(final Item item) {
+		final Integer id = ids.get(item);
+		if (id == null) {
+			throw new IllegalArgumentException("item not stocked: " + item);
+		}
+		return id;
+	}
+
+	/**
+	 * @return dense ids as stable item keys
+	 */
+	public ItemKey itemKey() {
+		return this::idOf;
+	}
+
+	/**
+	 * @param id
+	 *            dense id
+	 *
+	 * @return item registered under the id
+	 */
+	public Item item(final int id) {
+		return items.get(id);
+	}
+
+	/**
+	 * @return number of registered items
+	 */
+	public int size() {
+		return Math.min(nextId.get(), capacity);
+	}
+
+	@Override
+	public List<Item> stockItems() {
+		final int size = size();
+		final List<Item> stocked = new ArrayList<>(size);
+		for (int id = 0; id < size; id++) {
+			final Item item = items.get(id);
+			if (item != null) {
+				stocked.add(item);
+			}
+		}
+		return stocked;
+	}
+
+	@Override
+	public int onHand(final Item item) {
+		return onHand(item, Warehouse.home());
+	}
+
+	@Override
+	public int onHand(final Item item, final Warehouse warehouse) {
+		return onHand.get(slot(idOf(item), warehouse));
+	}
+
+	/**
+	 * Fetch number on-hand by id.
+	 */
+	public int onHand(final int id, final Warehouse warehouse) {
+		return onHand.get(slot(id, warehouse));
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public int onOrder(final Item item) {
+		return onOrder(item, Warehouse.home());
+	}
+
+	@Override
+	public int onOrder(final Item item, final Warehouse warehouse) {
+		return onOrder.get(slot(idOf(item), warehouse));
+	}
+
+	/**
+	 * Fetch number on order by id.
+	 */
+	public int onOrder(final int id, final Warehouse warehouse) {
+		return onOrder.get(slot(id, warehouse));
+	}
+
+	/**
+	 * Fetch the required on-hand amount.
+	 */
+	public int requiredOnHand(final Item item, final Warehouse warehouse) {
+		return required.get(slot(idOf(item), warehouse));
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final int newAmount) {
+		setRequiredOnHand(item, Warehouse.home(), newAmount);
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+		required.set(slot(idOf(item), warehouse), newAmount);
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item[] items, final Warehouse[] warehouses, final int[] newAmounts,
+			final int count) {
+		for (int i = 0; i < count; i++) {
+			required.set(slot(idOf(items[i]), orHome(warehouses[i])), newAmounts[i]);
+		}
+	}
+
+	@Override
+	public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand, final int count) {
+		for (int i = 0; i < count; i++) {
+			onHand[i] = this.onHand.get(slot(idOf(items[i]), orHome(warehouses[i])));
+		}
+	}
+
+	@Override
+	public void onOrder(final Item[] items, final Warehouse[] warehouses, final int[] onOrder, final int count) {
+		for (int i = 0; i < count; i++) {
+			onOrder[i] = this.onOrder.get(slot(idOf(items[i]), orHome(warehouses[i])));
+		}
+	}
+
+	/**
+	 * Replace the number on hand.
+	 */
+	public void setOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+		final int id = idOf(item);
+		onHand.set(slot(id, warehouse), newAmount);
+		publish(id, warehouse);
+	}
+
+	/**
+	 * Add to the number on hand; negative deltas remove units.
+	 *
+	 * @return new number on hand
+	 */
+	public int addOnHand(final int id, final Warehouse warehouse, final int delta) {
+		final int updated = onHand.addAndGet(slot(id, warehouse), delta);
+		publish(id, warehouse);
+		return updated;
+	}
+
+	/**
+	 * Add to the number on hand; negative deltas remove units.
+	 *
+	 * @return new number on hand
+	 */
+	public int addOnHand(final Item item, final Warehouse warehouse, final int delta) {
+		return addOnHand(idOf(item), warehouse, delta);
+	}
+
+	/**
+	 * Remove units from stock unless that would leave fewer than zero on hand.
+	 *
+	 * @return true if the units were removed
+	 */
+	public boolean tryRemoveOnHand(final int id, final Warehouse warehouse, final int quantity) {
+		final int slot = slot(id, warehouse);
+		int current;
+		do {
+			current = onHand.get(slot);
+			if (current < quantity) {
+				return false;
+			}
+		} while (!onHand.compareAndSet(slot, current, current - quantity));
+		publish(id, warehouse);
+		return true;
+	}
+
+	/**
+	 * Replace the number on order.
+	 */
+	public void setOnOrder(final Item item, final Warehouse warehouse, final int newAmount) {
+		final int id = idOf(item);
+		onOrder.set(slot(id, warehouse), newAmount);
+		publish(id, warehouse);
+	}
+
+	/**
+	 * Add to the number on order; negative deltas mark units received.
+	 *
+	 * @return new number on order
+	 */
+	public int addOnOrder(final int id, final Warehouse warehouse, final int delta) {
+		final int updated = onOrder.addAndGet(slot(id, warehouse), delta);
+		publish(id, warehouse);
+		return updated;
+	}
+
+	/**
+	 * Add to the number on order; negative deltas mark units received.
+	 *
+	 * @return new number on order
+	 */
+	public int addOnOrder(final Item item, final Warehouse warehouse, final int delta) {
+		return addOnOrder(idOf(item), warehouse, delta);
+	}
+
+	@Override
+	public void applyDeltas(final Item[] items, final Warehouse[] warehouses, final int[] onHandDeltas,
+			final int[] onOrderDeltas, final int count) {
+		// resolve every entry first so an unknown item rejects the whole batch
+		final int[] ids = new int[count];
+		final int[] slots = new int[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = idOf(items[i]);
+			slots[i] = slot(ids[i], orHome(warehouses[i]));
+		}
+		for (int i = 0; i < count; i++) {
+			if (onHandDeltas[i] != 0) {
+				onHand.addAndGet(slots[i], onHandDeltas[i]);
+			}
+			if (onOrderDeltas[i] != 0) {
+				onOrder.accumulateAndGet(slots[i], onOrderDeltas[i], ConcurrentInventoryDatabase::received);
+			}
+			publish(ids[i], orHome(warehouses[i]));
+		}
+	}
+
+	@Override
+	public boolean stocks(final Item item) {
+		return ids.containsKey(item);
+	}
+
+	private static int received(final int onOrder, final int delta) {
+		return delta < 0 ? Math.max(0, onOrder + delta) : onOrder + delta;
+	}
+
+	private void publish(final int id, final Warehouse warehouse) {
+		if (events != null) {
+			final int slot = slot(id, warehouse);
+			events.publish(items.get(id), warehouse, onHand.get(slot), onOrder.get(slot));
+		}
+	}
+
+	private static Warehouse orHome(final Warehouse warehouse) {
+		return warehouse == null ? Warehouse.home() : warehouse;
+	}
+
+	private int slot(final int id, final Warehouse warehouse) {
+		if (id < 0 || id >= capacity) {
+			throw new IllegalArgumentException("no such item id: " + id);
+		}
+		return id * WAREHOUSES.length + warehouse.ordinal();
+	}
+}
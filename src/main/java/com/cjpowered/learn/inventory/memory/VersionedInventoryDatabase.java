@@ -0,0 +1,435 @@
+package com.cjpowered.learn.inventory.memory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryWriter;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Warehouse;
+
+/**
+ * Multi-version in-memory database. Every on-hand/on-order change pushes a
+ * new version onto the item and warehouse's chain and stamps it from a global
+ * clock; {@link #pin()} hands out a {@link Snapshot} that sees exactly the
+ * changes stamped at or before its version, however long it is held. Writers
+ * only ever CAS a chain head, so they never wait on readers or on each other's
+ * locks. Versions older than the oldest pinned snapshot are unlinked as new
+ * ones are written.
+ * <p>
+ * Required levels are not versioned: snapshots write them straight through.
+ * The warehouse-less overloads act on {@link Warehouse#home()}.
+ */
+public final class VersionedInventoryDatabase implements InventoryDatabase, InventoryWriter {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private static final long PENDING = Long.MAX_VALUE;
+
+	private static final AtomicLongFieldUpdater<Version> STAMP = AtomicLongFieldUpdater.newUpdater(Version.class,
+			"stamp");
+
+	private static final Comparator<Snapshot> OLDEST_FIRST = Comparator.<Snapshot> comparingLong(s -> s.version)
+			.thenComparingLong(s -> s.id);
+
+	private final int capacity;
+	private final ConcurrentMap<Item, Integer> ids = new ConcurrentHashMap<>();
+	private final AtomicReferenceArray<Item> items;
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final AtomicReferenceArray<Version> cells;
+	private final AtomicIntegerArray required;
+	private final AtomicLong clock = new AtomicLong();
+	private final AtomicLong horizon = new AtomicLong();
+	private final AtomicLong snapshotIds = new AtomicLong();
+	private final ConcurrentSkipListMap<Snapshot, Boolean> pinned = new ConcurrentSkipListMap<>(OLDEST_FIRST);
+
+	public VersionedInventoryDatabase(final int capacity) {
+		this.capacity = capacity;
+		this.items = new AtomicReferenceArray<>(capacity);
+		this.cells = new AtomicReferenceArray<>(capacity * WAREHOUSES.length);
+		this.required = new AtomicIntegerArray(capacity * WAREHOUSES.length);
+	}
+
+	/**
+	 * Register an item with nothing on hand or on order, and its required
+	 * levels taken from its normal levels. Registering an item again returns
+	 * its existing id.
+	 *
+	 * @return dense id of the item
+	 *
+	 * @throws IllegalStateException
+	 *             if the database is full
+	 */
+	public int add(final Item item) {
+		return ids.computeIfAbsent(item, k -> {
+			final int id = nextId.getAndIncrement();
+			if (id >= capacity) {
+				nextId.decrementAndGet();
+				throw new IllegalStateException("database full at " + capacity + " items");
+			}
+			for (final Warehouse warehouse : WAREHOUSES) {
+				final int slot = slot(id, warehouse);
+				cells.set(slot, new Version(0, 0, 0, null));
+				required.set(slot, k.wantOnHand(warehouse));
+			}
+			items.set(id, k);
+			return id;
+		});
+	}
+
+	/**
+	 * @return dense id of a registered item
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the item is not registered
+	 */
+	public int idOf(final Item item) {
+		final Integer id = ids.get(item);
+		if (id == null) {
+			throw new IllegalArgumentException("item not stocked: " + item);
+		}
+		return id;
+	}
+
+	/**
+	 * @return number of registered items
+	 */
+	public int size() {
+		return Math.min(nextId.get(), capacity);
+	}
+
+	/**
+	 * @return latest stamped version; changes after it are not yet visible
+	 *         to new snapshots
+	 */
+	public long version() {
+		return clock.get();
+	}
+
+	/**
+	 * Pin the current version. Close the snapshot when the run is over so the
+	 * versions it holds can be reclaimed.
+	 *
+	 * @return consistent read view
+	 */
+	public Snapshot pin() {
+		final long id = snapshotIds.incrementAndGet();
+		while (true) {
+			final Snapshot snapshot = new Snapshot(clock.get(), id, size());
+			pinned.put(snapshot, Boolean.TRUE);
+			// a concurrent trim may have published a horizon past us before
+			// it could see our pin; take a newer version instead
+			if (horizon.get() <= snapshot.version) {
+				return snapshot;
+			}
+			pinned.remove(snapshot);
+		}
+	}
+
+	/**
+	 * @return number of versions currently kept for an item in a warehouse
+	 */
+	public int retainedVersions(final Item item, final Warehouse warehouse) {
+		int count = 0;
+		for (Version v = cells.get(slot(idOf(item), warehouse)); v != null; v = v.older) {
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public List<Item> stockItems() {
+		return stockItems(size());
+	}
+
+	@Override
+	public int onHand(final Item item) {
+		return onHand(item, Warehouse.home());
+	}
+
+	@Override
+	public int onHand(final Item item, final Warehouse warehouse) {
+		return cells.get(slot(idOf(item), warehouse)).onHand;
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public int onOrder(final Item item) {
+		return onOrder(item, Warehouse.home());
+	}
+
+	@Override
+	public int onOrder(final Item item, final Warehouse warehouse) {
+		return cells.get(slot(idOf(item), warehouse)).onOrder;
+	}
+
+	/**
+	 * Fetch the required on-hand amount.
+	 */
+	public int requiredOnHand(final Item item, final Warehouse warehouse) {
+		return required.get(slot(idOf(item), warehouse));
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final int newAmount) {
+		setRequiredOnHand(item, Warehouse.home(), newAmount);
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+		required.set(slot(idOf(item), warehouse), newAmount);
+	}
+
+	@Override
+	public void setRequiredOnHand(final Item[] items, final Warehouse[] warehouses, final int[] newAmounts,
+			final int count) {
+		for (int i = 0; i < count; i++) {
+			required.set(slot(idOf(items[i]), orHome(warehouses[i])), newAmounts[i]);
+		}
+	}
+
+	@Override
+	public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand, final int count) {
+		for (int i = 0; i < count; i++) {
+			onHand[i] = cells.get(slot(idOf(items[i]), orHome(warehouses[i]))).onHand;
+		}
+	}
+
+	@Override
+	public void onOrder(final Item[] items, final Warehouse[] warehouses, final int[] onOrder, final int count) {
+		for (int i = 0; i < count; i++) {
+			onOrder[i] = cells.get(slot(idOf(items[i]), orHome(warehouses[i]))).onOrder;
+		}
+	}
+
+	/**
+	 * Replace the number on hand.
+	 */
+	public void setOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+		write(slot(idOf(item), warehouse), newAmount, 0, true, false);
+	}
+
+	/**
+	 * Add to the number on hand; negative deltas remove units.
+	 *
+	 * @return new number on hand
+	 */
+	public int addOnHand(final Item item, final Warehouse warehouse, final int delta) {
+		return write(slot(idOf(item), warehouse), delta, 0, false, false).onHand;
+	}
+
+	/**
+	 * Replace the number on order.
+	 */
+	public void setOnOrder(final Item item, final Warehouse warehouse, final int newAmount) {
+		write(slot(idOf(item), warehouse), 0, newAmount, false, true);
+	}
+
+	/**
+	 * Add to the number on order; negative deltas mark units received.
+	 *
+	 * @return new number on order
+	 */
+	public int addOnOrder(final Item item, final Warehouse warehouse, final int delta) {
+		return write(slot(idOf(item), warehouse), 0, delta, false, false).onOrder;
+	}
+
+	/**
+	 * Each item and warehouse is changed atomically, but the batch as a whole
+	 * may be split across snapshot versions.
+	 */
+	@Override
+	public void applyDeltas(final Item[] items, final Warehouse[] warehouses, final int[] onHandDeltas,
+			final int[] onOrderDeltas, final int count) {
+		// resolve every entry first so an unknown item rejects the whole batch
+		final int[] slots = new int[count];
+		for (int i = 0; i < count; i++) {
+			slots[i] = slot(idOf(items[i]), orHome(warehouses[i]));
+		}
+		for (int i = 0; i < count; i++) {
+			write(slots[i], onHandDeltas[i], onOrderDeltas[i], false, false, true);
+		}
+	}
+
+	@Override
+	public boolean stocks(final Item item) {
+		return ids.containsKey(item);
+	}
+
+	private Version write(final int slot, final int onHand, final int onOrder, final boolean replaceOnHand,
+			final boolean replaceOnOrder) {
+		return write(slot, onHand, onOrder, replaceOnHand, replaceOnOrder, false);
+	}
+
+	private Version write(final int slot, final int onHand, final int onOrder, final boolean replaceOnHand,
+			final boolean replaceOnOrder, final boolean clampOnOrder) {
+		Version head;
+		Version next;
+		do {
+			head = cells.get(slot);
+			// versions must stack in stamp order, so finish any pending one
+			stamp(head);
+			next = new Version(PENDING, replaceOnHand ? onHand : head.onHand + onHand,
+					replaceOnOrder ? onOrder : received(head.onOrder, onOrder, clampOnOrder), head);
+		} while (!cells.compareAndSet(slot, head, next));
+		stamp(next);
+		trim(next);
+		return next;
+	}
+
+	private static int received(final int onOrder, final int delta, final boolean clamp) {
+		return clamp && delta < 0 ? Math.max(0, onOrder + delta) : onOrder + delta;
+	}
+
+	private long stamp(final Version version) {
+		if (version.stamp == PENDING) {
+			STAMP.compareAndSet(version, PENDING, clock.incrementAndGet());
+		}
+		return version.stamp;
+	}
+
+	private void trim(final Version head) {
+		long limit = clock.get();
+		Map.Entry<Snapshot, Boolean> oldest = pinned.firstEntry();
+		if (oldest != null) {
+			limit = Math.min(limit, oldest.getKey().version);
+		}
+		if (horizon.get() < limit) {
+			horizon.accumulateAndGet(limit, Math::max);
+		}
+		// a snapshot pinned before the horizon was published is visible now
+		oldest = pinned.firstEntry();
+		if (oldest != null) {
+			limit = Math.min(limit, oldest.getKey().version);
+		}
+		for (Version v = head; v != null; v = v.older) {
+			if (v.stamp <= limit) {
+				v.older = null;
+				return;
+			}
+		}
+	}
+
+	private List<Item> stockItems(final int size) {
+		final List<Item> stocked = new ArrayList<>(size);
+		for (int id = 0; id < size; id++) {
+			final Item item = items.get(id);
+			if (item != null) {
+				stocked.add(item);
+			}
+		}
+		return stocked;
+	}
+
+	private static Warehouse orHome(final Warehouse warehouse) {
+		return warehouse == null ? Warehouse.home() : warehouse;
+	}
+
+	private int slot(final int id, final Warehouse warehouse) {
+		if (id < 0 || id >= capacity) {
+			throw new IllegalArgumentException("no such item id: " + id);
+		}
+		return id * WAREHOUSES.length + warehouse.ordinal();
+	}
+
+	private static final class Version {
+
+		volatile long stamp;
+		final int onHand;
+		final int onOrder;
+		volatile Version older;
+
+		Version(final long stamp, final int onHand, final int onOrder, final Version older) {
+			this.stamp = stamp;
+			this.onHand = onHand;
+			this.onOrder = onOrder;
+			this.older = older;
+		}
+	}
+
+	/**
+	 * Read view fixed at one version. Items registered after the snapshot was
+	 * taken are not listed.
+	 */
+	public final class Snapshot implements InventoryDatabase, AutoCloseable {
+
+		private final long version;
+		private final long id;
+		private final int size;
+
+		private Snapshot(final long version, final long id, final int size) {
+			this.version = version;
+			this.id = id;
+			this.size = size;
+		}
+
+		/**
+		 * @return version this snapshot sees
+		 */
+		public long version() {
+			return version;
+		}
+
+		@Override
+		public List<Item> stockItems() {
+			return VersionedInventoryDatabase.this.stockItems(size);
+		}
+
+		@Override
+		public int onHand(final Item item) {
+			return onHand(item, Warehouse.home());
+		}
+
+		@Override
+		public int onHand(final Item item, final Warehouse warehouse) {
+			return visible(item, warehouse).onHand;
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public int onOrder(final Item item) {
+			return onOrder(item, Warehouse.home());
+		}
+
+		@Override
+		public int onOrder(final Item item, final Warehouse warehouse) {
+			return visible(item, warehouse).onOrder;
+		}
+
+		@Override
+		public void setRequiredOnHand(final Item item, final int newAmount) {
+			VersionedInventoryDatabase.this.setRequiredOnHand(item, newAmount);
+		}
+
+		@Override
+		public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+			VersionedInventoryDatabase.this.setRequiredOnHand(item, warehouse, newAmount);
+		}
+
+		/**
+		 * Release the pin. Closing twice is harmless.
+		 */
+		@Override
+		public void close() {
+			pinned.remove(this);
+		}
+
+		private Version visible(final Item item, final Warehouse warehouse) {
+			Version v = cells.get(slot(idOf(item), warehouse));
+			while (stamp(v) > version) {
+				v = v.older;
+			}
+			return v;
+		}
+	}
+}
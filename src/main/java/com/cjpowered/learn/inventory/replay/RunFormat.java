@@ -0,0 +1,52 @@
+package com.cjpowered.learn.inventory.replay;
+
+/**
+ * Layout of a recorded run: a header, then one tagged entry per item first
+ * seen and per response, in the order they happened.
+ */
+final class RunFormat {
+
+	static final int MAGIC = 0x52554E52;
+	static final int VERSION = 1;
+
+	/**
+	 * item metadata: key, kind, restricted, bulk amount, season, then a
+	 * count and (warehouse, level) pairs
+	 */
+	static final byte ITEM = 1;
+
+	/**
+	 * catalog: count, then keys
+	 */
+	static final byte STOCK_ITEMS = 2;
+
+	/**
+	 * key, warehouse or {@link #NO_WAREHOUSE}, value
+	 */
+	static final byte ON_HAND = 3;
+
+	/**
+	 * key, warehouse or {@link #NO_WAREHOUSE}, value
+	 */
+	static final byte ON_ORDER = 4;
+
+	/**
+	 * key, flag
+	 */
+	static final byte ON_SALE = 5;
+
+	/**
+	 * epoch day, season ordinal or {@link #NO_SEASON}
+	 */
+	static final byte SEASON = 6;
+
+	static final byte NO_WAREHOUSE = -1;
+	static final byte NO_SEASON = -1;
+
+	static final byte KIND_STOCKED = 0;
+	static final byte KIND_SEASONAL = 1;
+	static final byte KIND_OTHER = 2;
+
+	private RunFormat() {
+	}
+}
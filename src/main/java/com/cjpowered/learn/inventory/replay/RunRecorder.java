@@ -0,0 +1,212 @@
+package com.cjpowered.learn.inventory.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import com.cjpowered.learn.inventory.ForwardingInventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Captures every response a planning run receives into a binary file that
+ * {@link RunReplay} serves back. Wrap the real database and marketing
+ * information with {@link #record(InventoryDatabase)} and
+ * {@link #record(MarketingInfo)}, run, then close the recorder. The metadata
+ * of each item is written the first time it appears, so a replay can rebuild
+ * stocked and seasonal items without the catalog.
+ */
+public final class RunRecorder implements Closeable {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final DataOutputStream out;
+	private final ItemKey keys;
+	private final Set<Long> written = new HashSet<>();
+
+	/**
+	 * @param file
+	 *            file to create or replace
+	 *
+	 * @param keys
+	 *            stable item keys
+	 */
+	public RunRecorder(final Path file, final ItemKey keys) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+		this.keys = keys;
+		out.writeInt(RunFormat.MAGIC);
+		out.writeInt(RunFormat.VERSION);
+	}
+
+	/**
+	 * @return database recording every response of the given one
+	 */
+	public InventoryDatabase record(final InventoryDatabase database) {
+		return new ForwardingInventoryDatabase(database) {
+			@Override
+			public List<Item> stockItems() {
+				final List<Item> items = super.stockItems();
+				synchronized (RunRecorder.this) {
+					try {
+						final long[] itemKeys = new long[items.size()];
+						for (int i = 0; i < itemKeys.length; i++) {
+							itemKeys[i] = describe(items.get(i));
+						}
+						out.writeByte(RunFormat.STOCK_ITEMS);
+						out.writeInt(itemKeys.length);
+						for (final long key : itemKeys) {
+							out.writeLong(key);
+						}
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				return items;
+			}
+
+			@Override
+			public int onHand(final Item item) {
+				return level(RunFormat.ON_HAND, item, null, super.onHand(item));
+			}
+
+			@Override
+			public int onHand(final Item item, final Warehouse warehouse) {
+				return level(RunFormat.ON_HAND, item, warehouse, super.onHand(item, warehouse));
+			}
+
+			@Override
+			public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand,
+					final int count) {
+				super.onHand(items, warehouses, onHand, count);
+				// recorded as single reads, which is how a replay serves them
+				for (int i = 0; i < count; i++) {
+					level(RunFormat.ON_HAND, items[i], warehouses[i], onHand[i]);
+				}
+			}
+
+			@Override
+			public void onOrder(final Item[] items, final Warehouse[] warehouses, final int[] onOrder,
+					final int count) {
+				super.onOrder(items, warehouses, onOrder, count);
+				for (int i = 0; i < count; i++) {
+					level(RunFormat.ON_ORDER, items[i], warehouses[i], onOrder[i]);
+				}
+			}
+
+			@Override
+			@SuppressWarnings("deprecation")
+			public int onOrder(final Item item) {
+				return level(RunFormat.ON_ORDER, item, null, super.onOrder(item));
+			}
+
+			@Override
+			public int onOrder(final Item item, final Warehouse warehouse) {
+				return level(RunFormat.ON_ORDER, item, warehouse, super.onOrder(item, warehouse));
+			}
+		};
+	}
+
+	/**
+	 * @return marketing information recording every response of the given one
+	 */
+	public MarketingInfo record(final MarketingInfo marketInfo) {
+		return new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				final boolean onSale = marketInfo.onSale(item);
+				synchronized (RunRecorder.this) {
+					try {
+						final long key = describe(item);
+						out.writeByte(RunFormat.ON_SALE);
+						out.writeLong(key);
+						out.writeBoolean(onSale);
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				return onSale;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				final Season season = marketInfo.season(when);
+				synchronized (RunRecorder.this) {
+					try {
+						out.writeByte(RunFormat.SEASON);
+						out.writeLong(when.toEpochDay());
+						out.writeByte(season == null ? RunFormat.NO_SEASON : season.ordinal());
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				return season;
+			}
+		};
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	private synchronized int level(final byte tag, final Item item, final Warehouse warehouse, final int value) {
+		try {
+			final long key = describe(item);
+			out.writeByte(tag);
+			out.writeLong(key);
+			out.writeByte(warehouse == null ? RunFormat.NO_WAREHOUSE : warehouse.ordinal());
+			out.writeInt(value);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return value;
+	}
+
+	// caller holds the lock
+	private long describe(final Item item) throws IOException {
+		final long key = keys.keyOf(item);
+		if (!written.add(key)) {
+			return key;
+		}
+		// multi-pack items cannot be rebuilt from the recorded fields
+		final byte kind = item.packOptimizer() != null ? RunFormat.KIND_OTHER
+				: item instanceof SeasonalItem ? RunFormat.KIND_SEASONAL
+				: item instanceof StockedItem ? RunFormat.KIND_STOCKED : RunFormat.KIND_OTHER;
+		final Optional<Season> season = item.highSeason();
+		out.writeByte(RunFormat.ITEM);
+		out.writeLong(key);
+		out.writeByte(kind);
+		out.writeBoolean(item.isRestricted());
+		out.writeInt(item.bulkAmount());
+		out.writeByte(season.isPresent() ? season.get().ordinal() : RunFormat.NO_SEASON);
+		int stocked = 0;
+		for (final Warehouse warehouse : WAREHOUSES) {
+			if (item.wantOnHand(warehouse) != 0) {
+				stocked++;
+			}
+		}
+		out.writeByte(stocked);
+		for (final Warehouse warehouse : WAREHOUSES) {
+			if (item.wantOnHand(warehouse) != 0) {
+				out.writeByte(warehouse.ordinal());
+				out.writeInt(item.wantOnHand(warehouse));
+			}
+		}
+		return key;
+	}
+}
@@ -0,0 +1,310 @@
+package com.cjpowered.learn.inventory.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Serves back a run captured by {@link RunRecorder}. Each fact (an item's
+ * on-hand level at a warehouse, its sale flag, the catalog, a day's season)
+ * answers with the values recorded for it in their original order and then
+ * keeps repeating the last one, so a replay is deterministic even if the
+ * rules ask in a different order. Asking for a fact that was never recorded
+ * is an {@link IllegalStateException}. Required-level changes are accepted
+ * and ignored.
+ */
+public final class RunReplay {
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+	private static final Season[] SEASONS = Season.values();
+
+	private final Map<Long, Item> items = new HashMap<>();
+	private final Map<Item, Long> keys = new IdentityHashMap<>();
+	private final Map<LevelKey, Responses> levels = new HashMap<>();
+	private final Map<Long, Responses> seasons = new HashMap<>();
+	private final List<List<Item>> catalogs = new ArrayList<>();
+	private int catalogsServed;
+
+	private RunReplay() {
+	}
+
+	/**
+	 * Load a recording, rebuilding stocked and seasonal items from their
+	 * recorded metadata.
+	 *
+	 * @throws IOException
+	 *             if the file is not a recording or holds other item kinds
+	 */
+	public static RunReplay load(final Path file) throws IOException {
+		return load(file, null);
+	}
+
+	/**
+	 * Load a recording.
+	 *
+	 * @param resolver
+	 *            finds the item for a key; null to rebuild items from their
+	 *            recorded metadata
+	 */
+	public static RunReplay load(final Path file, final LongFunction<Item> resolver) throws IOException {
+		final RunReplay replay = new RunReplay();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != RunFormat.MAGIC || in.readInt() != RunFormat.VERSION) {
+				throw new IOException("not a recorded run: " + file);
+			}
+			while (true) {
+				final int tag = in.read();
+				if (tag < 0) {
+					break;
+				}
+				replay.read((byte) tag, in, resolver);
+			}
+		} catch (final EOFException e) {
+			throw new IOException("truncated recording: " + file, e);
+		}
+		return replay;
+	}
+
+	/**
+	 * @return keys the items were recorded under
+	 */
+	public ItemKey itemKey() {
+		return item -> {
+			final Long key = keys.get(item);
+			if (key == null) {
+				throw new IllegalArgumentException("item not in recording: " + item);
+			}
+			return key;
+		};
+	}
+
+	/**
+	 * @return item recorded under a key, or null
+	 */
+	public Item item(final long key) {
+		return items.get(key);
+	}
+
+	/**
+	 * @return database answering with the recorded responses
+	 */
+	public InventoryDatabase database() {
+		return new InventoryDatabase() {
+			@Override
+			public List<Item> stockItems() {
+				synchronized (RunReplay.this) {
+					if (catalogs.isEmpty()) {
+						throw new IllegalStateException("catalog not recorded");
+					}
+					final List<Item> catalog = catalogs.get(Math.min(catalogsServed, catalogs.size() - 1));
+					catalogsServed++;
+					return new ArrayList<>(catalog);
+				}
+			}
+
+			@Override
+			public int onHand(final Item item) {
+				return serve(levels, new LevelKey(RunFormat.ON_HAND, keyOf(item), RunFormat.NO_WAREHOUSE));
+			}
+
+			@Override
+			public int onHand(final Item item, final Warehouse warehouse) {
+				return serve(levels, new LevelKey(RunFormat.ON_HAND, keyOf(item), warehouse.ordinal()));
+			}
+
+			@Override
+			@SuppressWarnings("deprecation")
+			public int onOrder(final Item item) {
+				return serve(levels, new LevelKey(RunFormat.ON_ORDER, keyOf(item), RunFormat.NO_WAREHOUSE));
+			}
+
+			@Override
+			public int onOrder(final Item item, final Warehouse warehouse) {
+				return serve(levels, new LevelKey(RunFormat.ON_ORDER, keyOf(item), warehouse.ordinal()));
+			}
+
+			@Override
+			public void setRequiredOnHand(final Item item, final int newAmount) {
+			}
+
+			@Override
+			public void setRequiredOnHand(final Item item, final Warehouse warehouse, final int newAmount) {
+			}
+		};
+	}
+
+	/**
+	 * @return marketing information answering with the recorded responses
+	 */
+	public MarketingInfo marketing() {
+		return new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return serve(levels, new LevelKey(RunFormat.ON_SALE, keyOf(item), RunFormat.NO_WAREHOUSE)) != 0;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				final int ordinal = serve(seasons, when.toEpochDay());
+				return ordinal == RunFormat.NO_SEASON ? null : SEASONS[ordinal];
+			}
+		};
+	}
+
+	private void read(final byte tag, final DataInputStream in, final LongFunction<Item> resolver)
+			throws IOException {
+		switch (tag) {
+		case RunFormat.ITEM:
+			readItem(in, resolver);
+			break;
+		case RunFormat.STOCK_ITEMS: {
+			final int count = in.readInt();
+			final List<Item> catalog = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				catalog.add(known(in.readLong()));
+			}
+			catalogs.add(catalog);
+			break;
+		}
+		case RunFormat.ON_HAND:
+		case RunFormat.ON_ORDER: {
+			final long key = in.readLong();
+			known(key);
+			final int warehouse = in.readByte();
+			responses(levels, new LevelKey(tag, key, warehouse)).add(in.readInt());
+			break;
+		}
+		case RunFormat.ON_SALE: {
+			final long key = in.readLong();
+			known(key);
+			responses(levels, new LevelKey(tag, key, RunFormat.NO_WAREHOUSE)).add(in.readBoolean() ? 1 : 0);
+			break;
+		}
+		case RunFormat.SEASON:
+			responses(seasons, in.readLong()).add(in.readByte());
+			break;
+		default:
+			throw new IOException("unknown entry " + tag);
+		}
+	}
+
+	private void readItem(final DataInputStream in, final LongFunction<Item> resolver) throws IOException {
+		final long key = in.readLong();
+		final byte kind = in.readByte();
+		final boolean restricted = in.readBoolean();
+		final int bulk = in.readInt();
+		final byte season = in.readByte();
+		final int stocked = in.readByte();
+		final HashMap<Warehouse, Integer> wantOnHand = new HashMap<>();
+		for (int i = 0; i < stocked; i++) {
+			final Warehouse warehouse = WAREHOUSES[in.readByte()];
+			wantOnHand.put(warehouse, in.readInt());
+		}
+		final Item item;
+		if (resolver != null) {
+			item = resolver.apply(key);
+			if (item == null) {
+				throw new IOException("resolver has no item " + key);
+			}
+		} else if (kind == RunFormat.KIND_SEASONAL) {
+			final Integer home = wantOnHand.get(Warehouse.home());
+			item = new SeasonalItem(home == null ? 0 : home, SEASONS[season], restricted, bulk);
+		} else if (kind == RunFormat.KIND_STOCKED) {
+			item = new StockedItem(wantOnHand, restricted, bulk);
+		} else {
+			throw new IOException("item " + key + " is of an unknown kind; load with a resolver");
+		}
+		items.put(key, item);
+		keys.put(item, key);
+	}
+
+	private Item known(final long key) throws IOException {
+		final Item item = items.get(key);
+		if (item == null) {
+			throw new IOException("item " + key + " used before described");
+		}
+		return item;
+	}
+
+	private long keyOf(final Item item) {
+		return itemKey().keyOf(item);
+	}
+
+	private synchronized <K> int serve(final Map<K, Responses> facts, final K factKey) {
+		final Responses responses = facts.get(factKey);
+		if (responses == null) {
+			throw new IllegalStateException("not recorded");
+		}
+		return responses.next();
+	}
+
+	private static <K> Responses responses(final Map<K, Responses> facts, final K factKey) {
+		return facts.computeIfAbsent(factKey, k -> new Responses());
+	}
+
+	// a level or sale flag of an item, kept whole so that every item key works
+	private static final class LevelKey {
+
+		private final byte tag;
+		private final long key;
+		private final int warehouse;
+
+		LevelKey(final byte tag, final long key, final int warehouse) {
+			this.tag = tag;
+			this.key = key;
+			this.warehouse = warehouse;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof LevelKey)) {
+				return false;
+			}
+			final LevelKey other = (LevelKey) obj;
+			return tag == other.tag && key == other.key && warehouse == other.warehouse;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(ItemKey.mix(key)) * 31 + tag * 8 + warehouse;
+		}
+	}
+
+	private static final class Responses {
+
+		private int[] values = new int[1];
+		private int size;
+		private int served;
+
+		void add(final int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		int next() {
+			return values[Math.min(served++, size - 1)];
+		}
+	}
+}
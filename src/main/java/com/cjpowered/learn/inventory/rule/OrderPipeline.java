@@ -0,0 +1,183 @@
+package com.cjpowered.learn.inventory.rule;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Optional;
+
+import com.cjpowered.learn.inventory.Facts;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.LazyFacts;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.audit.Decision;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Ordering rules compiled from a set of {@link OrderRule} stages. Each item
+ * class compiles its pipeline once; the stages become final flags on this one
+ * class, so every call site sees a single evaluation method the JIT can
+ * inline. Facts are fetched only by the stages that need them.
+ */
+public final class OrderPipeline {
+
+	private final boolean stockoutBump;
+	private final boolean restrictedDay;
+	private final boolean season;
+	private final boolean sale;
+	private final boolean threshold;
+	private final boolean packRounding;
+
+	private OrderPipeline(final EnumSet<OrderRule> rules) {
+		this.stockoutBump = rules.contains(OrderRule.STOCKOUT_BUMP);
+		this.restrictedDay = rules.contains(OrderRule.RESTRICTED_DAY);
+		this.season = rules.contains(OrderRule.SEASON);
+		this.sale = rules.contains(OrderRule.SALE);
+		this.threshold = rules.contains(OrderRule.THRESHOLD);
+		this.packRounding = rules.contains(OrderRule.PACK_ROUNDING);
+	}
+
+	/**
+	 * Compile a pipeline.
+	 *
+	 * @param first
+	 *            a stage to include
+	 *
+	 * @param rest
+	 *            other stages to include
+	 *
+	 * @return compiled pipeline
+	 */
+	public static OrderPipeline compile(final OrderRule first, final OrderRule... rest) {
+		return new OrderPipeline(EnumSet.of(first, rest));
+	}
+
+	/**
+	 * Compute an order for an item.
+	 *
+	 * @param item
+	 *            item to order
+	 *
+	 * @param when
+	 *            effective day
+	 *
+	 * @param db
+	 *            inventory facts
+	 *
+	 * @param marketInfo
+	 *            marketing facts
+	 *
+	 * @param policy
+	 *            rule parameters
+	 *
+	 * @return order, possibly of zero units
+	 */
+	public Order evaluate(final Item item, final LocalDate when, final InventoryDatabase db,
+			final MarketingInfo marketInfo, final OrderPolicy policy) {
+		return evaluate(new LazyFacts(when, db, marketInfo).at(item), policy);
+	}
+
+	/**
+	 * Compute an order from lazily fetched facts.
+	 *
+	 * @param facts
+	 *            facts about the item to order
+	 *
+	 * @param policy
+	 *            rule parameters
+	 *
+	 * @return order, possibly of zero units
+	 */
+	public Order evaluate(final Facts facts, final OrderPolicy policy) {
+		final Item item = facts.item();
+		final Warehouse warehouse = facts.warehouse();
+		final int wantOnHand = facts.wantOnHand();
+		final int onHand = facts.onHand();
+
+		if (stockoutBump && onHand == 0 && !facts.stockoutBumpsApplied()) {
+			facts.setRequiredOnHand(stockoutLevel(wantOnHand, policy));
+		}
+
+		if (restrictedDay && item.isRestricted() && facts.date().getDayOfMonth() != 1) {
+			facts.decided(Decision.RESTRICTED_DAY, wantOnHand, 0);
+			return new Order(item, 0, warehouse);
+		}
+
+		int target = wantOnHand;
+		if (season) {
+			final Optional<Season> highSeason = item.highSeason();
+			if (highSeason.isPresent()) {
+				if (!highSeason.get().equals(facts.season())) {
+					facts.decided(Decision.OFF_SEASON, target, 0);
+					return new Order(item, 0, warehouse);
+				}
+				target = Math.max(target, (int) (Math.ceil(wantOnHand * policy.seasonMultiplier)));
+			}
+		}
+		if (sale && facts.onSale()) {
+			target = Math.max(target, wantOnHand + policy.saleUnits);
+		}
+
+		final int onOrder = facts.onOrder();
+		final int deficit = target - onHand - onOrder;
+		if (threshold && onHand + onOrder > target * policy.reorderThreshold) {
+			facts.decided(Decision.ABOVE_THRESHOLD, target, 0);
+			return new Order(item, 0, warehouse);
+		}
+
+		int toOrder = 0;
+		if (packRounding) {
+			final PackOptimizer packs = item.packOptimizer();
+			if (packs != null) {
+				toOrder = packs.quantity(deficit);
+			} else if (deficit > 0) {
+				toOrder = deficit - deficit % item.bulkAmount();
+			}
+		} else if (deficit > 0) {
+			toOrder = deficit;
+		}
+		facts.decided(Decision.ORDERED, target, toOrder);
+		return new Order(item, toOrder, warehouse);
+	}
+
+	/**
+	 * Run only the stockout stage, for items known to order nothing today.
+	 *
+	 * @param item
+	 *            item to check
+	 *
+	 * @param db
+	 *            inventory facts
+	 *
+	 * @param policy
+	 *            rule parameters
+	 */
+	public void applyStockoutBump(final Item item, final InventoryDatabase db, final OrderPolicy policy) {
+		if (stockoutBump && db.onHand(item) == 0) {
+			db.setRequiredOnHand(item, stockoutLevel(item, policy));
+		}
+	}
+
+	/**
+	 * @return true if the pipeline includes the stockout stage
+	 */
+	public boolean bumpsOnStockout() {
+		return stockoutBump;
+	}
+
+	/**
+	 * @return required level of an item after a stock outage
+	 */
+	public static int stockoutLevel(final Item item, final OrderPolicy policy) {
+		return stockoutLevel(item.wantOnHand(), policy);
+	}
+
+	/**
+	 * @return required level after a stock outage for a normal level
+	 */
+	public static int stockoutLevel(final int wantOnHand, final OrderPolicy policy) {
+		return (int) (Math.ceil(wantOnHand * policy.stockoutBump));
+	}
+}
@@ -0,0 +1,41 @@
+package com.cjpowered.learn.inventory.rule;
+
+/**
+ * Stages an {@link OrderPipeline} can be compiled from. Stages always run in
+ * declaration order, whatever order they are listed in.
+ */
+public enum OrderRule {
+
+	/**
+	 * raise the required level by the policy's stockout bump when nothing is
+	 * on hand
+	 */
+	STOCKOUT_BUMP,
+
+	/**
+	 * restricted items order only on the first of the month
+	 */
+	RESTRICTED_DAY,
+
+	/**
+	 * seasonal items order only in their high-demand season, at the policy's
+	 * season multiple
+	 */
+	SEASON,
+
+	/**
+	 * keep the policy's sale units on top of the normal level while on sale
+	 */
+	SALE,
+
+	/**
+	 * order only when on hand plus on order is at or below the policy's
+	 * threshold of the required level
+	 */
+	THRESHOLD,
+
+	/**
+	 * order whole packages without exceeding the required level
+	 */
+	PACK_ROUNDING;
+}
@@ -0,0 +1,158 @@
+package com.cjpowered.learn.inventory.rule;
+
+import java.util.Arrays;
+
+/**
+ * Cheapest way to cover a deficit with an item's pack sizes. Tables of the
+ * best combination for every deficit up to a limit are built once, so each
+ * lookup is a few array reads. Larger deficits are first brought into the
+ * table's range with the pack of lowest cost per unit.
+ */
+public final class PackOptimizer {
+
+	private final int[] sizes;
+	private final long[] costs;
+	private final int maxUnits;
+	private final long[] bestCost;
+	private final int[] bestQuantity;
+	// (maxUnits + 1) rows of one count per pack
+	private final int[] bestCounts;
+	private final int cheapest;
+
+	private PackOptimizer(final int[] sizes, final long[] costs, final int maxUnits) {
+		this.sizes = sizes;
+		this.costs = costs;
+		this.maxUnits = maxUnits;
+		this.bestCost = new long[maxUnits + 1];
+		this.bestQuantity = new int[maxUnits + 1];
+		this.bestCounts = new int[(maxUnits + 1) * sizes.length];
+
+		int cheapest = 0;
+		for (int p = 1; p < sizes.length; p++) {
+			// lower cost per unit, then the larger pack
+			final long diff = costs[p] * sizes[cheapest] - costs[cheapest] * sizes[p];
+			if (diff < 0 || diff == 0 && sizes[p] > sizes[cheapest]) {
+				cheapest = p;
+			}
+		}
+		this.cheapest = cheapest;
+
+		for (int n = 1; n <= maxUnits; n++) {
+			int choice = -1;
+			long cost = Long.MAX_VALUE;
+			int quantity = Integer.MAX_VALUE;
+			for (int p = 0; p < sizes.length; p++) {
+				final int rest = Math.max(0, n - sizes[p]);
+				final long c = costs[p] + bestCost[rest];
+				final int q = sizes[p] + bestQuantity[rest];
+				if (c < cost || c == cost && q < quantity) {
+					choice = p;
+					cost = c;
+					quantity = q;
+				}
+			}
+			final int rest = Math.max(0, n - sizes[choice]);
+			bestCost[n] = cost;
+			bestQuantity[n] = quantity;
+			System.arraycopy(bestCounts, rest * sizes.length, bestCounts, n * sizes.length, sizes.length);
+			bestCounts[n * sizes.length + choice]++;
+		}
+	}
+
+	/**
+	 * Build the tables.
+	 *
+	 * @param sizes
+	 *            units per pack, each positive
+	 *
+	 * @param costs
+	 *            cost of each pack, in any fixed unit
+	 *
+	 * @param maxUnits
+	 *            largest deficit answered from the table; lookups above it
+	 *            are still constant time
+	 *
+	 * @return optimizer
+	 */
+	public static PackOptimizer of(final int[] sizes, final long[] costs, final int maxUnits) {
+		if (sizes.length == 0 || sizes.length != costs.length) {
+			throw new IllegalArgumentException("need one cost per pack size");
+		}
+		if (maxUnits < 0) {
+			throw new IllegalArgumentException("bad table size: " + maxUnits);
+		}
+		for (int p = 0; p < sizes.length; p++) {
+			if (sizes[p] < 1 || costs[p] < 0) {
+				throw new IllegalArgumentException("bad pack " + sizes[p] + " at cost " + costs[p]);
+			}
+		}
+		return new PackOptimizer(sizes.clone(), costs.clone(), maxUnits);
+	}
+
+	/**
+	 * @return number of pack sizes
+	 */
+	public int packs() {
+		return sizes.length;
+	}
+
+	/**
+	 * @return units in a pack
+	 */
+	public int size(final int pack) {
+		return sizes[pack];
+	}
+
+	/**
+	 * @return smallest pack size
+	 */
+	public int smallestSize() {
+		return Arrays.stream(sizes).min().getAsInt();
+	}
+
+	/**
+	 * @return units to order to cover the deficit most cheaply, 0 if there
+	 *         is no deficit
+	 */
+	public int quantity(final int deficit) {
+		if (deficit <= 0) {
+			return 0;
+		}
+		final int extra = extraPacks(deficit);
+		return extra * sizes[cheapest] + bestQuantity[Math.max(0, deficit - extra * sizes[cheapest])];
+	}
+
+	/**
+	 * @return cost of covering the deficit
+	 */
+	public long cost(final int deficit) {
+		if (deficit <= 0) {
+			return 0;
+		}
+		final int extra = extraPacks(deficit);
+		return extra * costs[cheapest] + bestCost[Math.max(0, deficit - extra * sizes[cheapest])];
+	}
+
+	/**
+	 * Fill {@code counts} with the number of each pack in the cheapest cover.
+	 */
+	public void packCounts(final int deficit, final int[] counts) {
+		if (deficit <= 0) {
+			Arrays.fill(counts, 0, sizes.length, 0);
+			return;
+		}
+		final int extra = extraPacks(deficit);
+		final int rest = Math.max(0, deficit - extra * sizes[cheapest]);
+		System.arraycopy(bestCounts, rest * sizes.length, counts, 0, sizes.length);
+		counts[cheapest] += extra;
+	}
+
+	// cheapest-per-unit packs that bring the deficit into the table
+	private int extraPacks(final int deficit) {
+		if (deficit <= maxUnits) {
+			return 0;
+		}
+		final int size = sizes[cheapest];
+		return (deficit - maxUnits + size - 1) / size;
+	}
+}
@@ -0,0 +1,176 @@
+package com.cjpowered.learn.inventory.table;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Catalog attributes laid out column by column in primitive arrays, one row
+ * per item, for batch evaluation by {@link OrderKernel}.
+ */
+public final class ItemTable {
+
+	/**
+	 * kind column value for {@link StockedItem}
+	 */
+	public static final byte KIND_STOCKED = 0;
+
+	/**
+	 * kind column value for {@link SeasonalItem}
+	 */
+	public static final byte KIND_SEASONAL = 1;
+
+	/**
+	 * season column value for items without a high-demand season
+	 */
+	public static final byte NO_SEASON = -1;
+
+	private static final Warehouse[] WAREHOUSES = Warehouse.values();
+
+	private final Item[] items;
+	final int[] wantOnHand;
+	private final int[][] warehouseWantOnHand;
+	final int[] bulkAmt;
+	final boolean[] restricted;
+	final byte[] season;
+	final byte[] kind;
+
+	private ItemTable(final int size) {
+		this.items = new Item[size];
+		this.wantOnHand = new int[size];
+		this.warehouseWantOnHand = new int[WAREHOUSES.length][size];
+		this.bulkAmt = new int[size];
+		this.restricted = new boolean[size];
+		this.season = new byte[size];
+		this.kind = new byte[size];
+	}
+
+	/**
+	 * Lay out a catalog.
+	 *
+	 * @param catalog
+	 *            items to include, in row order
+	 *
+	 * @return table with one row per item
+	 *
+	 * @throws IllegalArgumentException
+	 *             if an item is not a stocked or seasonal item, has several
+	 *             pack sizes, or has a package size below one
+	 */
+	public static ItemTable of(final List<Item> catalog) {
+		final ItemTable table = new ItemTable(catalog.size());
+		int row = 0;
+		for (final Item item : catalog) {
+			final byte kind;
+			if (item.packOptimizer() != null) {
+				throw new IllegalArgumentException("multi-pack items are not supported: " + item.getClass().getName());
+			} else if (item instanceof SeasonalItem) {
+				kind = KIND_SEASONAL;
+			} else if (item instanceof StockedItem) {
+				kind = KIND_STOCKED;
+			} else {
+				throw new IllegalArgumentException("unsupported item kind: " + item.getClass().getName());
+			}
+			if (item.bulkAmount() < 1) {
+				throw new IllegalArgumentException("package size must be positive: " + item.bulkAmount());
+			}
+			table.items[row] = item;
+			table.kind[row] = kind;
+			table.wantOnHand[row] = item.wantOnHand();
+			for (final Warehouse warehouse : WAREHOUSES) {
+				table.warehouseWantOnHand[warehouse.ordinal()][row] = item.wantOnHand(warehouse);
+			}
+			table.bulkAmt[row] = item.bulkAmount();
+			table.restricted[row] = item.isRestricted();
+			final Optional<Season> highSeason = item.highSeason();
+			table.season[row] = highSeason.isPresent() ? (byte) highSeason.get().ordinal() : NO_SEASON;
+			row++;
+		}
+		return table;
+	}
+
+	/**
+	 * @return number of rows
+	 */
+	public int size() {
+		return items.length;
+	}
+
+	/**
+	 * @param row
+	 *            row to fetch
+	 *
+	 * @return item laid out in the row
+	 */
+	public Item item(final int row) {
+		return items[row];
+	}
+
+	/**
+	 * @param row
+	 *            row to fetch
+	 *
+	 * @return normal inventory level used by the ordering rules
+	 */
+	public int wantOnHand(final int row) {
+		return wantOnHand[row];
+	}
+
+	/**
+	 * @param row
+	 *            row to fetch
+	 *
+	 * @param warehouse
+	 *            warehouse to fetch
+	 *
+	 * @return normal inventory level at the warehouse
+	 */
+	public int wantOnHand(final int row, final Warehouse warehouse) {
+		return warehouseWantOnHand[warehouse.ordinal()][row];
+	}
+
+	/**
+	 * @param row
+	 *            row to fetch
+	 *
+	 * @return units per package
+	 */
+	public int bulkAmount(final int row) {
+		return bulkAmt[row];
+	}
+
+	/**
+	 * @param row
+	 *            row to fetch
+	 *
+	 * @return true if the item orders only on the first of the month
+	 */
+	public boolean isRestricted(final int row) {
+		return restricted[row];
+	}
+
+	/**
+	 * @param row
+	 *            row to fetch
+	 *
+	 * @return high-demand season ordinal, or {@link #NO_SEASON}
+	 */
+	public byte season(final int row) {
+		return season[row];
+	}
+
+	/**
+	 * @param row
+	 *            row to fetch
+	 *
+	 * @return {@link #KIND_STOCKED} or {@link #KIND_SEASONAL}
+	 */
+	public byte kind(final int row) {
+		return kind[row];
+	}
+}
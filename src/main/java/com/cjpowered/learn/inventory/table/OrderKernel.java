@@ -0,0 +1,175 @@
+package com.cjpowered.learn.inventory.table;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.InventorySnapshot;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Batch form of the ordering rules over an {@link ItemTable}. Each pass is a
+ * flat loop over primitive columns; results match
+ * {@link com.cjpowered.learn.inventory.Item#createOrder} row for row.
+ */
+public final class OrderKernel {
+
+	/**
+	 * rows evaluated per pass by {@link #orders}
+	 */
+	public static final int BATCH_SIZE = 4096;
+
+	private OrderKernel() {
+	}
+
+	/**
+	 * Compute order quantities for a range of rows. Fact and result arrays
+	 * hold row {@code from + i} at index {@code i}.
+	 *
+	 * @param table
+	 *            catalog attributes
+	 *
+	 * @param from
+	 *            first row
+	 *
+	 * @param count
+	 *            number of rows
+	 *
+	 * @param onHand
+	 *            units on hand
+	 *
+	 * @param onOrder
+	 *            units on order
+	 *
+	 * @param onSale
+	 *            on-sale status
+	 *
+	 * @param season
+	 *            season on the effective day, may be null
+	 *
+	 * @param when
+	 *            effective day
+	 *
+	 * @param policy
+	 *            rule parameters
+	 *
+	 * @param quantity
+	 *            receives the quantity to order for each row
+	 */
+	public static void quantities(final ItemTable table, final int from, final int count, final int[] onHand,
+			final int[] onOrder, final boolean[] onSale, final Season season, final LocalDate when,
+			final OrderPolicy policy, final int[] quantity) {
+		final int[] wantOnHand = table.wantOnHand;
+		final int[] bulkAmt = table.bulkAmt;
+		final boolean[] restricted = table.restricted;
+		final byte[] highSeason = table.season;
+		final boolean firstOfMonth = when.getDayOfMonth() == 1;
+		final int today = season == null ? Integer.MIN_VALUE : season.ordinal();
+		final int saleUnits = policy.saleUnits;
+		final double seasonMultiplier = policy.seasonMultiplier;
+		final double reorderThreshold = policy.reorderThreshold;
+
+		for (int i = 0; i < count; i++) {
+			final int row = from + i;
+			final int want = wantOnHand[row];
+			final int held = onHand[i] + onOrder[i];
+			final int rowSeason = highSeason[row];
+			boolean blocked = restricted[row] && !firstOfMonth;
+			int target = want;
+			if (rowSeason != ItemTable.NO_SEASON) {
+				if (rowSeason != today) {
+					blocked = true;
+				} else {
+					target = Math.max(target, (int) (Math.ceil(want * seasonMultiplier)));
+				}
+			}
+			if (onSale[i]) {
+				target = Math.max(target, want + saleUnits);
+			}
+			final int deficit = target - held;
+			if (blocked || deficit <= 0 || held > target * reorderThreshold) {
+				quantity[i] = 0;
+			} else {
+				quantity[i] = deficit - deficit % bulkAmt[row];
+			}
+		}
+	}
+
+	/**
+	 * Compute stockout levels for a range of rows. Fact and result arrays
+	 * hold row {@code from + i} at index {@code i}.
+	 *
+	 * @param table
+	 *            catalog attributes
+	 *
+	 * @param from
+	 *            first row
+	 *
+	 * @param count
+	 *            number of rows
+	 *
+	 * @param onHand
+	 *            units on hand
+	 *
+	 * @param policy
+	 *            rule parameters
+	 *
+	 * @param level
+	 *            receives the new required level for each row that ran out,
+	 *            or -1
+	 */
+	public static void stockoutLevels(final ItemTable table, final int from, final int count, final int[] onHand,
+			final OrderPolicy policy, final int[] level) {
+		final int[] wantOnHand = table.wantOnHand;
+		final double stockoutBump = policy.stockoutBump;
+		for (int i = 0; i < count; i++) {
+			level[i] = onHand[i] == 0 ? (int) (Math.ceil(wantOnHand[from + i] * stockoutBump)) : -1;
+		}
+	}
+
+	/**
+	 * Compute all orders for a table against captured facts, a batch at a
+	 * time.
+	 *
+	 * @param table
+	 *            catalog attributes
+	 *
+	 * @param snapshot
+	 *            facts covering every item in the table
+	 *
+	 * @param policy
+	 *            rule parameters
+	 *
+	 * @return orders with a positive quantity, in row order
+	 */
+	public static List<Order> orders(final ItemTable table, final InventorySnapshot snapshot,
+			final OrderPolicy policy) {
+		final List<Order> orders = new ArrayList<>();
+		final int size = table.size();
+		final int batch = Math.min(size, BATCH_SIZE);
+		final int[] onHand = new int[batch];
+		final int[] onOrder = new int[batch];
+		final boolean[] onSale = new boolean[batch];
+		final int[] quantity = new int[batch];
+		final Season season = snapshot.season(snapshot.date());
+
+		for (int start = 0; start < size; start += batch) {
+			final int count = Math.min(batch, size - start);
+			for (int i = 0; i < count; i++) {
+				onHand[i] = snapshot.onHand(table.item(start + i));
+				onOrder[i] = snapshot.onOrder(table.item(start + i));
+				onSale[i] = snapshot.onSale(table.item(start + i));
+			}
+			quantities(table, start, count, onHand, onOrder, onSale, season, snapshot.date(), policy, quantity);
+			for (int i = 0; i < count; i++) {
+				if (quantity[i] > 0) {
+					orders.add(new Order(table.item(start + i), quantity[i], Warehouse.home()));
+				}
+			}
+		}
+		return orders;
+	}
+}
@@ -0,0 +1,34 @@
+package com.cjpowered.learn.marketing;
+
+import java.time.LocalDate;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+
+/**
+ * Marketing information that checks the run's {@link OnSaleFilter} before
+ * asking the real source whether an item is on sale. Items the filter rules
+ * out never reach the delegate.
+ */
+public final class FilteredMarketingInfo implements MarketingInfo {
+
+	private final MarketingInfo delegate;
+	private final ItemKey keys;
+	private final OnSaleFilter filter;
+
+	public FilteredMarketingInfo(final MarketingInfo delegate, final ItemKey keys, final OnSaleFilter filter) {
+		this.delegate = delegate;
+		this.keys = keys;
+		this.filter = filter;
+	}
+
+	@Override
+	public boolean onSale(final Item item) {
+		return filter.mightBeOnSale(keys.keyOf(item)) && delegate.onSale(item);
+	}
+
+	@Override
+	public Season season(final LocalDate when) {
+		return delegate.season(when);
+	}
+}
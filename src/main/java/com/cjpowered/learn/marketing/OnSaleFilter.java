@@ -0,0 +1,74 @@
+package com.cjpowered.learn.marketing;
+
+import com.cjpowered.learn.inventory.ItemKey;
+
+/**
+ * Bloom filter over the keys of items on sale, published by marketing for a
+ * planning run. A negative answer is definite; a positive one may be false at
+ * roughly the rate the filter was sized for and must be confirmed.
+ */
+public final class OnSaleFilter {
+
+	private final long[] bits;
+	private final int bitCount;
+	private final int hashes;
+
+	private OnSaleFilter(final int bitCount, final int hashes) {
+		this.bits = new long[(bitCount + 63) >>> 6];
+		this.bitCount = bitCount;
+		this.hashes = hashes;
+	}
+
+	/**
+	 * Build a filter holding the given keys.
+	 *
+	 * @param keys
+	 *            keys of items on sale
+	 *
+	 * @param falsePositiveRate
+	 *            target chance that a key not on sale passes, between 0 and 1
+	 *
+	 * @return filter
+	 */
+	public static OnSaleFilter of(final long[] keys, final double falsePositiveRate) {
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("false positive rate must be between 0 and 1: " + falsePositiveRate);
+		}
+		final int n = Math.max(1, keys.length);
+		final double ln2 = Math.log(2);
+		final int bitCount = (int) Math.min(Integer.MAX_VALUE - 63,
+				Math.max(64, Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2))));
+		final int hashes = Math.max(1, (int) Math.round(-Math.log(falsePositiveRate) / ln2));
+		final OnSaleFilter filter = new OnSaleFilter(bitCount, hashes);
+		for (final long key : keys) {
+			filter.add(key);
+		}
+		return filter;
+	}
+
+	/**
+	 * @return false if the item is certainly not on sale
+	 */
+	public boolean mightBeOnSale(final long key) {
+		final long hash = ItemKey.mix(key);
+		final int h1 = (int) hash;
+		final int h2 = (int) (hash >>> 32);
+		for (int i = 0; i < hashes; i++) {
+			final int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+			if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void add(final long key) {
+		final long hash = ItemKey.mix(key);
+		final int h1 = (int) hash;
+		final int h2 = (int) (hash >>> 32);
+		for (int i = 0; i < hashes; i++) {
+			final int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+			bits[bit >>> 6] |= 1L << bit;
+		}
+	}
+}
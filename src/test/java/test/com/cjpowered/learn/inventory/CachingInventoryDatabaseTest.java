@@ -0,0 +1,213 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.cache.CacheStats;
+import com.cjpowered.learn.inventory.cache.CachingInventoryDatabase;
+
+public class CachingInventoryDatabaseTest {
+
+	private final int[] loads = { 0 };
+	private final long[] now = { 0 };
+
+	private final InventoryDatabase slow = new DatabaseTemplate() {
+		@Override
+		public int onHand(final Item item) {
+			loads[0]++;
+			return 7;
+		}
+
+		@Override
+		public int onHand(final Item item, final Warehouse warehouse) {
+			loads[0]++;
+			return warehouse.ordinal();
+		}
+
+		@Override
+		public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand, final int count) {
+			loads[0]++;
+			for (int i = 0; i < count; i++) {
+				onHand[i] = warehouses[i] == null ? 7 : warehouses[i].ordinal();
+			}
+		}
+
+		@Override
+		public int onOrder(final Item item) {
+			loads[0]++;
+			return 3;
+		}
+
+		@Override
+		public List<Item> stockItems() {
+			loads[0]++;
+			return Collections.emptyList();
+		}
+
+		@Override
+		public void setRequiredOnHand(final Item item, final int newAmount) {
+		}
+	};
+
+	@Test
+	public void repeatedReadsHitCache() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final CachingInventoryDatabase db = cache(100);
+
+		// when
+		for (int i = 0; i < 5; i++) {
+			db.onHand(item);
+			db.onOrder(item);
+			db.onHand(item, Warehouse.Zzyzx);
+			db.stockItems();
+		}
+
+		// then
+		final CacheStats stats = db.stats();
+		assertEquals(4, loads[0]);
+		assertEquals(16, stats.hits);
+		assertEquals(4, stats.misses);
+		assertEquals(0.8, stats.hitRate(), 1e-9);
+		assertEquals(Warehouse.Zzyzx.ordinal(), db.onHand(item, Warehouse.Zzyzx));
+	}
+
+	@Test
+	public void bulkReadSharesCachedAmounts() {
+		// given
+		final Item first = new StockedItem(10, false, 1);
+		final Item second = new StockedItem(10, false, 1);
+		final CachingInventoryDatabase db = cache(100);
+		db.onHand(first, Warehouse.Zzyzx);
+		final int[] onHand = new int[3];
+
+		// when
+		db.onHand(new Item[] { first, second, first }, new Warehouse[] { Warehouse.Zzyzx, null, null }, onHand, 3);
+		db.onHand(second);
+		db.onHand(first);
+
+		// then
+		assertArrayEquals(new int[] { Warehouse.Zzyzx.ordinal(), 7, 7 }, onHand);
+		assertEquals(2, loads[0]);
+		assertEquals(3, db.stats().hits);
+	}
+
+	@Test
+	public void leastRecentlyUsedEntryIsEvicted() {
+		// given
+		final Item first = new StockedItem(10, false, 1);
+		final Item second = new StockedItem(10, false, 1);
+		final Item third = new StockedItem(10, false, 1);
+		final CachingInventoryDatabase db = cache(2);
+		db.onHand(first);
+		db.onHand(second);
+		db.onHand(first);
+
+		// when
+		db.onHand(third);
+		loads[0] = 0;
+		db.onHand(first);
+		db.onHand(second);
+
+		// then
+		assertEquals(1, loads[0]);
+		assertEquals(2, db.stats().evictions);
+	}
+
+	@Test
+	public void entriesExpireAfterTimeToLive() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final CachingInventoryDatabase db = cache(100);
+		db.onHand(item);
+
+		// when
+		now[0] += TimeUnit.SECONDS.toNanos(61);
+		db.onHand(item);
+
+		// then
+		assertEquals(2, loads[0]);
+		assertEquals(1, db.stats().expirations);
+	}
+
+	@Test
+	public void levelChangeKeepsCachedAmounts() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final CachingInventoryDatabase db = cache(100);
+		db.onHand(item);
+		db.onOrder(item);
+		db.stockItems();
+
+		// when
+		db.setRequiredOnHand(item, 11);
+		loads[0] = 0;
+		db.onHand(item);
+		db.onOrder(item);
+		db.stockItems();
+
+		// then
+		assertEquals(0, loads[0]);
+	}
+
+	@Test
+	public void invalidationDropsOnlyItsItem() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final Item other = new StockedItem(10, false, 1);
+		final CachingInventoryDatabase db = cache(100);
+		db.onHand(item);
+		db.onOrder(item);
+		db.onHand(other);
+
+		// when
+		db.invalidate(item);
+		loads[0] = 0;
+		db.onHand(item);
+		db.onOrder(item);
+		db.onHand(other);
+
+		// then
+		assertEquals(2, loads[0]);
+	}
+
+	@Test
+	public void invalidationDuringLoadKeepsOtherItemsLoad() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final Item other = new StockedItem(10, false, 1);
+		final CachingInventoryDatabase[] cache = new CachingInventoryDatabase[1];
+		final InventoryDatabase invalidating = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item read) {
+				loads[0]++;
+				// another thread invalidates an item while this load is running
+				cache[0].invalidate(read == other ? item : other);
+				return 7;
+			}
+		};
+		cache[0] = new CachingInventoryDatabase(invalidating, 100, 60, TimeUnit.SECONDS, () -> now[0]);
+		final CachingInventoryDatabase db = cache[0];
+
+		// when
+		db.onHand(other);
+		db.onHand(other);
+
+		// then
+		assertEquals(1, loads[0]);
+	}
+
+	private CachingInventoryDatabase cache(final int maximumSize) {
+		return new CachingInventoryDatabase(slow, maximumSize, 60, TimeUnit.SECONDS, () -> now[0]);
+	}
+}
@@ -0,0 +1,81 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.catalog.CatalogIndex;
+import com.cjpowered.learn.inventory.catalog.PackSize;
+import com.cjpowered.learn.marketing.Season;
+
+public class CatalogIndexTest {
+
+	@Test
+	public void indexesEveryAttribute() {
+		// given
+		final HashMap<Warehouse, Integer> warehouseReqs = new HashMap<>();
+		warehouseReqs.put(Warehouse.Zzyzx, 12);
+		final Item stocked = new StockedItem(10, false, 1);
+		final Item remote = new StockedItem(warehouseReqs, true, 24);
+		final Item seasonal = new SeasonalItem(10, Season.Summer, true, 6);
+
+		// when
+		final CatalogIndex index = CatalogIndex.of(Arrays.asList(stocked, remote, seasonal));
+
+		// then
+		assertEquals(Collections.singleton(seasonal), index.bySeason(Season.Summer));
+		assertTrue(index.bySeason(Season.Winter).isEmpty());
+		assertEquals(2, index.nonSeasonal().size());
+		assertEquals(2, index.byRestricted(true).size());
+		assertEquals(Collections.singleton(stocked), index.byPackSize(PackSize.SINGLE));
+		assertEquals(Collections.singleton(seasonal), index.byPackSize(PackSize.SMALL));
+		assertEquals(Collections.singleton(remote), index.byPackSize(PackSize.CASE));
+		assertEquals(2, index.byKind(StockedItem.class).size());
+		assertEquals(Collections.singleton(remote), index.byWarehouse(Warehouse.Zzyzx));
+		assertEquals(2, index.byWarehouse(Warehouse.home()).size());
+	}
+
+	@Test
+	public void queryIntersectsTerms() {
+		// given
+		final Item stocked = new StockedItem(10, true, 1);
+		final Item seasonal = new SeasonalItem(10, Season.Summer, true, 1);
+		final Item other = new SeasonalItem(10, Season.Summer, false, 1);
+		final CatalogIndex index = CatalogIndex.of(Arrays.asList(stocked, seasonal, other));
+
+		// when
+		final List<Item> actual = index.query().restricted(true).season(Season.Summer).items();
+
+		// then
+		assertEquals(Collections.singletonList(seasonal), actual);
+	}
+
+	@Test
+	public void removeDropsItemFromEveryIndex() {
+		// given
+		final Item seasonal = new SeasonalItem(10, Season.Fall, true, 30);
+		final CatalogIndex index = CatalogIndex.of(Collections.singletonList(seasonal));
+
+		// when
+		final boolean removed = index.remove(seasonal);
+
+		// then
+		assertTrue(removed);
+		assertTrue(index.items().isEmpty());
+		assertTrue(index.bySeason(Season.Fall).isEmpty());
+		assertTrue(index.byRestricted(true).isEmpty());
+		assertTrue(index.byPackSize(PackSize.BULK).isEmpty());
+		assertTrue(index.byKind(SeasonalItem.class).isEmpty());
+		assertTrue(index.byWarehouse(Warehouse.home()).isEmpty());
+	}
+}
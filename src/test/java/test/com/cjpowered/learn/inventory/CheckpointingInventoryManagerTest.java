@@ -0,0 +1,232 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.CheckpointingInventoryManager;
+import com.cjpowered.learn.inventory.ace.FileCheckpointStore;
+import com.cjpowered.learn.inventory.ace.PlanningCheckpoint;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class CheckpointingInventoryManagerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final MarketingInfo marketing = new MarketingTemplate() {
+		@Override
+		public boolean onSale(final Item item) {
+			return false;
+		}
+	};
+
+	@Test
+	public void resumedRunMatchesUninterruptedRun() throws Exception {
+		// given
+		final List<Item> catalog = new ArrayList<>();
+		final Map<Item, Integer> store = new HashMap<>();
+		for (int i = 0; i < 50; i++) {
+			final Item item = new StockedItem(20, false, 1);
+			catalog.add(item);
+			store.put(item, i % 3 == 0 ? 0 : i % 25);
+		}
+		final List<Item> levelWrites = new ArrayList<>();
+		final int[] failAt = { 37 };
+		final int[] reads = { 0 };
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				if (reads[0]++ == failAt[0]) {
+					throw new IllegalStateException("simulated crash");
+				}
+				return store.get(item);
+			}
+
+			@Override
+			public void setRequiredOnHand(final Item item, final int newAmount) {
+				levelWrites.add(item);
+			}
+
+			@Override
+			public List<Item> stockItems() {
+				return catalog;
+			}
+		};
+		final MarketingInfo mrktInfo = marketing;
+		final File file = new File(folder.getRoot(), "plan.ckpt");
+		final FileCheckpointStore checkpoints = new FileCheckpointStore(file.toPath());
+		final CheckpointingInventoryManager im = new CheckpointingInventoryManager(db, mrktInfo, checkpoints, 10);
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+
+		// when
+		try {
+			im.getOrders(today);
+			fail("expected simulated crash");
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+		final PlanningCheckpoint saved = checkpoints.load();
+		failAt[0] = -1;
+		final List<Order> actualOrders = im.getOrders(today);
+
+		// then
+		assertEquals(30, saved.position);
+		assertEquals(25, saved.orders.size());
+		assertNull(checkpoints.load());
+		assertFalse(file.exists());
+		final int writesBeforeClean = levelWrites.size();
+		levelWrites.clear();
+		final List<Order> expectedOrders = new AceInventoryManager(db, mrktInfo).getOrders(today);
+		assertEquals(expectedOrders, actualOrders);
+		assertEquals(levelWrites.size() + 3, writesBeforeClean);
+	}
+
+	@Test
+	public void changedCatalogOfSameSizeStartsOver() throws Exception {
+		// given
+		final List<Item> catalog = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			catalog.add(new StockedItem(20, false, 1));
+		}
+		final int[] failAt = { 15 };
+		final int[] reads = { 0 };
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				if (reads[0]++ == failAt[0]) {
+					throw new IllegalStateException("simulated crash");
+				}
+				return 0;
+			}
+
+			@Override
+			public void setRequiredOnHand(final Item item, final int newAmount) {
+			}
+
+			@Override
+			public List<Item> stockItems() {
+				return catalog;
+			}
+		};
+		final FileCheckpointStore checkpoints = new FileCheckpointStore(folder.getRoot().toPath().resolve("plan"));
+		final CheckpointingInventoryManager im = new CheckpointingInventoryManager(db, marketing, checkpoints, 10);
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+		try {
+			im.getOrders(today);
+			fail("expected simulated crash");
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+		failAt[0] = -1;
+		catalog.set(3, new StockedItem(30, false, 1));
+
+		// when
+		final List<Order> orders = im.getOrders(today);
+
+		// then
+		assertEquals(20, orders.size());
+		assertEquals(catalog.get(3), orders.get(3).item);
+		assertEquals(30, orders.get(3).quantity);
+	}
+
+	@Test
+	public void changedPolicyStartsOver() throws Exception {
+		// given
+		final List<Item> catalog = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			catalog.add(new StockedItem(20, false, 1));
+		}
+		final int[] failAt = { 15 };
+		final int[] reads = { 0 };
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				if (reads[0]++ == failAt[0]) {
+					throw new IllegalStateException("simulated crash");
+				}
+				return 10;
+			}
+
+			@Override
+			public void setRequiredOnHand(final Item item, final int newAmount) {
+			}
+
+			@Override
+			public List<Item> stockItems() {
+				return catalog;
+			}
+		};
+		final FileCheckpointStore checkpoints = new FileCheckpointStore(folder.getRoot().toPath().resolve("plan"));
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+		try {
+			new CheckpointingInventoryManager(db, marketing, OrderPolicy.DEFAULT, checkpoints, 10).getOrders(today);
+			fail("expected simulated crash");
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+		failAt[0] = -1;
+
+		// when: at 10 of 20 on hand, only the stricter threshold reorders
+		final List<Order> orders = new CheckpointingInventoryManager(db, marketing, new OrderPolicy(20, 2.0, 0.4, 1.10),
+				checkpoints, 10).getOrders(today);
+
+		// then
+		assertEquals(Collections.emptyList(), orders);
+	}
+
+	@Test
+	public void savesAppendAndTornSaveIsDropped() throws Exception {
+		// given
+		final Path file = folder.getRoot().toPath().resolve("plan");
+		final FileCheckpointStore checkpoints = new FileCheckpointStore(file);
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+		checkpoints.save(new PlanningCheckpoint(today, 30, 7, 10,
+				Arrays.asList(new PlanningCheckpoint.Entry(2, null, 5))));
+		final long firstSize = Files.size(file);
+		checkpoints.save(new PlanningCheckpoint(today, 30, 7, 20,
+				Arrays.asList(new PlanningCheckpoint.Entry(12, Warehouse.Ashford, 6))));
+		final long secondSize = Files.size(file);
+		Files.write(file, new byte[] { 0, 0, 0, 40, 1, 2 }, StandardOpenOption.APPEND);
+
+		// when
+		final PlanningCheckpoint torn = checkpoints.load();
+		checkpoints.save(new PlanningCheckpoint(today, 30, 7, 25, new ArrayList<>()));
+		final PlanningCheckpoint resumed = checkpoints.load();
+
+		// then
+		assertEquals(29, secondSize - firstSize);
+		// the torn bytes are gone and the order-less save adds 20 bytes
+		assertEquals(secondSize + 20, Files.size(file));
+		assertEquals(20, torn.position);
+		assertEquals(2, torn.orders.size());
+		assertEquals(25, resumed.position);
+		assertEquals(12, resumed.orders.get(1).item);
+		assertEquals(Warehouse.Ashford, resumed.orders.get(1).warehouse);
+	}
+}
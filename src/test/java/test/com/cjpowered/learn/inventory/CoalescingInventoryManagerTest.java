@@ -0,0 +1,156 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.cache.CoalescingInventoryManager;
+
+public class CoalescingInventoryManagerTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2016, 3, 14);
+
+	@Test
+	public void concurrentCallersShareOneComputation() throws Exception {
+		// given
+		final int callers = 4;
+		final CountDownLatch arrived = new CountDownLatch(callers);
+		final List<Order> orders = Collections.singletonList(new Order(new StockedItem(10, false, 1), 5, Warehouse.home()));
+		final InventoryManager slow = today -> {
+			try {
+				arrived.await(10, TimeUnit.SECONDS);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return orders;
+		};
+		final CoalescingInventoryManager manager = new CoalescingInventoryManager(slow, () -> {
+			arrived.countDown();
+			return 1;
+		});
+		final ExecutorService pool = Executors.newFixedThreadPool(callers);
+
+		// when
+		final List<Future<List<Order>>> results = new ArrayList<>();
+		for (int i = 0; i < callers; i++) {
+			results.add(pool.submit(() -> manager.getOrders(TODAY)));
+		}
+		final List<Order> first = results.get(0).get(10, TimeUnit.SECONDS);
+		pool.shutdown();
+
+		// then
+		assertEquals(orders, first);
+		for (final Future<List<Order>> result : results) {
+			assertSame(first, result.get());
+		}
+		assertEquals(1, manager.computations());
+	}
+
+	@Test
+	public void recomputesWhenDataChanges() {
+		// given
+		final AtomicLong version = new AtomicLong();
+		final CoalescingInventoryManager manager = new CoalescingInventoryManager(today -> new ArrayList<>(),
+				version::get);
+
+		// when
+		manager.getOrders(TODAY);
+		manager.getOrders(TODAY);
+		version.incrementAndGet();
+		manager.getOrders(TODAY);
+		manager.getOrders(TODAY.plusDays(1));
+
+		// then
+		assertEquals(3, manager.computations());
+	}
+
+	@Test
+	public void staleComputationKeepsNewerPlans() {
+		// given: today's plan sees the data change and tomorrow planned meanwhile
+		final AtomicLong version = new AtomicLong(1);
+		final CoalescingInventoryManager[] manager = new CoalescingInventoryManager[1];
+		manager[0] = new CoalescingInventoryManager(today -> {
+			if (today.equals(TODAY)) {
+				version.set(2);
+				manager[0].getOrders(TODAY.plusDays(1));
+			}
+			return new ArrayList<>();
+		}, version::get);
+
+		// when
+		manager[0].getOrders(TODAY);
+		manager[0].getOrders(TODAY.plusDays(1));
+		manager[0].getOrders(TODAY);
+
+		// then
+		assertEquals(3, manager[0].computations());
+	}
+
+	@Test
+	public void failuresAreNotCached() {
+		// given
+		final AtomicBoolean failing = new AtomicBoolean(true);
+		final CoalescingInventoryManager manager = new CoalescingInventoryManager(today -> {
+			if (failing.get()) {
+				throw new IllegalStateException("database down");
+			}
+			return new ArrayList<>();
+		}, () -> 1);
+
+		// when
+		try {
+			manager.getOrders(TODAY);
+			fail("expected failure");
+		} catch (final IllegalStateException expected) {
+			// expected
+		}
+		failing.set(false);
+
+		// then
+		assertEquals(0, manager.getOrders(TODAY).size());
+		assertEquals(2, manager.computations());
+	}
+
+	@Test(timeout = 5000)
+	public void errorsReleaseWaitersAndAreNotCached() {
+		// given
+		final AtomicBoolean failing = new AtomicBoolean(true);
+		final CoalescingInventoryManager manager = new CoalescingInventoryManager(today -> {
+			if (failing.get()) {
+				throw new StackOverflowError();
+			}
+			return new ArrayList<>();
+		}, () -> 1);
+
+		// when
+		try {
+			manager.getOrders(TODAY);
+			fail("expected failure");
+		} catch (final StackOverflowError expected) {
+			// expected
+		}
+		failing.set(false);
+
+		// then
+		assertEquals(0, manager.getOrders(TODAY).size());
+		assertEquals(2, manager.computations());
+	}
+}
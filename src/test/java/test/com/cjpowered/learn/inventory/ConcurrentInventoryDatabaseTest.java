@@ -0,0 +1,145 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+
+public class ConcurrentInventoryDatabaseTest {
+
+	@Test
+	public void storesLevelsPerWarehouse() {
+		// given
+		final HashMap<Warehouse, Integer> warehouseReqs = new HashMap<>();
+		warehouseReqs.put(Warehouse.Ashford, 12);
+		final Item item = new StockedItem(warehouseReqs, false, 1);
+		final Item other = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(10);
+
+		// when
+		final int id = db.add(item);
+		db.add(other);
+		db.setOnHand(item, Warehouse.Ashford, 5);
+		db.addOnOrder(item, Warehouse.Ashford, 4);
+		db.setOnHand(item, Warehouse.home(), 2);
+		db.setRequiredOnHand(other, 11);
+
+		// then
+		assertEquals(id, db.add(item));
+		assertEquals(Arrays.asList(item, other), db.stockItems());
+		assertEquals(5, db.onHand(item, Warehouse.Ashford));
+		assertEquals(4, db.onOrder(item, Warehouse.Ashford));
+		assertEquals(2, db.onHand(item));
+		assertEquals(0, db.onOrder(item));
+		assertEquals(12, db.requiredOnHand(item, Warehouse.Ashford));
+		assertEquals(11, db.requiredOnHand(other, Warehouse.home()));
+	}
+
+	@Test
+	public void removalNeverGoesNegative() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		final int id = db.add(item);
+		db.setOnHand(item, Warehouse.home(), 3);
+
+		// when
+		final boolean removed = db.tryRemoveOnHand(id, Warehouse.home(), 2);
+		final boolean overdrawn = db.tryRemoveOnHand(id, Warehouse.home(), 2);
+
+		// then
+		assertTrue(removed);
+		assertFalse(overdrawn);
+		assertEquals(1, db.onHand(item));
+	}
+
+	@Test
+	public void bulkDeltasTreatNullWarehouseAsHome() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(item);
+
+		// when
+		db.applyDeltas(new Item[] { item, item }, new Warehouse[] { Warehouse.Ashford, null }, new int[] { 3, 4 },
+				new int[] { 0, 0 }, 2);
+
+		// then
+		assertEquals(3, db.onHand(item, Warehouse.Ashford));
+		assertEquals(4, db.onHand(item, Warehouse.home()));
+	}
+
+	@Test
+	public void rejectedBulkDeltasApplyNothing() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(item);
+
+		// when
+		try {
+			db.applyDeltas(new Item[] { item, new StockedItem(10, false, 1) },
+					new Warehouse[] { Warehouse.home(), Warehouse.home() }, new int[] { 3, 4 }, new int[] { 0, 0 }, 2);
+			fail("unknown item accepted");
+		} catch (final IllegalArgumentException e) {
+			// then
+			assertEquals(0, db.onHand(item, Warehouse.home()));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void capacityIsEnforced() {
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(new StockedItem(10, false, 1));
+		db.add(new StockedItem(10, false, 1));
+	}
+
+	@Test
+	public void concurrentSalesAndReceiptsBalance() throws Exception {
+		// given
+		final int threads = 8;
+		final int perThread = 50_000;
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		final int id = db.add(item);
+		db.setOnHand(item, Warehouse.Zzyzx, threads * perThread);
+		final AtomicInteger sold = new AtomicInteger();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		// when
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < perThread; i++) {
+					if (db.tryRemoveOnHand(id, Warehouse.Zzyzx, 2)) {
+						sold.addAndGet(2);
+					}
+					db.addOnHand(id, Warehouse.Zzyzx, 1);
+				}
+			}));
+		}
+		for (final Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		// then
+		assertEquals(2 * threads * perThread - sold.get(), db.onHand(item, Warehouse.Zzyzx));
+	}
+}
@@ -0,0 +1,190 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryEvents;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.ContinuousReplenisher;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class ContinuousReplenisherTest {
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+	@After
+	public void stopScheduler() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void burstOfChangesProducesOneOrder() throws Exception {
+		// given
+		final Item item = new StockedItem(20, false, 1);
+		final int[] onHand = { 20 };
+		final List<Order> emitted = new CopyOnWriteArrayList<>();
+		final InventoryEvents events = new InventoryEvents();
+		events.subscribe(replenisher(item, onHand, LocalDate.of(2017, 1, 2), emitted));
+
+		// when
+		for (int sold = 1; sold <= 15; sold++) {
+			onHand[0] = 20 - sold;
+			events.publish(item, Warehouse.home(), onHand[0], 0);
+		}
+		awaitIdle();
+
+		// then
+		assertEquals(1, emitted.size());
+		assertEquals(15, emitted.get(0).quantity);
+	}
+
+	@Test
+	public void changeAboveThresholdIsIgnored() throws Exception {
+		// given
+		final Item item = new StockedItem(20, false, 1);
+		final int[] onHand = { 19 };
+		final List<Order> emitted = new CopyOnWriteArrayList<>();
+		final ContinuousReplenisher replenisher = replenisher(item, onHand, LocalDate.of(2017, 1, 2), emitted);
+
+		// when
+		replenisher.inventoryChanged(item, Warehouse.home(), 19, 0);
+		awaitIdle();
+
+		// then
+		assertTrue(emitted.isEmpty());
+	}
+
+	@Test
+	public void restrictedItemWaitsForFirstOfMonth() throws Exception {
+		// given
+		final Item item = new StockedItem(20, true, 1);
+		final int[] onHand = { 2 };
+		final List<Order> emitted = new CopyOnWriteArrayList<>();
+		final ContinuousReplenisher midMonth = replenisher(item, onHand, LocalDate.of(2017, 1, 2), emitted);
+		final ContinuousReplenisher firstOfMonth = replenisher(item, onHand, LocalDate.of(2017, 2, 1), emitted);
+
+		// when
+		midMonth.inventoryChanged(item, Warehouse.home(), 2, 0);
+		awaitIdle();
+		final int midMonthOrders = emitted.size();
+		firstOfMonth.inventoryChanged(item, Warehouse.home(), 2, 0);
+		awaitIdle();
+
+		// then
+		assertEquals(0, midMonthOrders);
+		assertEquals(1, emitted.size());
+	}
+
+	@Test
+	public void failedEvaluationIsRetried() throws Exception {
+		// given
+		final Item item = new StockedItem(20, false, 1);
+		final int[] failures = { 2 };
+		final List<Order> emitted = new CopyOnWriteArrayList<>();
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				if (failures[0]-- > 0) {
+					throw new IllegalStateException("store unavailable");
+				}
+				return 5;
+			}
+		};
+		final ContinuousReplenisher replenisher = new ContinuousReplenisher(db, marketing(new int[1]),
+				OrderPolicy.DEFAULT, clock(LocalDate.of(2017, 1, 2)), scheduler, 20, TimeUnit.MILLISECONDS,
+				emitted::add);
+
+		// when
+		replenisher.inventoryChanged(item, Warehouse.home(), 5, 0);
+		awaitIdle();
+		awaitIdle();
+		awaitIdle();
+
+		// then
+		assertEquals(1, emitted.size());
+		assertEquals(15, emitted.get(0).quantity);
+	}
+
+	@Test
+	public void evaluationsOfOneDayShareTheSeason() throws Exception {
+		// given
+		final Item first = new SeasonalItem(20, Season.Spring, false, 1);
+		final Item second = new SeasonalItem(20, Season.Spring, false, 1);
+		final int[] seasonCalls = new int[1];
+		final List<Order> emitted = new CopyOnWriteArrayList<>();
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				return 5;
+			}
+		};
+		final ContinuousReplenisher replenisher = new ContinuousReplenisher(db, marketing(seasonCalls),
+				OrderPolicy.DEFAULT, clock(LocalDate.of(2017, 1, 2)), scheduler, 20, TimeUnit.MILLISECONDS,
+				emitted::add);
+
+		// when
+		replenisher.inventoryChanged(first, Warehouse.home(), 5, 0);
+		awaitIdle();
+		replenisher.inventoryChanged(second, Warehouse.home(), 5, 0);
+		awaitIdle();
+
+		// then: once for the day's calendar, once for each evaluation's own facts
+		assertEquals(2, emitted.size());
+		assertEquals(3, seasonCalls[0]);
+	}
+
+	private ContinuousReplenisher replenisher(final Item item, final int[] onHand, final LocalDate today,
+			final List<Order> emitted) {
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				return onHand[0];
+			}
+		};
+		return new ContinuousReplenisher(db, marketing(new int[1]), OrderPolicy.DEFAULT, clock(today), scheduler, 20,
+				TimeUnit.MILLISECONDS, emitted::add);
+	}
+
+	private static MarketingInfo marketing(final int[] seasonCalls) {
+		return new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return false;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				seasonCalls[0]++;
+				return Season.Spring;
+			}
+		};
+	}
+
+	private static Clock clock(final LocalDate today) {
+		return Clock.fixed(today.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+	}
+
+	private void awaitIdle() throws Exception {
+		Thread.sleep(100);
+		scheduler.submit(() -> null).get();
+	}
+}
@@ -0,0 +1,205 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryEvents;
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.CoverageIndex;
+import com.cjpowered.learn.inventory.ace.CoverageInventoryManager;
+import com.cjpowered.learn.inventory.catalog.CatalogIndex;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class CoverageIndexTest {
+
+	@Test
+	public void candidatesAreItemsNeedingAction() {
+		// given
+		final Item low = new StockedItem(10, false, 1);
+		final Item full = new StockedItem(10, false, 1);
+		final Item empty = new StockedItem(10, false, 1);
+		final Item onSale = new StockedItem(10, false, 1);
+		final CoverageIndex index = new CoverageIndex();
+		index.update(low, 2, 0);
+		index.update(full, 8, 2);
+		index.update(empty, 0, 20);
+		index.update(onSale, 10, 0);
+		index.setBoosted(onSale, true);
+
+		// when
+		final Set<Item> candidates = index.candidates(0.8);
+
+		// then
+		assertEquals(new HashSet<>(Arrays.asList(low, empty, onSale)), candidates);
+	}
+
+	@Test
+	public void updateMovesItemBetweenBuckets() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final CoverageIndex index = new CoverageIndex();
+		index.update(item, 10, 0);
+
+		// when
+		index.update(item, 3, 0);
+
+		// then
+		assertTrue(index.candidates(0.8).contains(item));
+		index.update(item, 9, 0);
+		assertFalse(index.candidates(0.8).contains(item));
+	}
+
+	@Test
+	public void managerMatchesFullScan() {
+		// given
+		final Item low = new StockedItem(16, false, 1);
+		final Item full = new StockedItem(10, false, 1);
+		final Item saleItem = new StockedItem(10, false, 1);
+		final Item seasonal = new SeasonalItem(10, Season.Summer, false, 1);
+		final Item offSeason = new SeasonalItem(10, Season.Winter, false, 1);
+		final List<Item> catalog = Arrays.asList(low, full, saleItem, seasonal, offSeason);
+		final HashMap<Item, Integer> store = new HashMap<>();
+		store.put(low, 4);
+		store.put(full, 10);
+		store.put(saleItem, 10);
+		store.put(seasonal, 10);
+		store.put(offSeason, 10);
+		final Set<Item> queried = new HashSet<>();
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				queried.add(item);
+				return store.get(item);
+			}
+
+			@Override
+			public List<Item> stockItems() {
+				return catalog;
+			}
+		};
+		final MarketingInfo mrktInfo = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return item == saleItem;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Summer;
+			}
+		};
+		final CoverageIndex coverage = new CoverageIndex();
+		for (final Item item : catalog) {
+			coverage.update(item, store.get(item), 0);
+		}
+		final InventoryManager im = new CoverageInventoryManager(db, mrktInfo, coverage, CatalogIndex.of(catalog),
+				() -> Collections.singleton(saleItem));
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+
+		// when
+		final List<Order> actualOrders = im.getOrders(today);
+
+		// then
+		final List<Order> expectedOrders = new AceInventoryManager(db, mrktInfo).getOrders(today);
+		assertEquals(new HashSet<>(expectedOrders), new HashSet<>(actualOrders));
+		assertEquals(3, actualOrders.size());
+		queried.clear();
+		im.getOrders(today);
+		assertFalse(queried.contains(full));
+		assertFalse(queried.contains(offSeason));
+	}
+
+	@Test
+	public void boostsFollowTheSaleSource() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(item);
+		db.setOnHand(item, Warehouse.home(), 10);
+		final Set<Item> onSale = new HashSet<>(Arrays.asList(item));
+		final MarketingInfo mrktInfo = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return onSale.contains(item);
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Summer;
+			}
+		};
+		final CoverageIndex coverage = new CoverageIndex();
+		coverage.update(item, 10, 0);
+		final InventoryManager im = new CoverageInventoryManager(db, mrktInfo, coverage,
+				CatalogIndex.of(Arrays.asList(item)), () -> onSale);
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+
+		// when
+		final List<Order> onSaleOrders = im.getOrders(today);
+		onSale.clear();
+		im.getOrders(today);
+
+		// then
+		assertEquals(Arrays.asList(new Order(item, 20, Warehouse.home())), onSaleOrders);
+		assertFalse(coverage.candidates(0.8).contains(item));
+	}
+
+	@Test
+	public void trackedIndexFollowsLevelChangesBetweenRuns() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final InventoryEvents events = new InventoryEvents();
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1, events);
+		db.add(item);
+		db.setOnHand(item, Warehouse.home(), 10);
+		final CoverageIndex coverage = CoverageIndex.track(db, events);
+		final MarketingInfo mrktInfo = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return false;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Summer;
+			}
+		};
+		final InventoryManager im = new CoverageInventoryManager(db, mrktInfo, coverage,
+				CatalogIndex.of(Arrays.asList(item)), Collections::emptySet);
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+		assertEquals(0, im.getOrders(today).size());
+
+		// when
+		db.setOnHand(item, Warehouse.home(), 2);
+		db.setOnHand(item, Warehouse.Ashford, 10);
+
+		// then
+		assertEquals(Arrays.asList(new Order(item, 8, Warehouse.home())), im.getOrders(today));
+
+		// when
+		db.setOnOrder(item, Warehouse.home(), 8);
+
+		// then
+		assertFalse(coverage.candidates(0.8).contains(item));
+	}
+}
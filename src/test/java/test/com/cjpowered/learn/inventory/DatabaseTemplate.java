@@ -20,6 +20,7 @@ public class DatabaseTemplate implements InventoryDatabase {
     }
 
 	@Override
+	@SuppressWarnings("deprecation")
 	public int onOrder(Item item) {
 		// TODO Auto-generated method stub
 		
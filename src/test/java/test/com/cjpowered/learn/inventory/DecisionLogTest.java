@@ -0,0 +1,206 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.audit.Decision;
+import com.cjpowered.learn.inventory.audit.DecisionLog;
+import com.cjpowered.learn.inventory.audit.DecisionRecord;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class DecisionLogTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2016, 3, 14);
+	private static final int ITEMS = 50_000;
+
+	@Test
+	public void recordsWhyEachItemWasOrdered() throws Exception {
+		// given
+		final Item restricted = new StockedItem(10, true, 1);
+		final Item low = new StockedItem(40, false, 1);
+		final Item full = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(3);
+		db.add(restricted);
+		db.add(low);
+		db.add(full);
+		db.setOnHand(low, Warehouse.home(), 5);
+		db.setOnHand(full, Warehouse.home(), 9);
+		final DecisionLog log = new DecisionLog(16, 1);
+		final MarketingInfo mrktInfo = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return false;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Spring;
+			}
+		};
+
+		// when
+		new AceInventoryManager(db, mrktInfo, OrderPolicy.DEFAULT, log, db.itemKey()).getOrders(TODAY);
+		final Path file = Files.createTempFile("decisions", ".bin");
+		log.dump(file);
+		final List<DecisionRecord> loaded = DecisionLog.load(file);
+		Files.delete(file);
+
+		// then
+		final DecisionRecord why = log.query(db.idOf(low)).get(0);
+		assertEquals(Decision.ORDERED, why.decision);
+		assertEquals(35, why.quantity);
+		assertEquals(40, why.target);
+		assertEquals(5, why.onHand);
+		assertEquals(0, why.onOrder);
+		assertEquals(0, why.onSale);
+		assertEquals(Warehouse.home(), why.warehouse);
+		assertEquals(Decision.RESTRICTED_DAY, log.query(db.idOf(restricted)).get(0).decision);
+		assertEquals(Decision.ABOVE_THRESHOLD, log.query(db.idOf(full)).get(0).decision);
+		assertEquals(3, loaded.size());
+		assertEquals(why.toString(), loaded.get(1).toString());
+	}
+
+	@Test
+	public void keepsOnlyTheMostRecentRecords() {
+		// given
+		final DecisionLog log = new DecisionLog(4, 1);
+
+		// when
+		for (int i = 0; i < 10; i++) {
+			log.record(TODAY, i, Warehouse.home(), DecisionRecord.ON_HAND, 0, 0, 0, 10, Decision.ORDERED, i);
+		}
+
+		// then
+		final List<DecisionRecord> kept = log.query(r -> true);
+		assertEquals(4, kept.size());
+		assertEquals(6, kept.get(0).itemKey);
+		assertEquals(9, kept.get(3).itemKey);
+	}
+
+	@Test
+	public void runWritersKeepTheirRecordsTogether() {
+		// given: blocks of 64 sequences
+		final DecisionLog log = new DecisionLog(1024, 1);
+		final DecisionLog.Writer first = log.writer(TODAY);
+		final DecisionLog.Writer second = log.writer(TODAY.plusDays(1));
+
+		// when
+		first.record(1, Warehouse.home(), DecisionRecord.ON_HAND, 0, 0, 0, 10, Decision.ORDERED, 1);
+		second.record(2, Warehouse.home(), DecisionRecord.ON_HAND, 0, 0, 0, 10, Decision.ORDERED, 2);
+		first.record(3, Warehouse.home(), DecisionRecord.ON_HAND, 0, 0, 0, 10, Decision.ORDERED, 3);
+
+		// then
+		final List<DecisionRecord> kept = log.query(r -> true);
+		assertEquals(3, kept.size());
+		assertEquals(1, kept.get(0).itemKey);
+		assertEquals(3, kept.get(1).itemKey);
+		assertEquals(2, kept.get(2).itemKey);
+		assertEquals(64, kept.get(2).sequence);
+		assertEquals(TODAY.plusDays(1), kept.get(2).date);
+	}
+
+	@Test
+	public void fetchedFlagsTellNegativeLevelsFromMissingOnes() {
+		// given
+		final DecisionLog log = new DecisionLog(4, 1);
+
+		// when
+		log.record(TODAY, 1, Warehouse.home(), DecisionRecord.ON_HAND, -1, -1, 1, 10, Decision.ORDERED, 11);
+
+		// then
+		final DecisionRecord record = log.query(1).get(0);
+		assertTrue(record.wasFetched(DecisionRecord.ON_HAND));
+		assertFalse(record.wasFetched(DecisionRecord.ON_ORDER));
+		assertFalse(record.wasFetched(DecisionRecord.ON_SALE));
+		assertEquals(-1, record.onHand);
+		assertEquals(0, record.onOrder);
+		assertTrue(record.toString(), record.toString().endsWith("onHand=-1 onOrder=- onSale=-"));
+	}
+
+	@Test
+	public void fullCaptureCostsLittlePerDecision() {
+		// given
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(ITEMS);
+		for (int i = 0; i < ITEMS; i++) {
+			final Item item = new StockedItem(10 + i % 20, i % 7 == 0, 1);
+			db.add(item);
+			db.setOnHand(item, Warehouse.home(), i % 25);
+		}
+		final MarketingInfo mrktInfo = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return false;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Spring;
+			}
+		};
+		final DecisionLog log = new DecisionLog(ITEMS, 1);
+		final ItemKey keys = System::identityHashCode;
+
+		// when: the best of 40 runs, measured again while the machine is busy
+		final StringBuilder timings = new StringBuilder();
+		boolean cheap = false;
+		for (int attempt = 0; attempt < 3 && !cheap; attempt++) {
+			long plain = Long.MAX_VALUE;
+			long logged = Long.MAX_VALUE;
+			for (int run = 0; run < 40; run++) {
+				plain = Math.min(plain, timePlanning(new AceInventoryManager(db, mrktInfo, OrderPolicy.DEFAULT)));
+				logged = Math.min(logged,
+						timePlanning(new AceInventoryManager(db, mrktInfo, OrderPolicy.DEFAULT, log, keys)));
+			}
+			// recording costs about a tenth of in-memory planning, far less of planning against a real store
+			cheap = logged - plain < plain / 4;
+			timings.append("plain ").append(plain).append("ns, logged ").append(logged).append("ns; ");
+		}
+
+		// then: the runs' last blocks leave gaps in the ring
+		final int retained = log.query(r -> true).size();
+		assertTrue("retained " + retained, retained > log.capacity() - 2 * 64 && retained <= log.capacity());
+		assertTrue(timings.toString(), cheap);
+	}
+
+	@Test
+	public void samplesTheSameItemsEveryRun() {
+		// given
+		final DecisionLog log = new DecisionLog(1024, 8);
+
+		// when
+		int sampled = 0;
+		for (long key = 0; key < 800; key++) {
+			if (log.wants(key)) {
+				sampled++;
+				assertTrue(log.wants(key));
+			}
+		}
+		log.setSampleEvery(0);
+
+		// then
+		assertTrue("sampled " + sampled, sampled > 50 && sampled < 150);
+		assertFalse(log.wants(0));
+	}
+
+	private static long timePlanning(final AceInventoryManager manager) {
+		final long start = System.nanoTime();
+		manager.getOrders(TODAY);
+		return System.nanoTime() - start;
+	}
+}
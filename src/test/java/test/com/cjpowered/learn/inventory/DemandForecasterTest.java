@@ -0,0 +1,119 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.forecast.DemandForecaster;
+import com.cjpowered.learn.inventory.ingest.InventoryEvent;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class DemandForecasterTest {
+
+	private static final LocalDate START = LocalDate.of(2017, 3, 1);
+
+	private final MarketingInfo marketing = new MarketingInfo() {
+		@Override
+		public boolean onSale(final Item item) {
+			return false;
+		}
+
+		@Override
+		public Season season(final LocalDate when) {
+			final Month month = when.getMonth();
+			return month == Month.DECEMBER || month == Month.JANUARY || month == Month.FEBRUARY ? Season.Winter
+					: Season.Summer;
+		}
+	};
+
+	@Test
+	public void steadySalesGiveSteadyDemand() {
+		// given
+		final Item item = new StockedItem(1, false, 1);
+		final DemandForecaster forecaster = new DemandForecaster(marketing, 0.3, 0.1);
+
+		// when
+		for (int day = 0; day < 30; day++) {
+			forecaster.recordSale(item, Warehouse.Ashford, START.plusDays(day), 4);
+			forecaster.record(new InventoryEvent(InventoryEvent.Type.SALE, item, Warehouse.Ashford, 6),
+					START.plusDays(day));
+			forecaster.record(new InventoryEvent(InventoryEvent.Type.RECEIPT, item, Warehouse.Ashford, 50),
+					START.plusDays(day));
+		}
+
+		// then
+		assertEquals(10.0, forecaster.dailyDemand(item, Warehouse.Ashford, START.plusDays(30)), 1e-9);
+		assertEquals(30, forecaster.requiredLevel(item, Warehouse.Ashford, START.plusDays(30), 3));
+		assertEquals(0.0, forecaster.dailyDemand(item, Warehouse.Zzyzx, START.plusDays(30)), 0);
+	}
+
+	@Test
+	public void quietDaysDecayTheLevel() {
+		// given
+		final Item item = new StockedItem(1, false, 1);
+		final DemandForecaster forecaster = new DemandForecaster(marketing, 0.5, 0);
+		forecaster.recordSale(item, Warehouse.Peculiar, START, 8);
+		forecaster.recordSale(item, Warehouse.Peculiar, START.plusDays(1), 8);
+
+		// when
+		final double demand = forecaster.dailyDemand(item, Warehouse.Peculiar, START.plusDays(4));
+
+		// then: two days without sales halve the level twice
+		assertEquals(2.0, demand, 1e-9);
+
+		// when
+		forecaster.recordSale(item, Warehouse.Peculiar, START.plusDays(4), 0);
+
+		// then: recording catches up the same way
+		assertEquals(2.0, forecaster.dailyDemand(item, Warehouse.Peculiar, START.plusDays(4)), 1e-9);
+	}
+
+	@Test
+	public void seasonalFactorRaisesDemandInBusySeason() {
+		// given
+		final Item item = new StockedItem(1, false, 1);
+		final DemandForecaster forecaster = new DemandForecaster(marketing, 0.2, 0.2);
+		final LocalDate first = LocalDate.of(2016, 1, 1);
+
+		// when: 30 sold per day in winter, 10 otherwise
+		for (LocalDate day = first; day.isBefore(first.plusYears(2)); day = day.plusDays(1)) {
+			final boolean winter = marketing.season(day) == Season.Winter;
+			forecaster.recordSale(item, Warehouse.Poughkeepsie, day, winter ? 30 : 10);
+		}
+
+		// then
+		final double winter = forecaster.dailyDemand(item, Warehouse.Poughkeepsie, LocalDate.of(2018, 1, 2));
+		final double summer = forecaster.dailyDemand(item, Warehouse.Poughkeepsie, LocalDate.of(2018, 7, 2));
+		assertTrue(winter + " vs " + summer, winter > 2 * summer);
+	}
+
+	@Test
+	public void writesRequiredLevelsInBulk() {
+		// given
+		final Item sold = new StockedItem(1, false, 1);
+		final Item unsold = new StockedItem(1, false, 1);
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(2);
+		store.add(sold);
+		store.add(unsold);
+		final DemandForecaster forecaster = new DemandForecaster(marketing, 0.3, 0.1);
+		forecaster.recordSale(sold, Warehouse.Zzyzx, START, 5);
+
+		// when
+		final int written = forecaster.apply(Arrays.asList(sold, unsold), START.plusDays(1), 7, store);
+
+		// then
+		assertEquals(1, written);
+		assertEquals(35, store.requiredOnHand(sold, Warehouse.Zzyzx));
+		assertEquals(0, store.requiredOnHand(unsold, Warehouse.Zzyzx));
+	}
+}
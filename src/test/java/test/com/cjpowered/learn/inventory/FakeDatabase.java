@@ -22,17 +22,18 @@ public class FakeDatabase implements InventoryDatabase{
 	
 	@Override
 	public int onHand(Item item) {
-		return dataStore.get(item);
+		return dataStore.get(Warehouse.home()).get(item);
 	}
 
 	@Override
 	public List<Item> stockItems() {
 		// TODO Auto-generated method stub
-		final Set<Item> keys = dataStore.keySet();
+		final Set<Item> keys = dataStore.get(Warehouse.home()).keySet();
 		return new ArrayList<>(keys);
 	}
 
 	@Override
+	@SuppressWarnings("deprecation")
 	public int onOrder(Item item) {
 		// TODO Auto-generated method stub
 		return onOrder.get(item);
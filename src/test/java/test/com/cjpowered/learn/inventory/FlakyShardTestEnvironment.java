@@ -0,0 +1,44 @@
+package test.com.cjpowered.learn.inventory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Fails in the first worker process to start. The coordinator's instance
+ * names a marker file; workers receive it through their environment and the
+ * one that creates it fails.
+ */
+public class FlakyShardTestEnvironment extends ShardTestEnvironment {
+
+	static final String MARKER_VARIABLE = "FLAKY_SHARD_MARKER";
+
+	private final String marker;
+
+	public FlakyShardTestEnvironment() {
+		this.marker = System.getenv(MARKER_VARIABLE);
+	}
+
+	FlakyShardTestEnvironment(final Path marker) {
+		this.marker = marker.toString();
+	}
+
+	@Override
+	public Map<String, String> workerEnvironment() {
+		return Collections.singletonMap(MARKER_VARIABLE, marker);
+	}
+
+	@Override
+	public void workerStarted(final int shard) {
+		try {
+			if (new File(marker).createNewFile()) {
+				throw new IllegalStateException("simulated worker failure");
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
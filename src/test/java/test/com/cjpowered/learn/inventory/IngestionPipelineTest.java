@@ -0,0 +1,267 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.InventoryWriter;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ingest.EventFileReader;
+import com.cjpowered.learn.inventory.ingest.IngestionPipeline;
+import com.cjpowered.learn.inventory.ingest.InventoryEvent;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+
+public class IngestionPipelineTest {
+
+	@Test
+	public void netsEventsIntoBulkWrites() throws Exception {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(item);
+		db.setOnHand(item, Warehouse.home(), 5);
+		db.setOnOrder(item, Warehouse.home(), 8);
+		final IngestionPipeline pipeline = IngestionPipeline.start(db, 1000, 1000, 50, TimeUnit.MILLISECONDS);
+
+		// when
+		for (int i = 0; i < 100; i++) {
+			pipeline.submit(new InventoryEvent(InventoryEvent.Type.SALE, item, Warehouse.home(), 1));
+			pipeline.submit(new InventoryEvent(InventoryEvent.Type.ADJUSTMENT, item, Warehouse.home(), 1));
+		}
+		pipeline.submit(new InventoryEvent(InventoryEvent.Type.RECEIPT, item, Warehouse.home(), 8));
+		pipeline.submit(new InventoryEvent(InventoryEvent.Type.SALE, item, Warehouse.Ashford, 0));
+		assertTrue(pipeline.awaitApplied(10, TimeUnit.SECONDS));
+		pipeline.close();
+
+		// then
+		assertEquals(13, db.onHand(item, Warehouse.home()));
+		assertEquals(0, db.onOrder(item, Warehouse.home()));
+		assertEquals(202, pipeline.applied());
+		assertTrue(pipeline.batches() < 202);
+	}
+
+	@Test
+	public void readsEventsFromFile() throws Exception {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		final long key = db.add(item);
+		final Path file = Files.createTempFile("events", ".csv");
+		Files.write(file, Arrays.asList("# type,item,warehouse,quantity", "RECEIPT," + key + ",Ashford,6", "",
+				"SALE," + key + ",Ashford,2"), StandardCharsets.UTF_8);
+		final IngestionPipeline pipeline = IngestionPipeline.start(db, 10, 10, 1, TimeUnit.MILLISECONDS);
+
+		// when
+		final long read = new EventFileReader(k -> db.item(Math.toIntExact(k))).readInto(file, pipeline);
+		pipeline.close();
+		Files.delete(file);
+
+		// then
+		assertEquals(2, read);
+		assertEquals(4, db.onHand(item, Warehouse.Ashford));
+		assertEquals(0, db.onOrder(item, Warehouse.Ashford));
+	}
+
+	@Test
+	public void failedWriteIsRetriedWithoutLosingChanges() throws Exception {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(item);
+		final AtomicBoolean down = new AtomicBoolean(true);
+		final InventoryWriter flaky = (items, warehouses, onHandDeltas, onOrderDeltas, count) -> {
+			if (down.get()) {
+				throw new IllegalStateException("writer unavailable");
+			}
+			db.applyDeltas(items, warehouses, onHandDeltas, onOrderDeltas, count);
+		};
+		final IngestionPipeline pipeline = IngestionPipeline.start(flaky, 10, 10, 1, TimeUnit.MILLISECONDS);
+		pipeline.submit(new InventoryEvent(InventoryEvent.Type.ADJUSTMENT, item, Warehouse.home(), 7));
+		try {
+			pipeline.awaitApplied(10, TimeUnit.SECONDS);
+			fail("failed write reported as applied");
+		} catch (final IllegalStateException e) {
+			assertEquals(0, pipeline.applied());
+		}
+
+		// when
+		down.set(false);
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (pipeline.batches() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		final boolean applied = pipeline.awaitApplied(10, TimeUnit.SECONDS);
+		pipeline.close();
+
+		// then
+		assertTrue(applied);
+		assertEquals(7, db.onHand(item, Warehouse.home()));
+		assertEquals(1, pipeline.applied());
+	}
+
+	@Test
+	public void closeReportsChangesThatNeverLanded() throws Exception {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final IngestionPipeline pipeline = IngestionPipeline.start((items, warehouses, onHandDeltas, onOrderDeltas,
+				count) -> {
+			throw new IllegalStateException("writer unavailable");
+		}, 10, 10, 1, TimeUnit.MILLISECONDS);
+		pipeline.submit(new InventoryEvent(InventoryEvent.Type.SALE, item, Warehouse.home(), 1));
+
+		// when
+		try {
+			pipeline.close();
+			fail("unapplied events went unreported");
+		} catch (final IllegalStateException e) {
+			// then
+			assertEquals("writer unavailable", e.getCause().getMessage());
+		}
+		assertEquals(0, pipeline.applied());
+	}
+
+	@Test
+	public void rejectedChangeGoesToDeadLettersAndTheRestLand() throws Exception {
+		// given
+		final Item stocked = new StockedItem(10, false, 1);
+		final Item unknown = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(stocked);
+		db.setOnHand(stocked, Warehouse.home(), 100);
+		// a writer that cannot tell up front which items it stocks
+		final InventoryWriter writer = db::applyDeltas;
+		final List<Item> dead = new ArrayList<>();
+		final IngestionPipeline pipeline = IngestionPipeline.start(writer,
+				(item, warehouse, onHandDelta, onOrderDelta, events, cause) -> dead.add(item), 100, 100, 50,
+				TimeUnit.MILLISECONDS);
+
+		// when
+		pipeline.submit(new InventoryEvent(InventoryEvent.Type.SALE, unknown, Warehouse.home(), 1));
+		for (int i = 0; i < 10; i++) {
+			pipeline.submit(new InventoryEvent(InventoryEvent.Type.SALE, stocked, Warehouse.home(), 1));
+		}
+		final boolean settled = pipeline.awaitApplied(10, TimeUnit.SECONDS);
+		pipeline.close();
+
+		// then
+		assertTrue(settled);
+		assertEquals(90, db.onHand(stocked, Warehouse.home()));
+		assertEquals(10, pipeline.applied());
+		assertEquals(1, pipeline.rejected());
+		assertEquals(Arrays.asList(unknown), dead);
+	}
+
+	@Test
+	public void refusesEventsForItemsNotStocked() throws Exception {
+		// given
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		final IngestionPipeline pipeline = IngestionPipeline.start(db, 10, 10, 1, TimeUnit.MILLISECONDS);
+
+		// when
+		try {
+			pipeline.submit(
+					new InventoryEvent(InventoryEvent.Type.SALE, new StockedItem(10, false, 1), Warehouse.home(), 1));
+			fail("unknown item accepted");
+		} catch (final IllegalArgumentException e) {
+			// then
+			pipeline.close();
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void eventNeedsWarehouse() {
+		new InventoryEvent(InventoryEvent.Type.SALE, new StockedItem(10, false, 1), null, 1);
+	}
+
+	@Test
+	public void drainFailureStopsThePipeline() throws Exception {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final InventoryWriter rejectsAll = (items, warehouses, onHandDeltas, onOrderDeltas, count) -> {
+			throw new IllegalArgumentException("rejected");
+		};
+		final IngestionPipeline pipeline = IngestionPipeline.start(rejectsAll,
+				(rejected, warehouse, onHandDelta, onOrderDelta, events, cause) -> {
+					throw new IllegalStateException("dead letters unavailable");
+				}, 10, 10, 1, TimeUnit.MILLISECONDS);
+		pipeline.submit(new InventoryEvent(InventoryEvent.Type.SALE, item, Warehouse.home(), 1));
+
+		// when
+		try {
+			pipeline.awaitApplied(10, TimeUnit.SECONDS);
+			fail("drain failure went unreported");
+		} catch (final IllegalStateException e) {
+			// then
+			assertEquals("dead letters unavailable", e.getCause().getMessage());
+		}
+		try {
+			pipeline.submit(new InventoryEvent(InventoryEvent.Type.SALE, item, Warehouse.home(), 1));
+			fail("stopped pipeline accepted an event");
+		} catch (final IllegalStateException e) {
+			assertEquals("dead letters unavailable", e.getCause().getMessage());
+		}
+		try {
+			pipeline.close();
+			fail("lost event went unreported");
+		} catch (final IllegalStateException e) {
+			assertEquals("1 events not applied", e.getMessage());
+		}
+	}
+
+	@Test
+	public void keepsUpWithConcurrentProducers() throws Exception {
+		// given
+		final int producers = 4;
+		final int perProducer = 250_000;
+		final Item[] stock = new Item[100];
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(stock.length);
+		for (int i = 0; i < stock.length; i++) {
+			stock[i] = new StockedItem(10, false, 1);
+			db.add(stock[i]);
+		}
+		final IngestionPipeline pipeline = IngestionPipeline.start(db, 10_000, 5_000, 1, TimeUnit.MILLISECONDS);
+		final List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			threads.add(new Thread(() -> {
+				try {
+					for (int i = 0; i < perProducer; i++) {
+						pipeline.submit(new InventoryEvent(InventoryEvent.Type.ADJUSTMENT, stock[i % stock.length],
+								Warehouse.home(), 1));
+					}
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+		}
+
+		// when
+		final long start = System.nanoTime();
+		threads.forEach(Thread::start);
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(pipeline.awaitApplied(30, TimeUnit.SECONDS));
+		final long elapsed = System.nanoTime() - start;
+		pipeline.close();
+
+		// then
+		final long events = (long) producers * perProducer;
+		assertEquals(events, pipeline.applied());
+		assertEquals(events / stock.length, db.onHand(stock[0], Warehouse.home()));
+		final double perSecond = events * 1e9 / elapsed;
+		assertTrue("only " + (long) perSecond + " events/s", perSecond > 200_000);
+	}
+}
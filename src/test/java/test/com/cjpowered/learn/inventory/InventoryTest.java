@@ -6,6 +6,7 @@ import static org.mockito.Mockito.*;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -3054,6 +3055,95 @@ public class InventoryTest {
 	    assertEquals(shouldHave - onHand, actualOrders.get(0).quantity);
     }
     
+    @Test
+    public void skipLookupsForRestrictedStockOffFirstOfMonth(){
+    	// given
+		int onHand = 0;
+		int shouldHave = 10;
+		boolean isRestricted = true;
+		int bulkAmt = 1;
+		final List<Integer> newLevels = new ArrayList<>();
+
+		Item item = new StockedItem(shouldHave, isRestricted, bulkAmt);
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(Item item){
+				return onHand;
+			}
+
+			@Override
+			public int onOrder(Item item){
+				throw new AssertionError("on order fetched for restricted item");
+			}
+
+			@Override
+			public void setRequiredOnHand(Item item, int newAmount){
+				newLevels.add(newAmount);
+			}
+
+			@Override
+			public List<Item> stockItems(){
+				return Collections.singletonList(item);
+			}
+		};
+		final MarketingInfo mrktInfo = new MarketingTemplate();
+
+		final InventoryManager im = new AceInventoryManager(db, mrktInfo);
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+
+    	// when
+    	final List<Order> actualOrders = im.getOrders(today);
+
+    	// then
+	    assertTrue(actualOrders.isEmpty());
+	    assertEquals(Collections.singletonList(11), newLevels);
+    }
+
+    @Test
+    public void skipLookupsForSeasonalStockOutOfSeason(){
+    	// given
+		int shouldHave = 10;
+		boolean isRestricted = false;
+		int bulkAmt = 1;
+		final List<Integer> seasonQueries = new ArrayList<>();
+
+		Item itemA = new SeasonalItem(shouldHave, Season.Summer, isRestricted, bulkAmt);
+		Item itemB = new SeasonalItem(shouldHave, Season.Fall, isRestricted, bulkAmt);
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(Item item){
+				return 5;
+			}
+
+			@Override
+			public int onOrder(Item item){
+				throw new AssertionError("on order fetched for out of season item");
+			}
+
+			@Override
+			public List<Item> stockItems(){
+				return Arrays.asList(itemA, itemB);
+			}
+		};
+		final MarketingInfo mrktInfo = new MarketingTemplate(){
+			@Override
+			public Season season(LocalDate when) {
+				seasonQueries.add(1);
+				return Season.Winter;
+			}
+		};
+
+		final InventoryManager im = new AceInventoryManager(db, mrktInfo);
+		final LocalDate today = LocalDate.of(2017, 1, 1);
+
+    	// when
+    	final List<Order> actualOrders = im.getOrders(today);
+
+    	// then
+	    assertTrue(actualOrders.isEmpty());
+	    assertEquals(1, seasonQueries.size());
+    }
+
     private InventoryDatabase fakeDatabaseForDefaultWarehouse(final Map<Item, Integer> dataStore, final Map<Item, Integer> onOrder){
     	Map<Warehouse, Map<Item, Integer>> allData = new HashMap<>();
     	allData.put(Warehouse.home(), dataStore);
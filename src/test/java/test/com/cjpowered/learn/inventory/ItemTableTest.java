@@ -0,0 +1,156 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.InventorySnapshot;
+import com.cjpowered.learn.inventory.table.ItemTable;
+import com.cjpowered.learn.inventory.table.OrderKernel;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class ItemTableTest {
+
+	@Test
+	public void tableKeepsCatalogAttributes() {
+		// given
+		final HashMap<Warehouse, Integer> warehouseReqs = new HashMap<>();
+		warehouseReqs.put(Warehouse.Ashford, 12);
+		final Item stocked = new StockedItem(warehouseReqs, true, 6);
+		final Item seasonal = new SeasonalItem(10, Season.Winter, false, 1);
+		final List<Item> catalog = new ArrayList<>();
+		catalog.add(stocked);
+		catalog.add(seasonal);
+
+		// when
+		final ItemTable table = ItemTable.of(catalog);
+
+		// then
+		assertEquals(2, table.size());
+		assertEquals(ItemTable.KIND_STOCKED, table.kind(0));
+		assertEquals(12, table.wantOnHand(0, Warehouse.Ashford));
+		assertEquals(0, table.wantOnHand(0, Warehouse.Zzyzx));
+		assertEquals(6, table.bulkAmount(0));
+		assertEquals(true, table.isRestricted(0));
+		assertEquals(ItemTable.NO_SEASON, table.season(0));
+		assertEquals(ItemTable.KIND_SEASONAL, table.kind(1));
+		assertEquals(Season.Winter.ordinal(), table.season(1));
+	}
+
+	@Test
+	public void kernelMatchesCreateOrder() {
+		final Random random = new Random(42);
+		final OrderPolicy[] policies = { OrderPolicy.DEFAULT, new OrderPolicy(35, 2.5, 0.6, 1.25) };
+		for (int day = 1; day <= 3; day++) {
+			for (final OrderPolicy policy : policies) {
+				// given
+				final List<Item> catalog = randomCatalog(random, 10_000);
+				final LocalDate today = LocalDate.of(2017, 3, day);
+				final InventorySnapshot snapshot = randomSnapshot(random, catalog, today);
+				final ItemTable table = ItemTable.of(catalog);
+
+				// when
+				final List<Order> actualOrders = OrderKernel.orders(table, snapshot, policy);
+
+				// then
+				final List<Order> expectedOrders = new ArrayList<>();
+				for (final Item item : catalog) {
+					final Order order = item.createOrder(today, snapshot, snapshot, policy);
+					if (order.quantity > 0) {
+						expectedOrders.add(order);
+					}
+				}
+				assertEquals(expectedOrders, actualOrders);
+			}
+		}
+	}
+
+	@Test
+	public void stockoutLevelsMatchBump() {
+		// given
+		final List<Item> catalog = new ArrayList<>();
+		catalog.add(new StockedItem(10, false, 1));
+		catalog.add(new SeasonalItem(21, Season.Fall, false, 1));
+		final ItemTable table = ItemTable.of(catalog);
+		final int[] onHand = { 0, 4 };
+		final int[] level = new int[2];
+
+		// when
+		OrderKernel.stockoutLevels(table, 0, 2, onHand, OrderPolicy.DEFAULT, level);
+
+		// then
+		assertEquals(11, level[0]);
+		assertEquals(-1, level[1]);
+	}
+
+	private static List<Item> randomCatalog(final Random random, final int size) {
+		final Season[] seasons = Season.values();
+		final List<Item> catalog = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			final int wantOnHand = random.nextInt(60);
+			final boolean isRestricted = random.nextInt(4) == 0;
+			final int bulkAmt = 1 + random.nextInt(12);
+			if (random.nextBoolean()) {
+				catalog.add(new StockedItem(wantOnHand, isRestricted, bulkAmt));
+			} else {
+				catalog.add(new SeasonalItem(wantOnHand, seasons[random.nextInt(seasons.length)], isRestricted,
+						bulkAmt));
+			}
+		}
+		return catalog;
+	}
+
+	private static InventorySnapshot randomSnapshot(final Random random, final List<Item> catalog,
+			final LocalDate today) {
+		final HashMap<Item, Integer> onHand = new HashMap<>();
+		final HashMap<Item, Integer> onOrder = new HashMap<>();
+		final HashMap<Item, Boolean> onSale = new HashMap<>();
+		for (final Item item : catalog) {
+			onHand.put(item, random.nextInt(5) == 0 ? 0 : random.nextInt(80));
+			onOrder.put(item, random.nextInt(3) == 0 ? random.nextInt(30) : 0);
+			onSale.put(item, random.nextInt(10) == 0);
+		}
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				return onHand.get(item);
+			}
+
+			@Override
+			public int onOrder(final Item item) {
+				return onOrder.get(item);
+			}
+
+			@Override
+			public List<Item> stockItems() {
+				return catalog;
+			}
+		};
+		final MarketingInfo mrktInfo = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return onSale.get(item);
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Spring;
+			}
+		};
+		return InventorySnapshot.capture(db, mrktInfo, today);
+	}
+}
@@ -0,0 +1,327 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.CheckpointingInventoryManager;
+import com.cjpowered.learn.inventory.ace.FileCheckpointStore;
+import com.cjpowered.learn.inventory.jdbc.ConnectionPool;
+import com.cjpowered.learn.inventory.jdbc.JdbcInventoryDatabase;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class JdbcInventoryDatabaseTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<Item> catalog = new ArrayList<>();
+	private final MarketingInfo mrktInfo = new MarketingInfo() {
+		@Override
+		public boolean onSale(final Item item) {
+			return false;
+		}
+
+		@Override
+		public Season season(final LocalDate when) {
+			return Season.Spring;
+		}
+	};
+	private ConnectionPool pool;
+	private JdbcInventoryDatabase db;
+
+	@Before
+	public void openDatabase() throws Exception {
+		pool = new ConnectionPool("jdbc:h2:mem:" + getClass().getSimpleName() + System.nanoTime()
+				+ ";DB_CLOSE_DELAY=-1", "sa", "", 2, 5, TimeUnit.SECONDS);
+		db = new JdbcInventoryDatabase(pool, catalog::indexOf, key -> catalog.get((int) key), 4);
+		db.createTable();
+	}
+
+	@After
+	public void closeDatabase() {
+		db.close();
+		pool.close();
+	}
+
+	@Test
+	public void plansFromTableRows() {
+		// given
+		final Item low = new StockedItem(10, false, 1);
+		final Item full = new StockedItem(10, false, 1);
+		catalog.addAll(Arrays.asList(low, full));
+		db.putLevels(low, Warehouse.home(), 3, 0, 10);
+		db.putLevels(full, Warehouse.home(), 10, 0, 10);
+		final InventoryManager im = new AceInventoryManager(db, mrktInfo);
+
+		// when
+		final List<Order> actual = im.getOrders(LocalDate.of(2016, 3, 14));
+
+		// then
+		assertEquals(Arrays.asList(new Order(low, 7, Warehouse.home())), actual);
+	}
+
+	@Test
+	public void prefetchedLevelsHoldUntilFlush() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		catalog.add(item);
+		db.putLevels(item, Warehouse.Ashford, 4, 2, 10);
+
+		// when
+		db.prefetch(catalog);
+		db.putLevels(item, Warehouse.Ashford, 9, 1, 10);
+
+		// then
+		assertEquals(4, db.onHand(item, Warehouse.Ashford));
+		assertEquals(4, db.onHand(item, Warehouse.Ashford));
+		assertEquals(2, db.onOrder(item, Warehouse.Ashford));
+		assertEquals(2, db.onOrder(item, Warehouse.Ashford));
+		assertEquals(0, db.onHand(item, Warehouse.Zzyzx));
+		db.flush();
+		assertEquals(9, db.onHand(item, Warehouse.Ashford));
+		assertEquals(1, db.onOrder(item, Warehouse.Ashford));
+	}
+
+	@Test
+	public void planningRunReadsEachChunkOnce() throws Exception {
+		// given
+		for (int i = 0; i < 500; i++) {
+			final Item item = new StockedItem(10, false, 1);
+			catalog.add(item);
+			db.putLevels(item, Warehouse.home(), i % 20, 0, 10);
+		}
+		execute("SET QUERY_STATISTICS TRUE");
+
+		// when
+		new AceInventoryManager(db, mrktInfo).getOrders(LocalDate.of(2016, 3, 14));
+
+		// then: two chunks of 256 items, two set-based queries each
+		assertEquals(4, executions("SELECT item_id, warehouse, on_hand, on_order FROM inventory_level%"));
+		assertEquals(0, executions("SELECT on_hand FROM%") + executions("SELECT on_order FROM%"));
+	}
+
+	@Test
+	public void requiredLevelWithoutRowInsertsOne() {
+		// given
+		final Item seeded = new StockedItem(10, false, 1);
+		final Item bare = new StockedItem(10, false, 1);
+		final Item buffered = new StockedItem(10, false, 1);
+		catalog.addAll(Arrays.asList(seeded, bare, buffered));
+		db.putLevels(seeded, Warehouse.home(), 0, 0, 10);
+
+		// when
+		db.setRequiredOnHand(new Item[] { seeded, bare, bare }, new Warehouse[] { null, null, null },
+				new int[] { 11, 12, 13 }, 3);
+		db.setRequiredOnHand(buffered, 14);
+		db.flush();
+
+		// then
+		assertEquals(11, readRequiredRaw(seeded));
+		assertEquals(13, readRequiredRaw(bare));
+		assertEquals(14, readRequiredRaw(buffered));
+	}
+
+	@Test
+	public void bulkReadUsesPrefetchedLevels() {
+		// given
+		final Item fetched = new StockedItem(10, false, 1);
+		final Item other = new StockedItem(10, false, 1);
+		catalog.addAll(Arrays.asList(fetched, other));
+		db.putLevels(fetched, Warehouse.home(), 4, 0, 10);
+		db.putLevels(other, Warehouse.home(), 5, 0, 10);
+		db.prefetch(Arrays.asList(fetched));
+		db.putLevels(fetched, Warehouse.home(), 9, 0, 10);
+		final int[] onHand = new int[3];
+
+		// when
+		db.onHand(new Item[] { fetched, other, fetched }, new Warehouse[] { null, Warehouse.home(), null }, onHand,
+				3);
+
+		// then
+		assertArrayEquals(new int[] { 4, 5, 4 }, onHand);
+	}
+
+	@Test
+	public void bulkOnOrderReadUsesPrefetchedLevels() {
+		// given
+		final Item fetched = new StockedItem(10, false, 1);
+		final Item other = new StockedItem(10, false, 1);
+		catalog.addAll(Arrays.asList(fetched, other));
+		db.putLevels(fetched, Warehouse.home(), 0, 4, 10);
+		db.putLevels(other, Warehouse.home(), 0, 5, 10);
+		db.prefetch(Arrays.asList(fetched));
+		db.putLevels(fetched, Warehouse.home(), 0, 9, 10);
+		final int[] onOrder = new int[3];
+
+		// when
+		db.onOrder(new Item[] { fetched, other, fetched }, new Warehouse[] { null, Warehouse.home(), null }, onOrder,
+				3);
+
+		// then
+		assertArrayEquals(new int[] { 4, 5, 4 }, onOrder);
+	}
+
+	@Test
+	public void batchesRequiredLevelChanges() {
+		// given
+		for (int i = 0; i < 6; i++) {
+			final Item item = new StockedItem(10, false, 1);
+			catalog.add(item);
+			db.putLevels(item, Warehouse.home(), 0, 0, 10);
+		}
+
+		// when
+		for (final Item item : catalog) {
+			db.setRequiredOnHand(item, 11);
+		}
+		final int beforeFlush = readRequiredRaw(catalog.get(5));
+		final int flushedBatch = readRequiredRaw(catalog.get(3));
+
+		// then
+		assertEquals(10, beforeFlush);
+		assertEquals(11, flushedBatch);
+		assertEquals(11, db.requiredOnHand(catalog.get(5), Warehouse.home()));
+	}
+
+	@Test
+	public void failedFlushKeepsBufferedChanges() throws Exception {
+		// given
+		for (int i = 0; i < 4; i++) {
+			final Item item = new StockedItem(10, false, 1);
+			catalog.add(item);
+			db.putLevels(item, Warehouse.home(), 0, 0, 10);
+			db.setRequiredOnHand(item, 11);
+		}
+		execute("DROP TABLE inventory_level");
+
+		// when
+		try {
+			db.setRequiredOnHand(catalog.get(0), 12);
+			fail("write to a missing table succeeded");
+		} catch (final IllegalStateException expected) {
+			// buffer still full
+		}
+		db.createTable();
+		for (final Item item : catalog) {
+			db.putLevels(item, Warehouse.home(), 0, 0, 10);
+		}
+		db.setRequiredOnHand(catalog.get(0), 12);
+		db.flush();
+
+		// then
+		assertEquals(12, readRequiredRaw(catalog.get(0)));
+		assertEquals(11, readRequiredRaw(catalog.get(3)));
+	}
+
+	@Test
+	public void planningRunFlushesRequiredLevels() {
+		// given
+		final JdbcInventoryDatabase buffered = new JdbcInventoryDatabase(pool, catalog::indexOf,
+				key -> catalog.get((int) key), 100);
+		final Item empty = new StockedItem(10, false, 1);
+		catalog.add(empty);
+		buffered.putLevels(empty, Warehouse.home(), 0, 0, 10);
+
+		// when: this planner writes levels one at a time
+		new CheckpointingInventoryManager(buffered, mrktInfo,
+				new FileCheckpointStore(folder.getRoot().toPath().resolve("checkpoint")), 10)
+						.getOrders(LocalDate.of(2016, 3, 14));
+
+		// then
+		assertEquals(11, readRequiredRaw(empty));
+	}
+
+	@Test
+	public void prefetchWindowBelongsToCallingThread() throws Exception {
+		// given
+		final Item mine = new StockedItem(10, false, 1);
+		final Item theirs = new StockedItem(10, false, 1);
+		catalog.addAll(Arrays.asList(mine, theirs));
+		db.putLevels(mine, Warehouse.home(), 4, 0, 10);
+		db.putLevels(theirs, Warehouse.home(), 5, 0, 10);
+
+		// when
+		db.prefetch(Arrays.asList(mine));
+		final Thread other = new Thread(() -> db.prefetch(Arrays.asList(theirs)));
+		other.start();
+		other.join();
+		db.putLevels(mine, Warehouse.home(), 9, 0, 10);
+
+		// then
+		assertEquals(4, db.onHand(mine, Warehouse.home()));
+	}
+
+	@Test(expected = SQLException.class)
+	public void closingLeaseTwiceReturnsConnectionOnce() throws Exception {
+		try (ConnectionPool single = new ConnectionPool("jdbc:h2:mem:single" + System.nanoTime(), "sa", "", 1, 50,
+				TimeUnit.MILLISECONDS)) {
+			// given
+			final ConnectionPool.Pooled lease = single.borrow();
+			lease.close();
+			lease.close();
+
+			// when
+			try (ConnectionPool.Pooled first = single.borrow(); ConnectionPool.Pooled second = single.borrow()) {
+				// then
+				fail("pool handed out its only connection twice: " + first.connection() + ", " + second.connection());
+			}
+		}
+	}
+
+	private void execute(final String sql) throws SQLException {
+		try (ConnectionPool.Pooled pooled = pool.borrow(); Statement statement = pooled.connection().createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private int executions(final String sql) throws SQLException {
+		try (ConnectionPool.Pooled pooled = pool.borrow()) {
+			final PreparedStatement statement = pooled.prepare("SELECT COALESCE(SUM(EXECUTION_COUNT), 0) "
+					+ "FROM INFORMATION_SCHEMA.QUERY_STATISTICS WHERE SQL_STATEMENT LIKE ?");
+			statement.setString(1, sql);
+			try (ResultSet rows = statement.executeQuery()) {
+				rows.next();
+				return rows.getInt(1);
+			}
+		}
+	}
+
+	private int readRequiredRaw(final Item item) {
+		try (ConnectionPool.Pooled pooled = pool.borrow()) {
+			final PreparedStatement statement = pooled.prepare(
+					"SELECT required_on_hand FROM inventory_level WHERE item_id = ? AND warehouse = ?");
+			statement.setLong(1, catalog.indexOf(item));
+			statement.setString(2, Warehouse.home().name());
+			try (ResultSet rows = statement.executeQuery()) {
+				rows.next();
+				return rows.getInt(1);
+			}
+		} catch (final SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.ForwardingInventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.LazyFacts;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class LazyFactsTest {
+
+	private final AtomicInteger onOrderReads = new AtomicInteger();
+	private final AtomicInteger onSaleReads = new AtomicInteger();
+	private final AtomicInteger seasonReads = new AtomicInteger();
+
+	@Test
+	public void earlyExitsSkipUnusedFacts() {
+		// given
+		final Item restricted = new StockedItem(10, true, 1);
+		final Item offSeason = new SeasonalItem(10, Season.Winter, false, 1);
+		final Item normal = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(3);
+		store.add(restricted);
+		store.add(offSeason);
+		store.add(normal);
+		store.setOnHand(normal, Warehouse.home(), 4);
+		final LazyFacts facts = new LazyFacts(LocalDate.of(2016, 7, 14), counting(store), countingMarketing());
+
+		// when
+		final Order first = restricted.createOrder(facts.at(restricted), OrderPolicy.DEFAULT);
+		final Order second = offSeason.createOrder(facts.at(offSeason), OrderPolicy.DEFAULT);
+		final Order third = normal.createOrder(facts.at(normal), OrderPolicy.DEFAULT);
+
+		// then
+		assertEquals(0, first.quantity);
+		assertEquals(0, second.quantity);
+		assertEquals(6, third.quantity);
+		assertEquals(1, onOrderReads.get());
+		assertEquals(1, onSaleReads.get());
+		assertEquals(1, seasonReads.get());
+	}
+
+	private InventoryDatabase counting(final InventoryDatabase delegate) {
+		return new ForwardingInventoryDatabase(delegate) {
+			@Override
+			@SuppressWarnings("deprecation")
+			public int onOrder(final Item item) {
+				onOrderReads.incrementAndGet();
+				return super.onOrder(item);
+			}
+		};
+	}
+
+	private MarketingInfo countingMarketing() {
+		return new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				onSaleReads.incrementAndGet();
+				return false;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				seasonReads.incrementAndGet();
+				return Season.Summer;
+			}
+		};
+	}
+}
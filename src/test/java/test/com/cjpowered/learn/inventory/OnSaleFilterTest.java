@@ -0,0 +1,82 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.marketing.FilteredMarketingInfo;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.OnSaleFilter;
+import com.cjpowered.learn.marketing.Season;
+
+public class OnSaleFilterTest {
+
+	@Test
+	public void neverRejectsSaleItems() {
+		// given
+		final long[] keys = new long[2000];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = i * 50L;
+		}
+
+		// when
+		final OnSaleFilter filter = OnSaleFilter.of(keys, 0.01);
+
+		// then
+		for (final long key : keys) {
+			assertTrue(filter.mightBeOnSale(key));
+		}
+		int falsePositives = 0;
+		for (long key = 1; key < 100000; key += 50) {
+			if (filter.mightBeOnSale(key)) {
+				falsePositives++;
+			}
+		}
+		assertTrue("false positives: " + falsePositives, falsePositives < 60);
+	}
+
+	@Test
+	public void confirmsOnlyFilterPositives() {
+		// given
+		final List<Item> catalog = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			catalog.add(new StockedItem(10, false, 1));
+		}
+		final AtomicInteger remoteCalls = new AtomicInteger();
+		final MarketingInfo remote = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				remoteCalls.incrementAndGet();
+				return catalog.indexOf(item) == 7;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Summer;
+			}
+		};
+		final MarketingInfo filtered = new FilteredMarketingInfo(remote, catalog::indexOf,
+				OnSaleFilter.of(new long[] { 7 }, 0.001));
+
+		// when
+		int onSale = 0;
+		for (final Item item : catalog) {
+			if (filtered.onSale(item)) {
+				onSale++;
+			}
+		}
+
+		// then
+		assertEquals(1, onSale);
+		assertTrue(remoteCalls.get() < 5);
+		assertEquals(Season.Summer, filtered.season(LocalDate.of(2016, 7, 1)));
+	}
+}
@@ -0,0 +1,97 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.MultiPackItem;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.inventory.rule.PackOptimizer;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class PackOptimizerTest {
+
+	private static final int[] SIZES = { 1, 6, 24 };
+	private static final long[] COSTS = { 100, 500, 1800 };
+
+	@Test
+	public void matchesExhaustiveSearchInsideAndBeyondTheTable() {
+		// given
+		final PackOptimizer packs = PackOptimizer.of(SIZES, COSTS, 50);
+		final int[] counts = new int[SIZES.length];
+
+		for (int deficit = 0; deficit <= 200; deficit++) {
+			// when
+			packs.packCounts(deficit, counts);
+
+			// then
+			assertEquals("deficit " + deficit, cheapest(deficit), packs.cost(deficit));
+			assertEquals(packs.cost(deficit), counts[0] * COSTS[0] + counts[1] * COSTS[1] + counts[2] * COSTS[2]);
+			assertEquals(packs.quantity(deficit), counts[0] * SIZES[0] + counts[1] * SIZES[1] + counts[2] * SIZES[2]);
+			assertEquals(true, packs.quantity(deficit) >= deficit);
+		}
+	}
+
+	@Test
+	public void prefersLessOverstockAtEqualCost() {
+		// given
+		final PackOptimizer packs = PackOptimizer.of(new int[] { 5, 10 }, new long[] { 300, 300 }, 20);
+		final int[] counts = new int[2];
+
+		// when
+		packs.packCounts(4, counts);
+
+		// then
+		assertEquals(5, packs.quantity(4));
+		assertArrayEquals(new int[] { 1, 0 }, counts);
+	}
+
+	@Test
+	public void multiPackItemCoversDeficitWithCheapestMix() {
+		// given
+		final Item item = new MultiPackItem(40, false, PackOptimizer.of(SIZES, COSTS, 100));
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(item);
+		db.setOnHand(item, Warehouse.home(), 10);
+		final MarketingInfo mi = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return false;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Spring;
+			}
+		};
+
+		// when
+		final Order order = item.createOrder(LocalDate.of(2017, 1, 2), db, mi);
+
+		// then: 30 short, one 24-pack and one 6-pack beat thirty singles
+		assertEquals(30, order.quantity);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsEmptyPack() {
+		PackOptimizer.of(new int[] { 0 }, new long[] { 1 }, 10);
+	}
+
+	private static long cheapest(final int deficit) {
+		long best = Long.MAX_VALUE;
+		for (int big = 0; big * SIZES[2] < deficit + SIZES[2]; big++) {
+			for (int mid = 0; big * SIZES[2] + mid * SIZES[1] < deficit + SIZES[1]; mid++) {
+				final int rest = Math.max(0, deficit - big * SIZES[2] - mid * SIZES[1]);
+				best = Math.min(best, big * COSTS[2] + mid * COSTS[1] + rest * COSTS[0]);
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,125 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.inventory.replay.RunRecorder;
+import com.cjpowered.learn.inventory.replay.RunReplay;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class RunReplayTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2016, 7, 14);
+
+	@Test
+	public void replayReproducesRecordedRun() throws Exception {
+		// given
+		final Item onSale = new StockedItem(10, false, 1);
+		final Item seasonal = new SeasonalItem(8, Season.Summer, false, 4);
+		final Item restricted = new StockedItem(10, true, 1);
+		final Item full = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(4);
+		db.add(onSale);
+		db.add(seasonal);
+		db.add(restricted);
+		db.add(full);
+		db.setOnHand(onSale, Warehouse.home(), 2);
+		db.setOnOrder(seasonal, Warehouse.home(), 1);
+		db.setOnHand(full, Warehouse.home(), 10);
+		final MarketingInfo mrktInfo = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return item == onSale;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Summer;
+			}
+		};
+		final Path file = Files.createTempFile("run", ".bin");
+
+		// when
+		final List<Order> recorded;
+		try (RunRecorder recorder = new RunRecorder(file, db.itemKey())) {
+			recorded = new AceInventoryManager(recorder.record(db), recorder.record(mrktInfo)).getOrders(TODAY);
+		}
+		db.setOnHand(onSale, Warehouse.home(), 30);
+		final RunReplay replay = RunReplay.load(file);
+		final List<Order> replayed = new AceInventoryManager(replay.database(), replay.marketing()).getOrders(TODAY);
+		final List<Order> again = new AceInventoryManager(replay.database(), replay.marketing()).getOrders(TODAY);
+		Files.delete(file);
+
+		// then
+		assertEquals(2, recorded.size());
+		assertEquals(describe(recorded, db.itemKey()), describe(replayed, replay.itemKey()));
+		assertEquals(describe(recorded, db.itemKey()), describe(again, replay.itemKey()));
+	}
+
+	@Test
+	public void wideKeysKeepTheirOwnLevels() throws Exception {
+		// given: keys that differ only in their top bits, and a negative one
+		final Item low = new StockedItem(10, false, 1);
+		final Item high = new StockedItem(10, false, 1);
+		final Item negative = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(3);
+		db.add(low);
+		db.add(high);
+		db.add(negative);
+		db.setOnHand(low, Warehouse.home(), 2);
+		db.setOnHand(high, Warehouse.home(), 5);
+		db.setOnHand(negative, Warehouse.home(), 7);
+		final ItemKey keys = item -> item == low ? 3 : item == high ? 3 | 1L << 60 : -3;
+		final MarketingInfo mrktInfo = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return false;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Summer;
+			}
+		};
+		final Path file = Files.createTempFile("run", ".bin");
+
+		// when
+		final List<Order> recorded;
+		try (RunRecorder recorder = new RunRecorder(file, keys)) {
+			recorded = new AceInventoryManager(recorder.record(db), recorder.record(mrktInfo)).getOrders(TODAY);
+		}
+		final RunReplay replay = RunReplay.load(file);
+		final List<Order> replayed = new AceInventoryManager(replay.database(), replay.marketing()).getOrders(TODAY);
+		final List<Order> again = new AceInventoryManager(replay.database(), replay.marketing()).getOrders(TODAY);
+		Files.delete(file);
+
+		// then
+		assertEquals(3, recorded.size());
+		assertEquals(describe(recorded, keys), describe(replayed, replay.itemKey()));
+		assertEquals(describe(recorded, keys), describe(again, replay.itemKey()));
+	}
+
+	private static List<String> describe(final List<Order> orders, final ItemKey keys) {
+		final List<String> described = new ArrayList<>();
+		for (final Order order : orders) {
+			described.add(keys.keyOf(order.item) + "@" + order.warehouse + "x" + order.quantity);
+		}
+		return described;
+	}
+}
@@ -0,0 +1,116 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.ace.InventorySnapshot;
+import com.cjpowered.learn.inventory.ace.ScenarioResult;
+import com.cjpowered.learn.inventory.ace.ScenarioSweep;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class ScenarioSweepTest {
+
+	@Test
+	public void defaultPolicyMatchesManager() {
+		// given
+		final Item stocked = new StockedItem(16, false, 1);
+		final Item seasonal = new SeasonalItem(10, Season.Summer, false, 1);
+		final InventorySnapshot snapshot = snapshotOf(stocked, seasonal, new AtomicInteger());
+
+		// when
+		final List<ScenarioResult> results = new ScenarioSweep(snapshot).run(Arrays.asList(OrderPolicy.DEFAULT));
+
+		// then
+		assertEquals(1, results.size());
+		assertEquals(26 + 17, results.get(0).totalUnits);
+	}
+
+	@Test
+	public void sweepComparesPolicies() {
+		// given
+		final Item stocked = new StockedItem(16, false, 1);
+		final Item seasonal = new SeasonalItem(10, Season.Summer, false, 1);
+		final InventorySnapshot snapshot = snapshotOf(stocked, seasonal, new AtomicInteger());
+		final OrderPolicy biggerSale = new OrderPolicy(40, 2.0, 0.8, 1.10);
+		final OrderPolicy tripleSeason = new OrderPolicy(20, 3.0, 0.8, 1.10);
+
+		// when
+		final List<ScenarioResult> results = new ScenarioSweep(snapshot)
+				.run(Arrays.asList(OrderPolicy.DEFAULT, biggerSale, tripleSeason));
+
+		// then
+		assertEquals(3, results.size());
+		assertEquals(biggerSale, results.get(1).policy);
+		assertEquals(46 + 17, results.get(1).totalUnits);
+		assertEquals(26 + 27, results.get(2).totalUnits);
+	}
+
+	@Test
+	public void scenariosDoNotQueryDatabase() {
+		// given
+		final Item stocked = new StockedItem(16, false, 1);
+		final Item seasonal = new SeasonalItem(10, Season.Summer, false, 1);
+		final AtomicInteger queries = new AtomicInteger();
+		final InventorySnapshot snapshot = snapshotOf(stocked, seasonal, queries);
+		final int captureQueries = queries.get();
+
+		// when
+		new ScenarioSweep(snapshot).run(Arrays.asList(OrderPolicy.DEFAULT, new OrderPolicy(0, 1.0, 0.5, 1.0),
+				new OrderPolicy(30, 2.5, 0.9, 1.2)));
+
+		// then
+		assertEquals(captureQueries, queries.get());
+	}
+
+	private InventorySnapshot snapshotOf(final Item stocked, final Item seasonal, final AtomicInteger queries) {
+		final HashMap<Item, Integer> store = new HashMap<>();
+		store.put(stocked, 10);
+		store.put(seasonal, 3);
+		final InventoryDatabase db = new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				queries.incrementAndGet();
+				return store.get(item);
+			}
+
+			@Override
+			public int onOrder(final Item item) {
+				queries.incrementAndGet();
+				return 0;
+			}
+
+			@Override
+			public List<Item> stockItems() {
+				queries.incrementAndGet();
+				return Arrays.asList(stocked, seasonal);
+			}
+		};
+		final MarketingInfo mrktInfo = new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				queries.incrementAndGet();
+				return item == stocked;
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				queries.incrementAndGet();
+				return Season.Summer;
+			}
+		};
+		return InventorySnapshot.capture(db, mrktInfo, LocalDate.of(2017, 1, 2));
+	}
+}
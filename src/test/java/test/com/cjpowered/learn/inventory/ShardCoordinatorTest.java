@@ -0,0 +1,110 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.cjpowered.learn.inventory.InventoryManager;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.shard.ShardCoordinator;
+
+public class ShardCoordinatorTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void shardedPlanMatchesSingleProcess() {
+		// given
+		final ShardTestEnvironment environment = new ShardTestEnvironment();
+		final InventoryManager im = new ShardCoordinator(environment, 3, 1, 60, TimeUnit.SECONDS,
+				folder.getRoot().toPath());
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+
+		// when
+		final List<Order> actualOrders = im.getOrders(today);
+
+		// then
+		final List<Order> expectedOrders = new AceInventoryManager(environment.database(), environment.marketing())
+				.getOrders(today);
+		assertTrue(!expectedOrders.isEmpty());
+		assertEquals(new HashSet<>(expectedOrders), new HashSet<>(actualOrders));
+		assertEquals(expectedOrders.size(), actualOrders.size());
+		final List<Long> keys = new ArrayList<>();
+		for (final Order order : actualOrders) {
+			keys.add(environment.itemKey().keyOf(order.item));
+		}
+		final List<Long> sorted = new ArrayList<>(keys);
+		sorted.sort(null);
+		assertEquals(sorted, keys);
+	}
+
+	@Test
+	public void successfulRunDeletesItsTemporaryLogs() throws IOException {
+		// given
+		final ShardTestEnvironment environment = new ShardTestEnvironment();
+		final InventoryManager im = new ShardCoordinator(environment, 2, 1, 60, TimeUnit.SECONDS);
+		final int before = temporaryLogDirectories();
+
+		// when
+		im.getOrders(LocalDate.of(2017, 1, 2));
+
+		// then
+		assertEquals(before, temporaryLogDirectories());
+	}
+
+	@Test
+	public void failedShardIsRetried() throws IOException {
+		// given
+		final Path marker = folder.getRoot().toPath().resolve("flaky.marker");
+		final FlakyShardTestEnvironment environment = new FlakyShardTestEnvironment(marker);
+		final InventoryManager im = new ShardCoordinator(environment, 2, 2, 60, TimeUnit.SECONDS,
+				folder.getRoot().toPath());
+		final LocalDate today = LocalDate.of(2017, 1, 2);
+
+		// when
+		final List<Order> actualOrders = im.getOrders(today);
+
+		// then
+		final List<Order> expectedOrders = new AceInventoryManager(environment.database(), environment.marketing())
+				.getOrders(today);
+		assertEquals(new HashSet<>(expectedOrders), new HashSet<>(actualOrders));
+		assertTrue(Files.exists(marker));
+		int failedLogs = 0;
+		try (DirectoryStream<Path> logs = Files.newDirectoryStream(folder.getRoot().toPath(), "shard-*.log")) {
+			for (final Path log : logs) {
+				if (new String(Files.readAllBytes(log), StandardCharsets.UTF_8).contains("simulated worker failure")) {
+					failedLogs++;
+				}
+			}
+		}
+		assertEquals(1, failedLogs);
+	}
+
+	private static int temporaryLogDirectories() throws IOException {
+		int count = 0;
+		try (DirectoryStream<Path> directories = Files
+				.newDirectoryStream(Paths.get(System.getProperty("java.io.tmpdir")), "shard-workers*")) {
+			for (final Path directory : directories) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,79 @@
+package test.com.cjpowered.learn.inventory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.ItemKey;
+import com.cjpowered.learn.inventory.SeasonalItem;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.ace.shard.ShardEnvironment;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+/**
+ * Deterministic catalog every worker process rebuilds identically.
+ */
+public class ShardTestEnvironment implements ShardEnvironment {
+
+	static final int CATALOG_SIZE = 300;
+
+	private final List<Item> catalog = new ArrayList<>();
+	private final Map<Item, Long> keys = new IdentityHashMap<>();
+	private final Map<Item, Integer> onHand = new HashMap<>();
+	private final Map<Item, Boolean> onSale = new HashMap<>();
+
+	public ShardTestEnvironment() {
+		final Random random = new Random(7);
+		final Season[] seasons = Season.values();
+		for (int i = 0; i < CATALOG_SIZE; i++) {
+			final Item item = random.nextBoolean() ? new StockedItem(1 + random.nextInt(40), false, 1)
+					: new SeasonalItem(1 + random.nextInt(40), seasons[random.nextInt(seasons.length)], false, 1);
+			catalog.add(item);
+			keys.put(item, 1000L + i);
+			onHand.put(item, random.nextInt(30));
+			onSale.put(item, random.nextInt(5) == 0);
+		}
+	}
+
+	@Override
+	public InventoryDatabase database() {
+		return new DatabaseTemplate() {
+			@Override
+			public int onHand(final Item item) {
+				return onHand.get(item);
+			}
+
+			@Override
+			public List<Item> stockItems() {
+				return catalog;
+			}
+		};
+	}
+
+	@Override
+	public MarketingInfo marketing() {
+		return new MarketingInfo() {
+			@Override
+			public boolean onSale(final Item item) {
+				return onSale.get(item);
+			}
+
+			@Override
+			public Season season(final LocalDate when) {
+				return Season.Summer;
+			}
+		};
+	}
+
+	@Override
+	public ItemKey itemKey() {
+		return keys::get;
+	}
+}
@@ -0,0 +1,85 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.ForwardingInventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.StockoutBumpPass;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+public class StockoutBumpPassTest {
+
+	private final AtomicInteger bulkReads = new AtomicInteger();
+	private final AtomicInteger bulkWrites = new AtomicInteger();
+	private final AtomicInteger singleWrites = new AtomicInteger();
+
+	@Test
+	public void bumpsAllOutOfStockItemsInOneWrite() {
+		// given
+		final Item empty = new StockedItem(10, false, 1);
+		final Item alsoEmpty = new StockedItem(20, true, 1);
+		final Item stocked = new StockedItem(10, false, 1);
+		final Item custom = new Item() {
+			@Override
+			public Order createOrder(final LocalDate when, final InventoryDatabase db,
+					final MarketingInfo marketInfo) {
+				return new Order(this, 0, Warehouse.home());
+			}
+		};
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(4);
+		for (final Item item : Arrays.asList(empty, alsoEmpty, stocked, custom)) {
+			store.add(item);
+		}
+		store.setOnHand(stocked, Warehouse.home(), 3);
+
+		// when
+		final int bumped = new StockoutBumpPass(OrderPolicy.DEFAULT)
+				.apply(Arrays.asList(empty, alsoEmpty, stocked, custom), counting(store));
+
+		// then
+		assertEquals(2, bumped);
+		assertEquals(1, bulkReads.get());
+		assertEquals(1, bulkWrites.get());
+		assertEquals(0, singleWrites.get());
+		assertEquals(11, store.requiredOnHand(empty, Warehouse.home()));
+		assertEquals(22, store.requiredOnHand(alsoEmpty, Warehouse.home()));
+		assertEquals(10, store.requiredOnHand(stocked, Warehouse.home()));
+		assertEquals(0, store.requiredOnHand(custom, Warehouse.home()));
+	}
+
+	private InventoryDatabase counting(final InventoryDatabase delegate) {
+		return new ForwardingInventoryDatabase(delegate) {
+			@Override
+			public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand,
+					final int count) {
+				bulkReads.incrementAndGet();
+				delegate.onHand(items, warehouses, onHand, count);
+			}
+
+			@Override
+			public void setRequiredOnHand(final Item[] items, final Warehouse[] warehouses, final int[] newAmounts,
+					final int count) {
+				bulkWrites.incrementAndGet();
+				delegate.setRequiredOnHand(items, warehouses, newAmounts, count);
+			}
+
+			@Override
+			public void setRequiredOnHand(final Item item, final int newAmount) {
+				singleWrites.incrementAndGet();
+				super.setRequiredOnHand(item, newAmount);
+			}
+		};
+	}
+}
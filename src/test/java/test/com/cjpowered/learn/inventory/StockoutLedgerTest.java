@@ -0,0 +1,162 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.AceInventoryManager;
+import com.cjpowered.learn.inventory.ace.StockoutBumpPass;
+import com.cjpowered.learn.inventory.ace.StockoutLedger;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.marketing.MarketingInfo;
+
+public class StockoutLedgerTest {
+
+	@Test
+	public void bumpsOncePerOutage() throws Exception {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(item);
+		final List<Item> batch = Arrays.asList(item);
+		final Path file = Files.createTempFile("ledger", ".bin");
+		Files.delete(file);
+
+		// when / then
+		try (StockoutLedger ledger = StockoutLedger.open(file)) {
+			final StockoutBumpPass pass = new StockoutBumpPass(OrderPolicy.DEFAULT, ledger, db.itemKey());
+			assertEquals(1, pass.apply(batch, db));
+			db.setRequiredOnHand(item, 10);
+			assertEquals(0, pass.apply(batch, db));
+			assertEquals(10, db.requiredOnHand(item, Warehouse.home()));
+
+			db.setOnHand(item, Warehouse.home(), 4);
+			assertEquals(0, pass.apply(batch, db));
+			assertEquals(0, ledger.openEpisodes());
+
+			db.setOnHand(item, Warehouse.home(), 0);
+			assertEquals(1, pass.apply(batch, db));
+			assertEquals(11, db.requiredOnHand(item, Warehouse.home()));
+		}
+		try (StockoutLedger reopened = StockoutLedger.open(file)) {
+			assertTrue(reopened.inEpisode(db.idOf(item), Warehouse.home()));
+			assertEquals(0, new StockoutBumpPass(OrderPolicy.DEFAULT, reopened, db.itemKey()).apply(batch, db));
+		}
+		Files.delete(file);
+	}
+
+	@Test
+	public void keepsWideKeysApartAcrossReopen() throws Exception {
+		// given: keys that differ only in their top bits, and a negative one
+		final long low = 5;
+		final long high = 5 | 1L << 62;
+		final long negative = -5;
+		final Path file = Files.createTempFile("ledger", ".bin");
+		Files.delete(file);
+
+		// when
+		try (StockoutLedger ledger = StockoutLedger.open(file)) {
+			assertTrue(ledger.startEpisode(high, Warehouse.Ashford));
+			assertTrue(ledger.startEpisode(negative, Warehouse.Zzyzx));
+			assertFalse(ledger.inEpisode(low, Warehouse.Ashford));
+			ledger.sync();
+		}
+
+		// then: reopening compacts the file
+		try (StockoutLedger reopened = StockoutLedger.open(file)) {
+			assertTrue(reopened.inEpisode(high, Warehouse.Ashford));
+			assertTrue(reopened.inEpisode(negative, Warehouse.Zzyzx));
+			assertFalse(reopened.inEpisode(low, Warehouse.Ashford));
+			assertFalse(reopened.inEpisode(negative, Warehouse.Ashford));
+		}
+		try (StockoutLedger again = StockoutLedger.open(file)) {
+			assertEquals(2, again.openEpisodes());
+			assertTrue(again.inEpisode(high, Warehouse.Ashford));
+			assertTrue(again.inEpisode(negative, Warehouse.Zzyzx));
+		}
+		Files.delete(file);
+	}
+
+	@Test
+	public void ignoresTornLastEntry() throws Exception {
+		// given
+		final Path file = Files.createTempFile("ledger", ".bin");
+		Files.delete(file);
+		try (StockoutLedger ledger = StockoutLedger.open(file)) {
+			ledger.startEpisode(7, Warehouse.Ashford);
+			ledger.startEpisode(8, Warehouse.Zzyzx);
+			ledger.endEpisode(8, Warehouse.Zzyzx);
+			ledger.sync();
+		}
+		Files.write(file, new byte[] { 1, 0, 0 }, StandardOpenOption.APPEND);
+
+		// when
+		try (StockoutLedger reopened = StockoutLedger.open(file)) {
+			// then
+			assertTrue(reopened.inEpisode(7, Warehouse.Ashford));
+			assertFalse(reopened.inEpisode(8, Warehouse.Zzyzx));
+			assertEquals(1, reopened.openEpisodes());
+			assertFalse(reopened.startEpisode(7, Warehouse.Ashford));
+		}
+		Files.delete(file);
+	}
+
+	@Test
+	public void emptyFileOpensAsNewLedger() throws Exception {
+		// given
+		final Path file = Files.createTempFile("ledger", ".bin");
+		Files.write(file, new byte[] { 0x53, 0x4C });
+
+		// when
+		try (StockoutLedger ledger = StockoutLedger.open(file)) {
+			ledger.startEpisode(7, Warehouse.Ashford);
+		}
+
+		// then
+		try (StockoutLedger reopened = StockoutLedger.open(file)) {
+			assertTrue(reopened.inEpisode(7, Warehouse.Ashford));
+		}
+		Files.delete(file);
+	}
+
+	@Test
+	public void planningRunMakesLedgerDurable() throws Exception {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final ConcurrentInventoryDatabase db = new ConcurrentInventoryDatabase(1);
+		db.add(item);
+		final Path file = Files.createTempFile("ledger", ".bin");
+		Files.delete(file);
+		final MarketingInfo mrktInfo = new MarketingTemplate() {
+			@Override
+			public boolean onSale(final Item item) {
+				return false;
+			}
+		};
+
+		try (StockoutLedger ledger = StockoutLedger.open(file)) {
+			final long compacted = Files.size(file);
+
+			// when
+			new AceInventoryManager(db, mrktInfo, OrderPolicy.DEFAULT, null, db.itemKey(), ledger)
+					.getOrders(LocalDate.of(2017, 1, 2));
+
+			// then
+			assertEquals(compacted + 10, Files.size(file));
+		}
+		Files.delete(file);
+	}
+}
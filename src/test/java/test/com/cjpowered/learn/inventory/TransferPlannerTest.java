@@ -0,0 +1,209 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.ForwardingInventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Transfer;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.TransferPlan;
+import com.cjpowered.learn.inventory.ace.TransferPlanner;
+import com.cjpowered.learn.inventory.ace.TransferringInventoryManager;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class TransferPlannerTest {
+
+	private final List<Transfer> sent = new ArrayList<>();
+
+	private final MarketingInfo marketing = new MarketingInfo() {
+		@Override
+		public boolean onSale(final Item item) {
+			return false;
+		}
+
+		@Override
+		public Season season(final LocalDate when) {
+			return Season.Spring;
+		}
+	};
+
+	@Test
+	public void transfersReplacePurchases() {
+		// given
+		final Item balanced = item(10, 10, 0);
+		final Item scarce = item(5, 10, 6);
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(2);
+		store.add(balanced);
+		store.add(scarce);
+		store.setOnHand(balanced, Warehouse.Poughkeepsie, 30);
+		store.setOnHand(balanced, Warehouse.Ashford, 2);
+		store.setOnHand(scarce, Warehouse.Poughkeepsie, 9);
+
+		// when
+		final TransferPlan plan = new TransferringInventoryManager(store, marketing, OrderPolicy.DEFAULT,
+				sent::addAll).plan(LocalDate.of(2017, 1, 2));
+
+		// then
+		assertEquals(Arrays.asList(new Transfer(balanced, Warehouse.Poughkeepsie, Warehouse.Ashford, 8),
+				new Transfer(scarce, Warehouse.Poughkeepsie, Warehouse.Ashford, 4)), plan.transfers);
+		assertEquals(Arrays.asList(new Order(scarce, 6, Warehouse.Ashford), new Order(scarce, 6, Warehouse.Zzyzx)),
+				plan.orders);
+		assertEquals(11, store.requiredOnHand(scarce, Warehouse.Ashford));
+		assertEquals(30, store.onHand(balanced, Warehouse.Poughkeepsie));
+	}
+
+	@Test
+	public void getOrdersHandsTransfersToConsumer() {
+		// given
+		final Item balanced = item(10, 10, 0);
+		final Item scarce = item(5, 10, 6);
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(2);
+		store.add(balanced);
+		store.add(scarce);
+		store.setOnHand(balanced, Warehouse.Poughkeepsie, 30);
+		store.setOnHand(balanced, Warehouse.Ashford, 2);
+		store.setOnHand(scarce, Warehouse.Poughkeepsie, 9);
+
+		// when
+		final List<Order> orders = new TransferringInventoryManager(store, marketing, OrderPolicy.DEFAULT,
+				sent::addAll).getOrders(LocalDate.of(2017, 1, 2));
+
+		// then
+		assertEquals(Arrays.asList(new Transfer(balanced, Warehouse.Poughkeepsie, Warehouse.Ashford, 8),
+				new Transfer(scarce, Warehouse.Poughkeepsie, Warehouse.Ashford, 4)), sent);
+		assertEquals(Arrays.asList(new Order(scarce, 6, Warehouse.Ashford), new Order(scarce, 6, Warehouse.Zzyzx)),
+				orders);
+	}
+
+	@Test
+	public void doesNotShipToWarehouseAboveThreshold() {
+		// given
+		final Item item = item(10, 10, 0);
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(1);
+		store.add(item);
+		store.setOnHand(item, Warehouse.Poughkeepsie, 30);
+		store.setOnHand(item, Warehouse.Ashford, 5);
+		store.setOnOrder(item, Warehouse.Ashford, 4);
+
+		// when
+		final List<Transfer> transfers = new TransferPlanner(OrderPolicy.DEFAULT)
+				.plan(Collections.singletonList(item), store);
+
+		// then
+		assertEquals(Collections.emptyList(), transfers);
+	}
+
+	@Test
+	public void restrictedItemGetsNoTransfers() {
+		// given
+		final Item item = new StockedItem(levels(10, 10, 0), true, 1);
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(1);
+		store.add(item);
+		store.setOnHand(item, Warehouse.Poughkeepsie, 30);
+		store.setOnHand(item, Warehouse.Ashford, 2);
+
+		// when
+		final TransferPlan plan = new TransferringInventoryManager(store, marketing, OrderPolicy.DEFAULT,
+				sent::addAll).plan(LocalDate.of(2017, 1, 2));
+
+		// then
+		assertEquals(Collections.emptyList(), plan.transfers);
+		assertEquals(Collections.emptyList(), plan.orders);
+	}
+
+	@Test
+	public void chunkIsPrefetchedOnceAndOnOrderReadInBulk() {
+		// given
+		final Item balanced = item(10, 10, 0);
+		final Item scarce = item(5, 10, 6);
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(2);
+		store.add(balanced);
+		store.add(scarce);
+		store.setOnHand(balanced, Warehouse.Poughkeepsie, 30);
+		store.setOnHand(balanced, Warehouse.Ashford, 2);
+		store.setOnHand(scarce, Warehouse.Poughkeepsie, 9);
+		final int[] calls = new int[2];
+		final InventoryDatabase counting = new ForwardingInventoryDatabase(store) {
+			@Override
+			public void prefetch(final List<Item> items) {
+				calls[0]++;
+				super.prefetch(items);
+			}
+
+			@Override
+			public void onOrder(final Item[] items, final Warehouse[] warehouses, final int[] onOrder,
+					final int count) {
+				calls[1]++;
+				super.onOrder(items, warehouses, onOrder, count);
+			}
+		};
+
+		// when
+		final TransferPlan plan = new TransferringInventoryManager(counting, marketing, OrderPolicy.DEFAULT,
+				sent::addAll).plan(LocalDate.of(2017, 1, 2));
+
+		// then
+		assertEquals(2, plan.transfers.size());
+		assertArrayEquals(new int[] { 1, 1 }, calls);
+	}
+
+	@Test
+	public void viewAfterTransfersCoversBulkReads() {
+		// given
+		final Item item = item(10, 10, 0);
+		final InventoryDatabase bulkOnly = new DatabaseTemplate() {
+			@Override
+			public void onHand(final Item[] items, final Warehouse[] warehouses, final int[] onHand,
+					final int count) {
+				for (int i = 0; i < count; i++) {
+					onHand[i] = warehouses[i] == null ? 30 : 0;
+				}
+			}
+
+			@Override
+			public int onOrder(final Item item, final Warehouse warehouse) {
+				return 0;
+			}
+		};
+		final InventoryDatabase view = TransferPlanner.afterTransfers(bulkOnly,
+				Collections.singletonList(new Transfer(item, Warehouse.Poughkeepsie, Warehouse.Ashford, 8)));
+		final int[] onHand = new int[2];
+
+		// when
+		view.onHand(new Item[] { item, item }, new Warehouse[] { null, Warehouse.Ashford }, onHand, 2);
+
+		// then
+		assertArrayEquals(new int[] { 22, 0 }, onHand);
+		assertEquals(8, view.onOrder(item, Warehouse.Ashford));
+	}
+
+	private static Item item(final int home, final int ashford, final int zzyzx) {
+		return new StockedItem(levels(home, ashford, zzyzx), false, 1);
+	}
+
+	private static HashMap<Warehouse, Integer> levels(final int home, final int ashford, final int zzyzx) {
+		final HashMap<Warehouse, Integer> levels = new HashMap<>();
+		levels.put(Warehouse.Poughkeepsie, home);
+		levels.put(Warehouse.Ashford, ashford);
+		if (zzyzx > 0) {
+			levels.put(Warehouse.Zzyzx, zzyzx);
+		}
+		return levels;
+	}
+}
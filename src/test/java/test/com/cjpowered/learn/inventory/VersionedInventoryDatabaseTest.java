@@ -0,0 +1,99 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.memory.VersionedInventoryDatabase;
+
+public class VersionedInventoryDatabaseTest {
+
+	@Test
+	public void snapshotIgnoresLaterChanges() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final VersionedInventoryDatabase db = new VersionedInventoryDatabase(2);
+		db.add(item);
+		db.setOnHand(item, Warehouse.home(), 5);
+		db.setOnOrder(item, Warehouse.home(), 2);
+		final VersionedInventoryDatabase.Snapshot snapshot = db.pin();
+
+		// when
+		db.addOnHand(item, Warehouse.home(), -3);
+		db.addOnOrder(item, Warehouse.home(), 4);
+		final Item later = new StockedItem(10, false, 1);
+		db.add(later);
+
+		// then
+		assertEquals(5, snapshot.onHand(item));
+		assertEquals(2, snapshot.onOrder(item));
+		assertEquals(Arrays.asList(item), snapshot.stockItems());
+		assertEquals(2, db.onHand(item));
+		assertEquals(6, db.onOrder(item, Warehouse.home()));
+		snapshot.close();
+	}
+
+	@Test
+	public void reclaimsVersionsOnceUnpinned() {
+		// given
+		final Item item = new StockedItem(10, false, 1);
+		final VersionedInventoryDatabase db = new VersionedInventoryDatabase(1);
+		db.add(item);
+		final VersionedInventoryDatabase.Snapshot snapshot = db.pin();
+
+		// when
+		for (int i = 0; i < 10; i++) {
+			db.addOnHand(item, Warehouse.home(), 1);
+		}
+		final int whilePinned = db.retainedVersions(item, Warehouse.home());
+		snapshot.close();
+		db.addOnHand(item, Warehouse.home(), 1);
+
+		// then
+		assertEquals(11, whilePinned);
+		assertEquals(1, db.retainedVersions(item, Warehouse.home()));
+		assertEquals(11, db.onHand(item));
+	}
+
+	@Test
+	public void snapshotsAreConsistentUnderConcurrentWrites() throws Exception {
+		// given
+		final Item first = new StockedItem(10, false, 1);
+		final Item second = new StockedItem(10, false, 1);
+		final VersionedInventoryDatabase db = new VersionedInventoryDatabase(2);
+		db.add(first);
+		db.add(second);
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final Thread writer = new Thread(() -> {
+			while (running.get()) {
+				db.addOnHand(first, Warehouse.home(), 1);
+				db.addOnHand(second, Warehouse.home(), 1);
+			}
+		});
+		writer.start();
+
+		// when / then
+		try {
+			for (int i = 0; i < 1000; i++) {
+				try (VersionedInventoryDatabase.Snapshot snapshot = db.pin()) {
+					final int a = snapshot.onHand(first);
+					Thread.yield();
+					final int b = snapshot.onHand(second);
+					assertTrue(a + " vs " + b, a == b || a == b + 1);
+				}
+			}
+		} finally {
+			running.set(false);
+			writer.join();
+		}
+		db.addOnHand(first, Warehouse.home(), 1);
+		assertEquals(1, db.retainedVersions(first, Warehouse.home()));
+	}
+}
@@ -0,0 +1,152 @@
+package test.com.cjpowered.learn.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.cjpowered.learn.inventory.ForwardingInventoryDatabase;
+import com.cjpowered.learn.inventory.InventoryDatabase;
+import com.cjpowered.learn.inventory.Item;
+import com.cjpowered.learn.inventory.Order;
+import com.cjpowered.learn.inventory.OrderPolicy;
+import com.cjpowered.learn.inventory.StockedItem;
+import com.cjpowered.learn.inventory.Warehouse;
+import com.cjpowered.learn.inventory.ace.StockoutLedger;
+import com.cjpowered.learn.inventory.ace.WarehouseInventoryManager;
+import com.cjpowered.learn.inventory.audit.DecisionLog;
+import com.cjpowered.learn.inventory.memory.ConcurrentInventoryDatabase;
+import com.cjpowered.learn.marketing.MarketingInfo;
+import com.cjpowered.learn.marketing.Season;
+
+public class WarehouseInventoryManagerTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2017, 1, 2);
+
+	private final MarketingInfo marketing = new MarketingInfo() {
+		@Override
+		public boolean onSale(final Item item) {
+			return false;
+		}
+
+		@Override
+		public Season season(final LocalDate when) {
+			return Season.Spring;
+		}
+	};
+
+	@Test
+	public void slowShardDoesNotHoldUpOtherWarehouses() throws Exception {
+		// given
+		final HashMap<Warehouse, Integer> levels = new HashMap<>();
+		levels.put(Warehouse.Poughkeepsie, 10);
+		levels.put(Warehouse.Ashford, 5);
+		levels.put(Warehouse.Zzyzx, 20);
+		final Item spread = new StockedItem(levels, false, 1);
+		final Item local = new StockedItem(8, false, 1);
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(2);
+		store.add(spread);
+		store.add(local);
+		store.setOnHand(spread, Warehouse.Poughkeepsie, 10);
+		store.setOnHand(spread, Warehouse.Ashford, 1);
+
+		final CountDownLatch zzyzxReady = new CountDownLatch(1);
+		final InventoryDatabase slow = new ForwardingInventoryDatabase(store) {
+			@Override
+			public List<Item> stockItems() {
+				try {
+					zzyzxReady.await();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.stockItems();
+			}
+		};
+		final Map<Warehouse, InventoryDatabase> shards = new EnumMap<>(Warehouse.class);
+		shards.put(Warehouse.Poughkeepsie, store);
+		shards.put(Warehouse.Ashford, store);
+		shards.put(Warehouse.Zzyzx, slow);
+
+		try (WarehouseInventoryManager manager = new WarehouseInventoryManager(shards, marketing,
+				OrderPolicy.DEFAULT, 2)) {
+			// when
+			final CompletableFuture<List<Order>> zzyzx = manager.getOrders(TODAY, Warehouse.Zzyzx);
+			final List<Order> home = manager.getOrders(TODAY, Warehouse.Poughkeepsie).get(5, TimeUnit.SECONDS);
+			final List<Order> ashford = manager.getOrders(TODAY, Warehouse.Ashford).get(5, TimeUnit.SECONDS);
+
+			// then
+			assertFalse(zzyzx.isDone());
+			assertEquals(Arrays.asList(new Order(local, 8, Warehouse.Poughkeepsie)), home);
+			assertEquals(Arrays.asList(new Order(spread, 4, Warehouse.Ashford)), ashford);
+
+			// when
+			zzyzxReady.countDown();
+			final List<Order> all = manager.getOrders(TODAY);
+
+			// then
+			assertEquals(Arrays.asList(new Order(local, 8, Warehouse.Poughkeepsie),
+					new Order(spread, 4, Warehouse.Ashford), new Order(spread, 20, Warehouse.Zzyzx)), all);
+			assertEquals(Arrays.asList(new Order(spread, 20, Warehouse.Zzyzx)), zzyzx.get(5, TimeUnit.SECONDS));
+			assertEquals(22, store.requiredOnHand(spread, Warehouse.Zzyzx));
+			assertEquals(9, store.requiredOnHand(local, Warehouse.Poughkeepsie));
+			assertEquals(0, store.requiredOnHand(local, Warehouse.Zzyzx));
+		}
+	}
+
+	@Test
+	public void runsRecordDecisionsAndBumpEachOutageOnce() throws Exception {
+		// given
+		final HashMap<Warehouse, Integer> levels = new HashMap<>();
+		levels.put(Warehouse.Poughkeepsie, 10);
+		levels.put(Warehouse.Ashford, 5);
+		final Item item = new StockedItem(levels, false, 1);
+		final ConcurrentInventoryDatabase store = new ConcurrentInventoryDatabase(1);
+		store.add(item);
+		final Map<Warehouse, InventoryDatabase> shards = new EnumMap<>(Warehouse.class);
+		shards.put(Warehouse.Poughkeepsie, store);
+		shards.put(Warehouse.Ashford, store);
+		final Map<Warehouse, Integer> connections = new EnumMap<>(Warehouse.class);
+		connections.put(Warehouse.Poughkeepsie, 2);
+		connections.put(Warehouse.Ashford, 2);
+		final DecisionLog log = new DecisionLog(16, 1);
+		final Path file = Files.createTempFile("ledger", ".bin");
+		Files.delete(file);
+
+		try (StockoutLedger ledger = StockoutLedger.open(file);
+				WarehouseInventoryManager manager = new WarehouseInventoryManager(shards, marketing,
+						OrderPolicy.DEFAULT, connections, log, store.itemKey(), ledger)) {
+			final long compacted = Files.size(file);
+
+			// when
+			manager.getOrders(TODAY);
+			manager.getOrders(TODAY);
+
+			// then
+			assertEquals(11, store.requiredOnHand(item, Warehouse.Poughkeepsie));
+			assertEquals(6, store.requiredOnHand(item, Warehouse.Ashford));
+			assertEquals(2, ledger.openEpisodes());
+			assertEquals(compacted + 20, Files.size(file));
+			assertEquals(4, log.query(store.itemKey().keyOf(item)).size());
+		}
+		Files.delete(file);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsWarehouseWithoutConnections() {
+		final Map<Warehouse, InventoryDatabase> shards = new EnumMap<>(Warehouse.class);
+		shards.put(Warehouse.Ashford, new ConcurrentInventoryDatabase(1));
+		new WarehouseInventoryManager(shards, marketing, OrderPolicy.DEFAULT, 0);
+	}
+}